@@ -0,0 +1,259 @@
+package games;
+
+/**
+ * This class stores the state of a connect 4 style board of any size, where a player
+ * needs any number of disks in a row to win (for example, connect 5 on an 8x9 board).
+ *
+ * Like ConnectFourBoard, each player's disks are stored as bits, but since a big board
+ * has more cells than a long has bits, the bits are spread across an array of longs.
+ * Cell (row, column) is bit column * rows + (row counted from the bottom). Checking
+ * for a win only looks at the lines through one cell, so it takes time proportional
+ * to the win length, not the size of the board.
+ */
+public class ConnectBoard {
+
+    // the column and row (from the bottom) steps for horizontal, vertical, and both diagonal lines
+    private static final int[][] DIRECTIONS = {{1, 0}, {0, 1}, {1, 1}, {1, -1}};
+
+    private final int rows, columns, winLength;
+
+    // the disks of player 1 (index 0) and player 2 (index 1), 64 cells per long
+    private final long[][] disks;
+
+    // how many disks are in each column
+    private final int[] heights;
+
+    // how many disks are on the board
+    private int moveCount = 0;
+
+    /**
+     * Makes an empty board.
+     *
+     * @param rows how many rows the board has
+     * @param columns how many columns the board has
+     * @param winLength how many disks in a row win the game
+     */
+    public ConnectBoard(int rows, int columns, int winLength) {
+        if (rows < 1 || columns < 1 || winLength < 1) {
+            throw new IllegalArgumentException("The board size and win length have to be positive");
+        }
+
+        this.rows = rows;
+        this.columns = columns;
+        this.winLength = winLength;
+        disks = new long[2][(rows * columns + 63) / 64];
+        heights = new int[columns];
+    }
+
+    /**
+     * Makes a copy of another board.
+     *
+     * @param other the board to copy
+     */
+    public ConnectBoard(ConnectBoard other) {
+        rows = other.rows;
+        columns = other.columns;
+        winLength = other.winLength;
+        disks = new long[][]{other.disks[0].clone(), other.disks[1].clone()};
+        heights = other.heights.clone();
+        moveCount = other.moveCount;
+    }
+
+    /**
+     * Makes this board the same as another board of the same size, without making
+     * new arrays.
+     *
+     * @param other the board to copy
+     */
+    public void copyFrom(ConnectBoard other) {
+        System.arraycopy(other.disks[0], 0, disks[0], 0, disks[0].length);
+        System.arraycopy(other.disks[1], 0, disks[1], 0, disks[1].length);
+        System.arraycopy(other.heights, 0, heights, 0, columns);
+        moveCount = other.moveCount;
+    }
+
+    /**
+     * Removes every disk from the board and makes it player 1's turn.
+     */
+    public void reset() {
+        for (int i = 0; i < disks[0].length; i++) {
+            disks[0][i] = 0;
+            disks[1][i] = 0;
+        }
+        for (int column = 0; column < columns; column++) {
+            heights[column] = 0;
+        }
+        moveCount = 0;
+    }
+
+    /**
+     * Returns whether a disk can still be dropped in a column
+     *
+     * @param column the column to check
+     */
+    public boolean canPlay(int column) {
+        return heights[column] < rows;
+    }
+
+    /**
+     * Drops the current player's disk in a column and makes it the other player's turn.
+     *
+     * @param column the column to drop the disk in (it must not be full)
+     * @return the row the disk landed in (row 0 is the top row, like the game board)
+     */
+    public int play(int column) {
+        int height = heights[column];
+        int bit = column * rows + height;
+        disks[moveCount & 1][bit >>> 6] |= 1L << bit;
+        heights[column] = height + 1;
+        moveCount++;
+        return rows - 1 - height;
+    }
+
+    /**
+     * Puts a player's disk on top of a column no matter whose turn it is. This is
+     * for setting up a position (like a puzzle), so the disks have to be added in
+     * an order that leaves it the right player's turn.
+     *
+     * @param column the column to put the disk in (it must not be full)
+     * @param player 1 or 2
+     * @return the row the disk landed in (row 0 is the top row)
+     */
+    public int addDisk(int column, int player) {
+        int height = heights[column];
+        int bit = column * rows + height;
+        disks[player - 1][bit >>> 6] |= 1L << bit;
+        heights[column] = height + 1;
+        moveCount++;
+        return rows - 1 - height;
+    }
+
+    /**
+     * Takes the top disk out of a column, undoing the last move made in it.
+     *
+     * @param column the column to take the disk out of (it must not be empty)
+     */
+    public void undo(int column) {
+        moveCount--;
+        heights[column]--;
+        int bit = column * rows + heights[column];
+        disks[moveCount & 1][bit >>> 6] &= ~(1L << bit);
+    }
+
+    /**
+     * Returns the row the next disk dropped in a column would land in, or -1 if
+     * the column is full (row 0 is the top row).
+     *
+     * @param column the column to check
+     */
+    public int getLandingRow(int column) {
+        return rows - 1 - heights[column];
+    }
+
+    /**
+     * Returns which player's disk is in a cell: 1, 2, or -1 if it's empty.
+     *
+     * @param row the row of the cell (row 0 is the top row)
+     * @param column the column of the cell
+     */
+    public int getPlayer(int row, int column) {
+        int bit = column * rows + (rows - 1 - row);
+        if ((disks[0][bit >>> 6] & (1L << bit)) != 0) {
+            return 1;
+        }
+        else if ((disks[1][bit >>> 6] & (1L << bit)) != 0) {
+            return 2;
+        }
+        else {
+            return -1;
+        }
+    }
+
+    /**
+     * Returns whether dropping the current player's disk in a column would win the game.
+     *
+     * @param column the column to check (it must not be full)
+     */
+    public boolean isWinningMove(int column) {
+        return hasLineThrough(moveCount & 1, column, heights[column]);
+    }
+
+    /**
+     * Returns whether the last disk dropped in a column made a line of winLength.
+     *
+     * @param column the column the last disk was dropped in
+     */
+    public boolean isWinningColumn(int column) {
+        int height = heights[column] - 1;
+        int bit = column * rows + height;
+        int player = (disks[0][bit >>> 6] & (1L << bit)) != 0 ? 0 : 1;
+        return hasLineThrough(player, column, height);
+    }
+
+    /**
+     * Returns whether a player would have a line of winLength through a cell if
+     * they had a disk in it.
+     *
+     * @param player 0 for player 1, 1 for player 2
+     * @param column the column of the cell
+     * @param height the row of the cell, counted from the bottom
+     */
+    private boolean hasLineThrough(int player, int column, int height) {
+        long[] playerDisks = disks[player];
+
+        for (int[] direction : DIRECTIONS) {
+            int count = 1;
+
+            // count the player's disks on both sides of the cell
+            for (int side = -1; side <= 1; side += 2) {
+                int c = column + side * direction[0];
+                int h = height + side * direction[1];
+                while (count < winLength && c >= 0 && c < columns && h >= 0 && h < rows) {
+                    int bit = c * rows + h;
+                    if ((playerDisks[bit >>> 6] & (1L << bit)) == 0) {
+                        break;
+                    }
+                    count++;
+                    c += side * direction[0];
+                    h += side * direction[1];
+                }
+            }
+
+            if (count >= winLength) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the player whose turn it is (1 or 2).
+     */
+    public int getCurrentPlayer() {
+        return (moveCount & 1) + 1;
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Returns whether every cell on the board has a disk in it.
+     */
+    public boolean isFull() {
+        return moveCount == rows * columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getWinLength() {
+        return winLength;
+    }
+}
@@ -0,0 +1,203 @@
+package games;
+
+/**
+ * This class draws a connect 4 style board on one Canvas, for boards that are too
+ * big to have a node for every cell (like 100x100). Big tic tac toe boards use it
+ * too, with a disk for each letter.
+ *
+ * It remembers the color of every cell and which cells have changed since the last
+ * frame, and only those cells are drawn again (once a frame, no matter how many
+ * times they changed). Everything is drawn one unit per cell and scaled to the size
+ * of the canvas, so resizing only changes the scale and draws the board once.
+ */
+import java.util.BitSet;
+import javafx.animation.AnimationTimer;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+public class ConnectBoardCanvas extends Canvas {
+
+    // how much of a cell the disk takes up (the rest is the gap between disks)
+    private static final double DISK_SIZE = 0.75;
+
+    // how long the winning disks take to fade out and back in (in seconds)
+    private static final double FLASH_SECONDS = 1;
+
+    private final int rows, columns;
+
+    // the color of each cell (row * columns + column)
+    private final Color[] colors;
+
+    // the cells that have to be drawn again
+    private final BitSet dirtyCells = new BitSet();
+
+    // the cells that are flashing because they won, and when they started
+    private final BitSet flashingCells = new BitSet();
+    private long flashStartTime;
+
+    // how many pixels wide each cell is
+    private double cellSize = 1;
+
+    // draws the dirty cells once a frame
+    private final AnimationTimer painter = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            // flashing cells change every frame
+            if (!flashingCells.isEmpty()) {
+                dirtyCells.or(flashingCells);
+            }
+            if (!dirtyCells.isEmpty()) {
+                paint(now);
+            }
+        }
+    };
+
+    /**
+     * Makes an empty board.
+     *
+     * @param rows how many rows the board has
+     * @param columns how many columns the board has
+     */
+    public ConnectBoardCanvas(int rows, int columns) {
+        this.rows = rows;
+        this.columns = columns;
+        colors = new Color[rows * columns];
+        reset();
+        painter.start();
+    }
+
+    /**
+     * Makes every cell white and stops the winning cells flashing.
+     */
+    public void reset() {
+        for (int i = 0; i < colors.length; i++) {
+            colors[i] = Color.WHITE;
+        }
+        flashingCells.clear();
+        dirtyCells.set(0, colors.length);
+    }
+
+    /**
+     * Changes the color of a cell. It's drawn in the next frame.
+     *
+     * @param row the row of the cell (row 0 is the top row)
+     * @param column the column of the cell
+     * @param color the color of the disk in it (white if it's empty)
+     */
+    public void setCellColor(int row, int column, Color color) {
+        int cell = row * columns + column;
+        if (!color.equals(colors[cell])) {
+            colors[cell] = color;
+            dirtyCells.set(cell);
+        }
+    }
+
+    /**
+     * Makes some cells fade in and out until the board is reset.
+     *
+     * @param cells the cells as {row, column} pairs
+     */
+    public void flashCells(int[][] cells) {
+        flashStartTime = System.nanoTime();
+        for (int[] cell : cells) {
+            flashingCells.set(cell[0] * columns + cell[1]);
+        }
+    }
+
+    /**
+     * Changes the size of the board so it fits in a space. The cells stay square,
+     * so the board can end up smaller than the space in one direction.
+     *
+     * @param width the most pixels wide the board can be
+     * @param height the most pixels high the board can be
+     */
+    public void resize(double width, double height) {
+        double newCellSize = Math.max(1, Math.min(width / columns, height / rows));
+        if (newCellSize == cellSize && getWidth() == columns * cellSize) {
+            return;
+        }
+
+        cellSize = newCellSize;
+        setWidth(columns * cellSize);
+        setHeight(rows * cellSize);
+
+        // one unit is one cell from now on
+        GraphicsContext gc = getGraphicsContext2D();
+        gc.setTransform(cellSize, 0, 0, cellSize, 0, 0);
+        gc.setLineWidth(1 / cellSize);
+        gc.setStroke(Color.BLACK);
+
+        dirtyCells.set(0, colors.length);
+    }
+
+    /**
+     * Returns the column at an x coordinate on the canvas, or -1 if it isn't over
+     * a column.
+     *
+     * @param x the x coordinate (for example, of the mouse)
+     */
+    public int getColumnAt(double x) {
+        int column = (int) Math.floor(x / cellSize);
+        return column >= 0 && column < columns ? column : -1;
+    }
+
+    /**
+     * Returns the row at a y coordinate on the canvas, or -1 if it isn't over a row.
+     *
+     * @param y the y coordinate (for example, of the mouse)
+     */
+    public int getRowAt(double y) {
+        int row = (int) Math.floor(y / cellSize);
+        return row >= 0 && row < rows ? row : -1;
+    }
+
+    /**
+     * Draws the cells that changed.
+     */
+    private void paint(long now) {
+        GraphicsContext gc = getGraphicsContext2D();
+        double gap = (1 - DISK_SIZE) / 2;
+
+        // the winning cells fade between fully showing and mostly see through
+        double phase = ((now - flashStartTime) / 1e9 / FLASH_SECONDS) % 1;
+        double flashAlpha = 0.2 + 0.8 * Math.abs(1 - 2 * phase);
+
+        for (int cell = dirtyCells.nextSetBit(0); cell >= 0; cell = dirtyCells.nextSetBit(cell + 1)) {
+            int row = cell / columns;
+            int column = cell % columns;
+
+            gc.clearRect(column, row, 1, 1);
+            gc.setGlobalAlpha(flashingCells.get(cell) ? flashAlpha : 1);
+            gc.setFill(colors[cell]);
+            gc.fillOval(column + gap, row + gap, DISK_SIZE, DISK_SIZE);
+            gc.strokeOval(column + gap, row + gap, DISK_SIZE, DISK_SIZE);
+        }
+
+        gc.setGlobalAlpha(1);
+        dirtyCells.clear();
+    }
+
+    /**
+     * Stops drawing the board until start() is called, for when the game isn't
+     * showing. Changes to the cells are still kept.
+     */
+    public void stop() {
+        painter.stop();
+    }
+
+    /**
+     * Starts drawing the board again after stop().
+     */
+    public void start() {
+        dirtyCells.set(0, colors.length);
+        painter.start();
+    }
+
+    /**
+     * Stops drawing the board (the canvas shouldn't be used after this).
+     */
+    public void dispose() {
+        painter.stop();
+    }
+}
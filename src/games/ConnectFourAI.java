@@ -0,0 +1,347 @@
+package games;
+
+/**
+ * This class is the computer opponent for connect 4.
+ *
+ * It uses a negamax search with alpha-beta pruning on a ConnectFourBoard. The search
+ * is repeated one move deeper at a time (iterative deepening) until it reaches the
+ * difficulty's depth or runs out of time, and the best move from the deepest
+ * finished search is played. Early in the game, the opening book is checked before
+ * searching. It doesn't use JavaFX, so it can be run on any thread.
+ */
+public class ConnectFourAI {
+
+    /**
+     * How strong the computer plays: how many moves ahead it looks, how long it
+     * can think about each move, and whether it plays perfect opening book moves.
+     */
+    public enum Difficulty {
+        EASY("Easy", 2, 200, false),
+        MEDIUM("Medium", 6, 500, true),
+        HARD("Hard", 42, 2000, true);
+
+        private final String name;
+        private final int maxDepth;
+        private final long timeLimitMillis;
+        private final boolean usesOpeningBook;
+
+        Difficulty(String name, int maxDepth, long timeLimitMillis, boolean usesOpeningBook) {
+            this.name = name;
+            this.maxDepth = maxDepth;
+            this.timeLimitMillis = timeLimitMillis;
+            this.usesOpeningBook = usesOpeningBook;
+        }
+
+        public boolean usesOpeningBook() {
+            return usesOpeningBook;
+        }
+
+        public int getMaxDepth() {
+            return maxDepth;
+        }
+
+        public long getTimeLimitMillis() {
+            return timeLimitMillis;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    // the order columns are searched in. Middle columns are part of more lines of 4,
+    // so they're usually better and trying them first lets alpha-beta prune more.
+    private static final int[] COLUMN_ORDER = {3, 2, 4, 1, 5, 0, 6};
+
+    // the score of a win (a win sooner is worth a little more than a win later)
+    private static final int WIN_SCORE = 1000000;
+
+    /**
+     * The score scoreColumns() gives a column that's full.
+     */
+    public static final int FULL_COLUMN = Integer.MIN_VALUE;
+
+    // how many nodes are searched between checks of the clock
+    private static final int NODES_PER_TIME_CHECK = 4096;
+
+    // the number of positions looked at in the last search
+    private long nodes;
+
+    // when the current search has to stop (from System.nanoTime())
+    private long deadline;
+    private boolean isOutOfTime;
+
+    // this is set to stop searching for good (used to cancel an analysis of an old position)
+    private volatile boolean isStopped = false;
+
+    // stats about the last search
+    private int lastDepth;
+    private long lastNanos;
+    private boolean isLastMoveFromBook;
+
+    /**
+     * Finds the best column for the player whose turn it is.
+     *
+     * @param position the board to search (it isn't changed)
+     * @param difficulty how deep and how long to search
+     * @return the column to play in, or -1 if the board is full
+     */
+    public int findMove(ConnectFourBoard position, Difficulty difficulty) {
+        return findMove(position, difficulty.getMaxDepth(), difficulty.getTimeLimitMillis(), difficulty.usesOpeningBook());
+    }
+
+    /**
+     * Finds the best column for the player whose turn it is, with settings that
+     * don't have to match a Difficulty (the tournament runner uses this).
+     *
+     * @param position the board to search (it isn't changed)
+     * @param maxDepth how many moves ahead to look at most
+     * @param timeLimitMillis how long the search can take
+     * @param useOpeningBook whether to play moves from the opening book
+     * @return the column to play in, or -1 if the board is full
+     */
+    public int findMove(ConnectFourBoard position, int maxDepth, long timeLimitMillis, boolean useOpeningBook) {
+        long startTime = System.nanoTime();
+        deadline = startTime + timeLimitMillis * 1000000L;
+        isOutOfTime = false;
+        nodes = 0;
+        lastDepth = 0;
+        isLastMoveFromBook = false;
+
+        // early in the game, the opening book already knows the best move
+        ConnectFourOpeningBook book = ConnectFourOpeningBook.getDefault();
+        if (useOpeningBook && book != null && position.getMoveCount() < book.getPly()) {
+            int bookColumn = book.getBestMove(position, COLUMN_ORDER);
+            if (bookColumn != -1) {
+                isLastMoveFromBook = true;
+                lastNanos = System.nanoTime() - startTime;
+                return bookColumn;
+            }
+        }
+
+        ConnectFourBoard board = new ConnectFourBoard(position);
+        int[] order = COLUMN_ORDER.clone();
+
+        // start with the first column that can be played in case time runs out right away
+        int bestColumn = -1;
+        for (int column : order) {
+            if (board.canPlay(column)) {
+                bestColumn = column;
+                break;
+            }
+        }
+
+        // look one move deeper each time
+        int depthLimit = Math.min(maxDepth, ConnectFourBoard.ROWS * ConnectFourBoard.COLUMNS - board.getMoveCount());
+        for (int depth = 1; depth <= depthLimit && bestColumn != -1; depth++) {
+            int alpha = -WIN_SCORE - 1;
+            int depthBestColumn = -1;
+
+            for (int column : order) {
+                if (!board.canPlay(column)) {
+                    continue;
+                }
+
+                int score;
+                if (board.isWinningMove(column)) {
+                    score = WIN_SCORE - board.getMoveCount();
+                }
+                else {
+                    board.play(column);
+                    score = -negamax(board, depth - 1, -WIN_SCORE - 1, -alpha);
+                    board.undo(column);
+                }
+
+                if (isOutOfTime) {
+                    break;
+                }
+                if (score > alpha) {
+                    alpha = score;
+                    depthBestColumn = column;
+                }
+            }
+
+            // only use the results of searches that finished
+            if (isOutOfTime) {
+                break;
+            }
+            bestColumn = depthBestColumn;
+            lastDepth = depth;
+
+            // there's no point looking deeper once a win or loss has been found
+            if (Math.abs(alpha) > WIN_SCORE - 100) {
+                break;
+            }
+
+            // search the best column first next time
+            moveToFront(order, bestColumn);
+        }
+
+        lastNanos = System.nanoTime() - startTime;
+        return bestColumn;
+    }
+
+    /**
+     * Scores every column for the player whose turn it is by searching a number of
+     * moves ahead. This is used to analyze a position, so it doesn't use the
+     * opening book or a time limit.
+     *
+     * @param position the board to search (it isn't changed)
+     * @param depth how many moves ahead to look
+     * @param scores this is filled in with each column's score (FULL_COLUMN for full columns)
+     * @return false if the search was stopped before it finished
+     */
+    public boolean scoreColumns(ConnectFourBoard position, int depth, int[] scores) {
+        deadline = Long.MAX_VALUE;
+        isOutOfTime = false;
+        ConnectFourBoard board = new ConnectFourBoard(position);
+
+        for (int column = 0; column < ConnectFourBoard.COLUMNS; column++) {
+            if (!board.canPlay(column)) {
+                scores[column] = FULL_COLUMN;
+            }
+            else if (board.isWinningMove(column)) {
+                scores[column] = WIN_SCORE - board.getMoveCount();
+            }
+            else {
+                board.play(column);
+                scores[column] = -negamax(board, depth - 1, -WIN_SCORE - 1, WIN_SCORE + 1);
+                board.undo(column);
+            }
+
+            if (isOutOfTime) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Stops the search that's running, and any searches started after this. The
+     * result of a stopped search should be ignored.
+     */
+    public void stop() {
+        isStopped = true;
+    }
+
+    /**
+     * Returns whether a score means somebody wins (the player whose turn it is if
+     * it's positive, the other player if it's negative).
+     */
+    public static boolean isWinScore(int score) {
+        return score != FULL_COLUMN && Math.abs(score) > WIN_SCORE - 100;
+    }
+
+    /**
+     * Returns how many disks the winner still has to play to win (including the
+     * winning disk), for a score where somebody wins.
+     *
+     * @param score a win or loss score for the player whose turn it is
+     * @param moveCount how many disks are on the board
+     */
+    public static int getMovesToWin(int score, int moveCount) {
+        // the number of disks on the board right before the winning disk is played
+        int winningMoveCount = WIN_SCORE - Math.abs(score);
+        return (winningMoveCount - moveCount) / 2 + 1;
+    }
+
+    /**
+     * Scores a position for the player whose turn it is.
+     *
+     * @param board the position to score (it's put back the way it was)
+     * @param depth how many more moves to look ahead
+     * @param alpha the score the current player is already guaranteed
+     * @param beta the score the other player is already guaranteed
+     */
+    private int negamax(ConnectFourBoard board, int depth, int alpha, int beta) {
+        nodes++;
+        if ((nodes % NODES_PER_TIME_CHECK) == 0 && (isStopped || System.nanoTime() > deadline)) {
+            isOutOfTime = true;
+        }
+        if (isOutOfTime) {
+            return 0;
+        }
+
+        if (board.isFull()) {
+            return 0;
+        }
+
+        // if the current player can win right away, they will
+        for (int column : COLUMN_ORDER) {
+            if (board.canPlay(column) && board.isWinningMove(column)) {
+                return WIN_SCORE - board.getMoveCount();
+            }
+        }
+
+        if (depth == 0) {
+            return board.evaluate();
+        }
+
+        int bestScore = -WIN_SCORE - 1;
+        for (int column : COLUMN_ORDER) {
+            if (!board.canPlay(column)) {
+                continue;
+            }
+
+            board.play(column);
+            int score = -negamax(board, depth - 1, -beta, -alpha);
+            board.undo(column);
+
+            if (score > bestScore) {
+                bestScore = score;
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+            if (alpha >= beta) {
+                break;
+            }
+        }
+
+        return bestScore;
+    }
+
+    /**
+     * Moves a column to the front of the search order, keeping the rest in the same order.
+     */
+    private static void moveToFront(int[] order, int column) {
+        int index = 0;
+        while (order[index] != column) {
+            index++;
+        }
+        for (int i = index; i > 0; i--) {
+            order[i] = order[i - 1];
+        }
+        order[0] = column;
+    }
+
+    /**
+     * Returns how many positions the last search looked at.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns how many moves ahead the last search finished looking.
+     */
+    public int getLastDepth() {
+        return lastDepth;
+    }
+
+    /**
+     * Returns whether the last move came from the opening book instead of a search.
+     */
+    public boolean isLastMoveFromBook() {
+        return isLastMoveFromBook;
+    }
+
+    /**
+     * Returns how many positions the last search looked at per second.
+     */
+    public double getNodesPerSecond() {
+        return lastNanos == 0 ? 0 : nodes * 1e9 / lastNanos;
+    }
+}
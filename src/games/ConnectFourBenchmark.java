@@ -0,0 +1,80 @@
+package games;
+
+/**
+ * This class times the connect 4 solver on a fixed set of positions with different
+ * numbers of threads, and prints how much faster each number of threads is than one.
+ *
+ * It doesn't use JavaFX, so it can be run from the command line:
+ *   java -cp MiniGames.jar games.ConnectFourBenchmark [thread counts] [table size in MB]
+ * for example "games.ConnectFourBenchmark 1,2,4,8 256". By default it compares one
+ * thread with every core on the machine.
+ */
+public class ConnectFourBenchmark {
+
+    // the positions that are solved, as the columns (1 to 7) that were played in order
+    private static final String[] POSITIONS = {
+        "7115312676", "673565465", "35672656", "47237372",
+        "53666167", "1127165573", "3715156", "64252212"
+    };
+
+    public static void main(String[] args) {
+        String threadList = args.length > 0 ? args[0] : "1," + Runtime.getRuntime().availableProcessors();
+        int tableSizeMB = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+
+        String[] threadCounts = threadList.split(",");
+        TranspositionTable table = new TranspositionTable(tableSizeMB);
+        int[] firstScores = null;
+        double oneThreadSeconds = 0;
+
+        System.out.println("Solving " + POSITIONS.length + " positions with a " + table.getSizeMB() + " MB table");
+        System.out.println("threads\tseconds\tnodes/sec\tspeedup");
+
+        for (String threadCount : threadCounts) {
+            int threads = Integer.parseInt(threadCount.trim());
+
+            // every run starts with an empty table so earlier runs don't help it
+            table.clear();
+            ParallelConnectFourSolver solver = new ParallelConnectFourSolver(threads, table);
+            int[] scores = new int[POSITIONS.length];
+
+            long startTime = System.nanoTime();
+            for (int i = 0; i < POSITIONS.length; i++) {
+                scores[i] = solver.solve(makeBoard(POSITIONS[i]));
+            }
+            double seconds = (System.nanoTime() - startTime) / 1e9;
+            solver.shutdown();
+
+            // every number of threads should find the same scores
+            if (firstScores == null) {
+                firstScores = scores;
+            }
+            else {
+                for (int i = 0; i < scores.length; i++) {
+                    if (scores[i] != firstScores[i]) {
+                        System.out.println("Position " + POSITIONS[i] + " scored " + scores[i]
+                                + " with " + threads + " threads but " + firstScores[i] + " before");
+                    }
+                }
+            }
+
+            if (threads == 1) {
+                oneThreadSeconds = seconds;
+            }
+            String speedup = oneThreadSeconds > 0 ? String.format("%.2fx", oneThreadSeconds / seconds) : "-";
+            System.out.printf("%d\t%.2f\t%,.0f\t%s%n", threads, seconds, solver.getNodes() / seconds, speedup);
+        }
+    }
+
+    /**
+     * Makes a board by playing a list of columns.
+     *
+     * @param moves the columns (1 to 7) to play in order
+     */
+    private static ConnectFourBoard makeBoard(String moves) {
+        ConnectFourBoard board = new ConnectFourBoard();
+        for (char move : moves.toCharArray()) {
+            board.play(move - '1');
+        }
+        return board;
+    }
+}
@@ -0,0 +1,437 @@
+package games;
+
+/**
+ * This class stores the state of a connect 4 board without any visuals, so games
+ * can be played (or simulated) without JavaFX.
+ *
+ * Each player's disks are stored in a long (a bitboard). Every column takes up 7 bits:
+ * 6 bits for the rows (the bottom row is the lowest bit) plus an empty bit on top, so
+ * shifting the bits never makes disks in different columns line up by accident.
+ */
+public class ConnectFourBoard {
+
+    // the size of the board
+    public static final int ROWS = 6, COLUMNS = 7;
+
+    // how many bits each column uses (one more than the number of rows)
+    private static final int COLUMN_BITS = ROWS + 1;
+
+    // a bit in the bottom row of each column
+    public static final long BOTTOM_MASK = makeBottomMask();
+
+    // a bit in every cell of the board (not including the empty bit on top of each column)
+    public static final long BOARD_MASK = BOTTOM_MASK * ((1L << ROWS) - 1);
+
+    // every group of 4 cells in a row that a player could win with
+    private static final long[] WINDOWS = makeWindows();
+
+    // how much a window is worth to a player with 0, 1, 2, or 3 disks in it (and none of the other player's)
+    private static final int[] WINDOW_SCORES = {0, 1, 5, 25};
+
+    // the disks of player 1 (index 0) and player 2 (index 1)
+    private long[] disks = new long[2];
+
+    // how many disks are in each column
+    private int[] heights = new int[COLUMNS];
+
+    // how many disks are on the board
+    private int moveCount = 0;
+
+    public ConnectFourBoard() {
+    }
+
+    /**
+     * Makes a copy of another board (used so the computer can search without
+     * changing the board that's being displayed).
+     *
+     * @param other the board to copy
+     */
+    public ConnectFourBoard(ConnectFourBoard other) {
+        disks[0] = other.disks[0];
+        disks[1] = other.disks[1];
+        heights = other.heights.clone();
+        moveCount = other.moveCount;
+    }
+
+    /**
+     * Makes a board with a position's disks on it (for example, a position from
+     * its key).
+     *
+     * @param current the disks of the player whose turn it is
+     * @param mask every disk on the board
+     */
+    public ConnectFourBoard(long current, long mask) {
+        moveCount = Long.bitCount(mask);
+        disks[moveCount & 1] = current;
+        disks[(moveCount + 1) & 1] = current ^ mask;
+        for (int column = 0; column < COLUMNS; column++) {
+            heights[column] = Long.bitCount(mask & columnMask(column));
+        }
+    }
+
+    /**
+     * Removes every disk from the board and makes it player 1's turn.
+     */
+    public void reset() {
+        disks[0] = 0;
+        disks[1] = 0;
+        for (int column = 0; column < COLUMNS; column++) {
+            heights[column] = 0;
+        }
+        moveCount = 0;
+    }
+
+    /**
+     * Returns whether a disk can still be dropped in a column
+     *
+     * @param column the column to check
+     */
+    public boolean canPlay(int column) {
+        return heights[column] < ROWS;
+    }
+
+    /**
+     * Drops the current player's disk in a column and makes it the other player's turn.
+     *
+     * @param column the column to drop the disk in (it must not be full)
+     * @return the row the disk landed in (row 0 is the top row, like the game board)
+     */
+    public int play(int column) {
+        int height = heights[column];
+        disks[moveCount & 1] |= 1L << (column * COLUMN_BITS + height);
+        heights[column] = height + 1;
+        moveCount++;
+        return ROWS - 1 - height;
+    }
+
+    /**
+     * Takes the top disk out of a column, undoing the last move made in it.
+     *
+     * @param column the column to take the disk out of (it must not be empty)
+     */
+    public void undo(int column) {
+        moveCount--;
+        heights[column]--;
+        disks[moveCount & 1] &= ~(1L << (column * COLUMN_BITS + heights[column]));
+    }
+
+    /**
+     * Returns whether dropping the current player's disk in a column would win the game.
+     *
+     * @param column the column to check (it must not be full)
+     */
+    public boolean isWinningMove(int column) {
+        return isWin(disks[moveCount & 1] | (1L << (column * COLUMN_BITS + heights[column])));
+    }
+
+    /**
+     * Guesses how good the position is for the player whose turn it is, by
+     * counting the groups of 4 cells that only one player has disks in.
+     *
+     * @return a positive number if the current player is ahead, negative if they're behind
+     */
+    public int evaluate() {
+        long mine = disks[moveCount & 1];
+        long theirs = disks[(moveCount + 1) & 1];
+        int score = 0;
+
+        for (long window : WINDOWS) {
+            int myCount = Long.bitCount(mine & window);
+            int theirCount = Long.bitCount(theirs & window);
+
+            if (theirCount == 0) {
+                score += WINDOW_SCORES[myCount];
+            }
+            else if (myCount == 0) {
+                score -= WINDOW_SCORES[theirCount];
+            }
+        }
+
+        return score;
+    }
+
+    /**
+     * Returns the row the next disk dropped in a column would land in, or -1 if
+     * the column is full (row 0 is the top row).
+     *
+     * @param column the column to check
+     */
+    public int getLandingRow(int column) {
+        return ROWS - 1 - heights[column];
+    }
+
+    /**
+     * Returns which player's disk is in a cell: 1, 2, or -1 if it's empty.
+     *
+     * @param row the row of the cell (row 0 is the top row)
+     * @param column the column of the cell
+     */
+    public int getPlayer(int row, int column) {
+        long bit = 1L << (column * COLUMN_BITS + (ROWS - 1 - row));
+        if ((disks[0] & bit) != 0) {
+            return 1;
+        }
+        else if ((disks[1] & bit) != 0) {
+            return 2;
+        }
+        else {
+            return -1;
+        }
+    }
+
+    /**
+     * Returns the player whose turn it is (1 or 2).
+     */
+    public int getCurrentPlayer() {
+        return (moveCount & 1) + 1;
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Returns whether every cell on the board has a disk in it.
+     */
+    public boolean isFull() {
+        return moveCount == ROWS * COLUMNS;
+    }
+
+    /**
+     * Returns the bitboard holding a player's disks
+     *
+     * @param player 1 or 2
+     */
+    public long getDisks(int player) {
+        return disks[player - 1];
+    }
+
+    /**
+     * Returns the disks of the player whose turn it is.
+     */
+    public long getCurrentDisks() {
+        return disks[moveCount & 1];
+    }
+
+    /**
+     * Returns a bitboard with a bit in every cell that has a disk in it.
+     */
+    public long getMask() {
+        return disks[0] | disks[1];
+    }
+
+    /**
+     * Returns a number that's different for every position on the board.
+     *
+     * Adding the mask to the current player's disks sets the bit above the top disk
+     * of each column and keeps the current player's disks below it, which is enough
+     * to tell every position apart.
+     */
+    public long getKey() {
+        return getKey(getCurrentDisks(), getMask());
+    }
+
+    public static long getKey(long current, long mask) {
+        return current + mask;
+    }
+
+    /**
+     * Returns the key of the position seen in a mirror (column 1 switched with
+     * column 7 and so on). A position and its mirror image have the same result.
+     *
+     * @param key a position's key, or any bitboard
+     */
+    public static long mirror(long key) {
+        long mirrored = 0;
+        for (int column = 0; column < COLUMNS; column++) {
+            long columnBits = (key >>> (column * COLUMN_BITS)) & ((1L << COLUMN_BITS) - 1);
+            mirrored |= columnBits << ((COLUMNS - 1 - column) * COLUMN_BITS);
+        }
+        return mirrored;
+    }
+
+    /**
+     * Returns the smaller of a position's key and its mirror image's key, so a
+     * position and its mirror image are stored in the same place.
+     *
+     * @param key a position's key
+     */
+    public static long getCanonicalKey(long key) {
+        return Math.min(key, mirror(key));
+    }
+
+    /**
+     * Returns the bitboard of every disk in a position from the position's key.
+     *
+     * Since the key is the current player's disks plus the mask, the bit just above
+     * the top disk of each column is set and nothing above it is.
+     *
+     * @param key a position's key
+     */
+    public static long getMaskFromKey(long key) {
+        long withBottom = key + BOTTOM_MASK;
+        long mask = 0;
+        for (int column = 0; column < COLUMNS; column++) {
+            long columnBits = (withBottom >>> (column * COLUMN_BITS)) & ((1L << COLUMN_BITS) - 1);
+            long top = Long.highestOneBit(columnBits);
+            mask |= (top - 1) << (column * COLUMN_BITS);
+        }
+        return mask;
+    }
+
+    /**
+     * Returns a bitboard with a bit in the cell each column's next disk would land in.
+     *
+     * @param mask every disk on the board
+     */
+    public static long possibleMoves(long mask) {
+        return (mask + BOTTOM_MASK) & BOARD_MASK;
+    }
+
+    /**
+     * Returns a bitboard of the empty cells that would complete 4 in a row for a player.
+     *
+     * @param position the player's disks
+     * @param mask every disk on the board
+     */
+    public static long winningCells(long position, long mask) {
+        // vertical
+        long cells = (position << 1) & (position << 2) & (position << 3);
+
+        // horizontal and both diagonals
+        int[] shifts = {COLUMN_BITS, COLUMN_BITS - 1, COLUMN_BITS + 1};
+        for (int shift : shifts) {
+            long pairs = (position << shift) & (position << (2 * shift));
+            cells |= pairs & (position << (3 * shift));
+            cells |= pairs & (position >>> shift);
+            pairs = (position >>> shift) & (position >>> (2 * shift));
+            cells |= pairs & (position << shift);
+            cells |= pairs & (position >>> (3 * shift));
+        }
+
+        return cells & (BOARD_MASK ^ mask);
+    }
+
+    /**
+     * Returns the column a move (a bitboard with one bit) is in.
+     */
+    public static int columnOf(long move) {
+        return Long.numberOfTrailingZeros(move) / COLUMN_BITS;
+    }
+
+    /**
+     * Returns a bitboard with a bit in every cell of a column.
+     */
+    public static long columnMask(int column) {
+        return ((1L << ROWS) - 1) << (column * COLUMN_BITS);
+    }
+
+    /**
+     * Returns whether a player has 4 disks in a row anywhere on the board.
+     *
+     * @param player 1 or 2
+     */
+    public boolean hasWon(int player) {
+        return isWin(disks[player - 1]);
+    }
+
+    /**
+     * Returns the cells of one of a player's winning lines as {row, column} pairs,
+     * or null if the player hasn't won.
+     *
+     * @param player 1 or 2
+     */
+    public int[][] getWinningCells(int player) {
+        long board = disks[player - 1];
+
+        // vertical, horizontal, and the two diagonals
+        int[] shifts = {1, COLUMN_BITS, COLUMN_BITS - 1, COLUMN_BITS + 1};
+        for (int shift : shifts) {
+            long pairs = board & (board >> shift);
+            long lines = pairs & (pairs >> (2 * shift));
+
+            if (lines != 0) {
+                // the lowest bit of a line is where the line starts
+                int start = Long.numberOfTrailingZeros(lines);
+                int[][] cells = new int[4][2];
+                for (int i = 0; i < 4; i++) {
+                    int bit = start + i * shift;
+                    cells[i][0] = ROWS - 1 - bit % COLUMN_BITS;
+                    cells[i][1] = bit / COLUMN_BITS;
+                }
+                return cells;
+            }
+        }
+
+        return null;
+    }
+
+    private static long makeBottomMask() {
+        long mask = 0;
+        for (int column = 0; column < COLUMNS; column++) {
+            mask |= 1L << (column * COLUMN_BITS);
+        }
+        return mask;
+    }
+
+    /**
+     * Makes a bitboard for every group of 4 cells in a row on the board.
+     */
+    private static long[] makeWindows() {
+        // the column and row steps for vertical, horizontal, and both diagonal lines
+        int[][] directions = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+        long[] windows = new long[69];
+        int count = 0;
+
+        for (int[] direction : directions) {
+            for (int column = 0; column < COLUMNS; column++) {
+                for (int row = 0; row < ROWS; row++) {
+                    int endColumn = column + 3 * direction[0];
+                    int endRow = row + 3 * direction[1];
+
+                    if (endColumn < COLUMNS && endRow >= 0 && endRow < ROWS) {
+                        long window = 0;
+                        for (int i = 0; i < 4; i++) {
+                            window |= 1L << ((column + i * direction[0]) * COLUMN_BITS + row + i * direction[1]);
+                        }
+                        windows[count++] = window;
+                    }
+                }
+            }
+        }
+
+        return windows;
+    }
+
+    /**
+     * Returns whether a bitboard has 4 disks in a row.
+     *
+     * Each check shifts the board onto itself so that a bit is only left over where
+     * 4 disks in a row start.
+     *
+     * @param board the bitboard to check
+     */
+    public static boolean isWin(long board) {
+        // horizontal
+        long pairs = board & (board >> COLUMN_BITS);
+        if ((pairs & (pairs >> (2 * COLUMN_BITS))) != 0) {
+            return true;
+        }
+
+        // diagonal going down to the right
+        pairs = board & (board >> (COLUMN_BITS - 1));
+        if ((pairs & (pairs >> (2 * (COLUMN_BITS - 1)))) != 0) {
+            return true;
+        }
+
+        // diagonal going up to the right
+        pairs = board & (board >> (COLUMN_BITS + 1));
+        if ((pairs & (pairs >> (2 * (COLUMN_BITS + 1)))) != 0) {
+            return true;
+        }
+
+        // vertical
+        pairs = board & (board >> 1);
+        return (pairs & (pairs >> 2)) != 0;
+    }
+}
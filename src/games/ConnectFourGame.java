@@ -10,11 +10,19 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import javafx.animation.AnimationTimer;
 import javafx.animation.FadeTransition;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.input.KeyCode;
 import javafx.scene.layout.GridPane;
@@ -46,6 +54,28 @@ public class ConnectFourGame {
     // takes the user back to the game selector screen
     private Button btnHome = new Button("Home");
     
+    // switches player 2 between a person and the computer
+    private Button btnOpponent = new Button("Opponent: Player 2");
+    
+    // chooses how well the computer plays
+    private ComboBox<ConnectFourAI.Difficulty> cbDifficulty = new ComboBox<>();
+    
+    // displays how deep the computer searched and how fast (nodes per second)
+    private Label lblEngine = new Label();
+    
+    // finds who wins the current position with perfect play
+    private Button btnSolve = new Button("Solve");
+    
+    // starts and stops puzzle mode, where player 1 has to win a position in a
+    // number of moves against the computer
+    private Button btnPuzzle = new Button("Puzzles");
+    
+    // turns the analysis of each column on and off
+    private Button btnAnalysis = new Button("Analysis: Off");
+    
+    // chooses the size of the board and how many disks in a row win
+    private ComboBox<BoardSize> cbBoardSize = new ComboBox<>();
+    
     // contains the game board on top and a label with the player's turn on bottom
     private VBox masterPane = new VBox();
     
@@ -54,15 +84,166 @@ public class ConnectFourGame {
     
     private int player1Score = 0, player2Score = 0;
     
+    // the size of the board and how many disks in a row win
+    private int rows = 6, columns = 7, winLength = 4;
+    
+    // stores which player has a disk in each cell
+    // the Cells only display what's stored here.
+    private ConnectBoard board = new ConnectBoard(rows, columns, winLength);
+    
+    // the same position for the computer opponent and the solver, which only play
+    // connect 4 on a 6x7 board. It's only kept up to date on that board.
+    private ConnectFourBoard engineBoard = new ConnectFourBoard();
+    
+    // checks the lines through each disk that's placed for a winner
+    private WinDetector winDetector = new WinDetector(rows, columns, winLength);
+    
     // stores all the cells in the game (the game board)
-    // contains the cell data, doesn't display them.
-    private Cell[][] gameGrid = new Cell[6][7];
+    private Cell[][] gameGrid = new Cell[rows][columns];
     
     // this is the game board
     private GridPane gameBoard = new GridPane();
     
+    // the flashing winning Cells, they're stopped when the Cells are reused
+    private FadeTransition[] winAnimations = new FadeTransition[0];
+    
+    // boards with more cells than this are drawn on a Canvas instead of with a
+    // Cell for each cell, which would make too many nodes for JavaFX to lay out
+    private static final int MAX_CELL_NODES = 100;
+    
+    // the game board when it's drawn on a Canvas (null when it's made of Cells)
+    private ConnectBoardCanvas boardCanvas;
+    
     private Scene masterScene = new Scene(masterPane, 400, 400);
     
+    // the computer opponent (it plays as player 2)
+    private ConnectFourAI ai = new ConnectFourAI();
+    private ConnectFourAI.Difficulty difficulty = ConnectFourAI.Difficulty.MEDIUM;
+    private boolean isComputerOpponent = false;
+    
+    // the computer opponent can use Monte Carlo tree search instead, which plays on
+    // any board size (it searches for as long as the difficulty's time limit).
+    // its threads are shared by every ConnectFourGame
+    private static final MonteCarloTreeSearch monteCarlo = new MonteCarloTreeSearch();
+    private boolean isMonteCarloOpponent = false;
+    
+    // the keys that drop a disk in each column
+    private static final KeyCode[] COLUMN_KEYS = {KeyCode.DIGIT1, KeyCode.DIGIT2, KeyCode.DIGIT3, KeyCode.DIGIT4,
+        KeyCode.DIGIT5, KeyCode.DIGIT6, KeyCode.DIGIT7};
+    private static final KeyCode[] COLUMN_NUMPAD_KEYS = {KeyCode.NUMPAD1, KeyCode.NUMPAD2, KeyCode.NUMPAD3, KeyCode.NUMPAD4,
+        KeyCode.NUMPAD5, KeyCode.NUMPAD6, KeyCode.NUMPAD7};
+    
+    // the faded disk that shows where the next disk will land, and the column the mouse is over
+    private static final Color PREVIEW_RED = Color.rgb(255, 0, 0, 0.3), PREVIEW_BLUE = Color.rgb(0, 0, 255, 0.3);
+    private int previewRow = -1, previewColumn = -1;
+    private int hoverColumn = -1;
+    
+    // this is true while the computer is looking for a move, clicks are ignored until it's done
+    private boolean isComputerThinking = false;
+    
+    // this goes up every game so a move the computer found for an old game isn't played
+    private int gameNumber = 0;
+    
+    // whether puzzles are being played, and how many more disks player 1 can play
+    // to win the current puzzle
+    private boolean isPuzzleMode = false;
+    private int puzzleMovesLeft;
+    private Random random = new Random();
+    
+    // the computer searches on this thread so the window doesn't freeze while it thinks.
+    // the threads are static so a new ConnectFourGame (when data isn't saved) doesn't start more of them
+    private static final ExecutorService aiThread = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Connect 4 AI");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    // the perfect play solver (it's made the first time it's used since its table is big)
+    // and the thread it runs on, so a long solve doesn't hold up the computer's moves.
+    // the solver searches with every core (see ParallelConnectFourSolver for how to change that).
+    // its threads and table are kept for the whole app, so every ConnectFourGame shares one solver
+    private static ParallelConnectFourSolver solver;
+    private static final ExecutorService solverThread = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Connect 4 solver");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    // while analysis is on, the score of each column is shown above the board,
+    // and how far ahead the scores looked is shown below it
+    private boolean isAnalyzing = false;
+    private HBox analysisBar = new HBox();
+    private Label[] analysisLabels = new Label[ConnectFourBoard.COLUMNS];
+    private Label lblAnalysis = new Label();
+    
+    // the analysis runs on its own thread, one move deeper at a time, and starts over
+    // whenever a disk is dropped. Each position gets its own AI so stopping the old
+    // analysis can't stop the new one.
+    private ConnectFourAI analyzer;
+    private Future<?> analysisTask;
+    private int analysisNumber = 0;
+    private static final ExecutorService analysisThread = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Connect 4 analysis");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    // the newest scores from the analysis thread. They're shown by the timer, which
+    // runs once a frame, so the labels change at most once a frame no matter how
+    // fast the scores come in.
+    private AtomicReference<AnalysisUpdate> latestAnalysis = new AtomicReference<>();
+    private AnimationTimer analysisTimer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            AnalysisUpdate update = latestAnalysis.getAndSet(null);
+            if (update != null && update.analysisNumber == analysisNumber) {
+                showAnalysis(update);
+            }
+        }
+    };
+    
+    // the scores of each column after searching a number of moves ahead
+    private static class AnalysisUpdate {
+        int analysisNumber, depth, moveCount;
+        int[] scores;
+    }
+    
+    /**
+     * Some board sizes that can be picked in the game. Any other size can be set
+     * with setBoardSize().
+     */
+    public enum BoardSize {
+        CONNECT_4(6, 7, 4),
+        CONNECT_5(8, 9, 5),
+        CONNECT_6(20, 20, 6),
+        CONNECT_6_HUGE(100, 100, 6);
+        
+        private final int rows, columns, winLength;
+        
+        BoardSize(int rows, int columns, int winLength) {
+            this.rows = rows;
+            this.columns = columns;
+            this.winLength = winLength;
+        }
+        
+        public int getRows() {
+            return rows;
+        }
+        
+        public int getColumns() {
+            return columns;
+        }
+        
+        public int getWinLength() {
+            return winLength;
+        }
+        
+        @Override
+        public String toString() {
+            return "Connect " + winLength + " (" + rows + "x" + columns + ")";
+        }
+    }
+    
     public Scene startClass(GameSelector selector) {
         // this VBox contains the game board (top) and the Label (bottom)
         masterPane.setAlignment(Pos.CENTER);
@@ -74,14 +255,104 @@ public class ConnectFourGame {
         gameBoard.setHgap(15);
         gameBoard.setVgap(10);
         
-        // allow the user to reset the game by pressing enter.
+        // allow the user to reset the game by pressing enter,
+        // and to drop disks in the first 7 columns with the number keys 1 to 7.
         masterPane.setOnKeyReleased(e -> {
             if (!(isGameRunning) && e.getCode() == KeyCode.ENTER) {
                 beginGame();
             }
+            else {
+                for (int column = 0; column < Math.min(columns, COLUMN_KEYS.length); column++) {
+                    if (e.getCode() == COLUMN_KEYS[column] || e.getCode() == COLUMN_NUMPAD_KEYS[column]) {
+                        dropInColumn(column);
+                    }
+                }
+            }
         });
         
-        btnHome.setOnAction(e -> selector.draw());
+        // the solver and the analysis don't need to keep running once the game is closed
+        btnHome.setOnAction(e -> {
+            if (boardCanvas != null) {
+                boardCanvas.stop();
+            }
+            monteCarlo.stop();
+            stopSolving();
+            stopAnalysis();
+            analysisTimer.stop();
+            selector.draw();
+        });
+        
+        // changing the opponent starts a new game. It goes from player 2 to the
+        // computer to Monte Carlo tree search (the computer is skipped on boards it
+        // can't play on).
+        btnOpponent.setOnAction(e -> {
+            if (!isComputerOpponent) {
+                isComputerOpponent = true;
+                isMonteCarloOpponent = !isStandardBoard();
+            }
+            else if (!isMonteCarloOpponent) {
+                isMonteCarloOpponent = true;
+            }
+            else {
+                isComputerOpponent = false;
+                isMonteCarloOpponent = false;
+            }
+            updateOpponentText();
+            beginGame();
+        });
+        
+        btnSolve.setOnAction(e -> startSolving());
+        
+        btnAnalysis.setOnAction(e -> {
+            isAnalyzing = !isAnalyzing;
+            btnAnalysis.setText(isAnalyzing ? "Analysis: On" : "Analysis: Off");
+            if (isAnalyzing) {
+                analysisTimer.start();
+                startAnalysis();
+            }
+            else {
+                stopAnalysis();
+                analysisTimer.stop();
+            }
+            draw();
+        });
+        // the timer was stopped when the game was closed
+        if (isAnalyzing) {
+            analysisTimer.start();
+        }
+        
+        // startClass is called again every time the game is opened, so the labels are only made once
+        analysisBar.setAlignment(Pos.CENTER);
+        if (analysisBar.getChildren().isEmpty()) {
+            for (int column = 0; column < analysisLabels.length; column++) {
+                analysisLabels[column] = new Label();
+                analysisLabels[column].setAlignment(Pos.CENTER);
+            }
+            analysisBar.getChildren().addAll(analysisLabels);
+        }
+        
+        // starting or stopping puzzles starts a new game
+        btnPuzzle.setOnAction(e -> {
+            if (!isPuzzleMode && ConnectFourPuzzles.getDefault() == null) {
+                lblInfo.setText("There are no puzzles - run \"ant puzzles\" to make them");
+                return;
+            }
+            isPuzzleMode = !isPuzzleMode;
+            btnPuzzle.setText(isPuzzleMode ? "Stop Puzzles" : "Puzzles");
+            beginGame();
+        });
+        
+        cbDifficulty.getItems().setAll(ConnectFourAI.Difficulty.values());
+        cbDifficulty.setValue(difficulty);
+        cbDifficulty.setOnAction(e -> difficulty = cbDifficulty.getValue());
+        
+        // changing the board size starts a new game
+        cbBoardSize.getItems().setAll(BoardSize.values());
+        cbBoardSize.setValue(BoardSize.CONNECT_4);
+        cbBoardSize.setOnAction(e -> {
+            BoardSize size = cbBoardSize.getValue();
+            setBoardSize(size.getRows(), size.getColumns(), size.getWinLength());
+        });
         
         masterScene.widthProperty().addListener(e -> {
             draw();
@@ -92,34 +363,112 @@ public class ConnectFourGame {
         
         masterPane.requestFocus();
         
+        // the canvas was stopped when the game was closed
+        if (boardCanvas != null) {
+            boardCanvas.start();
+        }
+        
         // start the game
         beginGame();
         
         return masterScene;
     }
     
+    /**
+     * Changes the size of the board and how many disks in a row win, and starts
+     * a new game. The computer opponent and the solver only work on a 6x7 board
+     * with 4 in a row.
+     * 
+     * @param rows how many rows the board has
+     * @param columns how many columns the board has
+     * @param winLength how many disks in a row win the game
+     */
+    public void setBoardSize(int rows, int columns, int winLength) {
+        // check the size before anything is changed
+        board = new ConnectBoard(rows, columns, winLength);
+        
+        this.rows = rows;
+        this.columns = columns;
+        this.winLength = winLength;
+        winDetector = new WinDetector(rows, columns, winLength);
+        hoverColumn = -1;
+        
+        // the Cells are made again in beginGame()
+        gameGrid = new Cell[rows][columns];
+        gameBoard.getChildren().clear();
+        
+        // big boards are drawn on a Canvas
+        if (boardCanvas != null) {
+            boardCanvas.dispose();
+            boardCanvas = null;
+        }
+        if (rows * columns > MAX_CELL_NODES) {
+            boardCanvas = new ConnectBoardCanvas(rows, columns);
+            
+            // the column is worked out from where the mouse is
+            boardCanvas.setOnMouseClicked(e -> dropInColumn(boardCanvas.getColumnAt(e.getX())));
+            boardCanvas.setOnMouseMoved(e -> {
+                int column = boardCanvas.getColumnAt(e.getX());
+                if (column != hoverColumn) {
+                    showPreview(column);
+                }
+            });
+            boardCanvas.setOnMouseExited(e -> showPreview(-1));
+        }
+        
+        // only Monte Carlo tree search can play on other boards
+        if (!isStandardBoard() && isComputerOpponent) {
+            isMonteCarloOpponent = true;
+            updateOpponentText();
+        }
+        
+        beginGame();
+    }
+    
+    /**
+     * Returns whether the board is the normal connect 4 board (6x7 with 4 in a row),
+     * which is the only one the computer opponent and the solver can play on.
+     */
+    private boolean isStandardBoard() {
+        return rows == ConnectFourBoard.ROWS && columns == ConnectFourBoard.COLUMNS && winLength == 4;
+    }
+    
     /**
      * Initializes the game before it starts and is used to reset the game after
      * it finishes.
      */
     public void beginGame() {
-        // reset the internal storage of the cells
-        for (int row = 0; row < 6; row++) {
-            for (int column = 0; column < 7; column++) {
-                gameGrid[row][column] = null;
-            }
-        }
+        board.reset();
+        engineBoard.reset();
+        winDetector.reset();
         
-        gameBoard.getChildren().clear();
+        // stop the last game's winning Cells flashing
+        for (FadeTransition animation : winAnimations) {
+            animation.stop();
+        }
+        winAnimations = new FadeTransition[0];
         
-        // make the grid of cells
-        for (int row = 0; row < 6; row++) {
-            for (int column = 0; column < 7; column++) {
-                Cell cell = new Cell(row, column);
-                cell.setStroke(Color.BLACK);
-                cell.setFill(Color.WHITE);
-                gameGrid[row][column] = cell;
-                gameBoard.add(gameGrid[row][column], column, row);
+        if (boardCanvas != null) {
+            boardCanvas.reset();
+        }
+        // make the grid of cells the first time, and empty them after that
+        else if (gameGrid[0][0] == null) {
+            for (int row = 0; row < rows; row++) {
+                for (int column = 0; column < columns; column++) {
+                    Cell cell = new Cell(row, column);
+                    cell.setStroke(Color.BLACK);
+                    cell.setFill(Color.WHITE);
+                    gameGrid[row][column] = cell;
+                    gameBoard.add(gameGrid[row][column], column, row);
+                }
+            }
+        }
+        else {
+            for (int row = 0; row < rows; row++) {
+                for (int column = 0; column < columns; column++) {
+                    gameGrid[row][column].setFill(Color.WHITE);
+                    gameGrid[row][column].setOpacity(1);
+                }
             }
         }
         
@@ -161,14 +510,54 @@ public class ConnectFourGame {
         }
         
         // make it player 1's turn
-        lblScore.setText("Player 1: " + player1Score + "\tPlayer 2: " + player2Score);
+        lblScore.setText("Player 1: " + player1Score + "\t" + getPlayerName(2) + ": " + player2Score);
         lblInfo.setText("Player 1's turn");
+        lblEngine.setText("");
         currentPlayer = 1;
         isGameRunning = true;
+        isComputerThinking = false;
+        previewRow = -1;
+        gameNumber++;
+        monteCarlo.stop();
+        stopSolving();
+        
+        if (isPuzzleMode) {
+            loadPuzzle();
+        }
+        startAnalysis();
         
         draw();
     }
     
+    /**
+     * Puts a random puzzle on the board. Puzzles are always player 1's turn.
+     */
+    private void loadPuzzle() {
+        ConnectFourPuzzles puzzles = ConnectFourPuzzles.getDefault();
+        int index = random.nextInt(puzzles.getPuzzleCount());
+        
+        // the file only has one of a position and its mirror image, so show either one
+        long key = puzzles.getKey(index);
+        if (random.nextBoolean()) {
+            key = ConnectFourBoard.mirror(key);
+        }
+        long mask = ConnectFourBoard.getMaskFromKey(key);
+        engineBoard = new ConnectFourBoard(key - mask, mask);
+        
+        // stack up each column's disks from the bottom
+        for (int column = 0; column < columns; column++) {
+            for (int row = rows - 1; row >= 0 && engineBoard.getPlayer(row, column) != -1; row--) {
+                int player = engineBoard.getPlayer(row, column);
+                board.addDisk(column, player);
+                setCellColor(row, column, player == 1 ? Color.RED : Color.BLUE);
+            }
+        }
+        
+        puzzleMovesLeft = puzzles.getMovesToWin(index);
+        lblScore.setText("Puzzle: win in " + puzzleMovesLeft + " moves");
+        lblInfo.setText("Player 1's turn");
+    }
+    
     /**
      * Draws everything on the window.
      */
@@ -183,11 +572,28 @@ public class ConnectFourGame {
             windowSize = masterPane.getHeight();
         }
                 
-        for (int row = 0; row < 6; row++) {
-            for (int column = 0; column < 7; column++) {
-                gameGrid[row][column].setRadius(windowSize * 0.05);
+        // the cells get smaller as the board gets bigger so the whole board fits
+        double radius = windowSize * 0.35 / Math.max(rows, columns);
+        if (boardCanvas != null) {
+            // the canvas only has to change its scale (a cell is the disk and the gap around it)
+            boardCanvas.resize(radius * 2.75 * columns, radius * 2.75 * rows);
+        }
+        else {
+            for (int row = 0; row < rows; row++) {
+                for (int column = 0; column < columns; column++) {
+                    gameGrid[row][column].setRadius(radius);
+                }
             }
         }
+        gameBoard.setHgap(radius * 0.75);
+        gameBoard.setVgap(radius * 0.5);
+        
+        // line the column scores up with the columns
+        analysisBar.setSpacing(radius * 0.75);
+        for (Label label : analysisLabels) {
+            label.setPrefWidth(radius * 2);
+            label.setMinWidth(radius * 2);
+        }
         
         // the HBox contains the HUD and player disk and is at the bottom.
         HBox playerHBox = new HBox();
@@ -207,8 +613,36 @@ public class ConnectFourGame {
         lblScore.setFont(newScoreFont);
         playerHBox.getChildren().addAll(playerDisk, lblInfo);
         
+        // the HBox at the top contains the home button and the opponent options
+        HBox optionsHBox = new HBox();
+        optionsHBox.setAlignment(Pos.CENTER);
+        optionsHBox.setSpacing(10);
+        cbDifficulty.setDisable(!isComputerOpponent || isPuzzleMode);
+        cbBoardSize.setDisable(isPuzzleMode);
+        btnOpponent.setDisable(isPuzzleMode);
+        btnSolve.setDisable(!isStandardBoard());
+        btnPuzzle.setDisable(!isStandardBoard());
+        btnAnalysis.setDisable(!isStandardBoard());
+        optionsHBox.getChildren().addAll(btnHome, cbBoardSize, btnOpponent, cbDifficulty, btnSolve, btnPuzzle, btnAnalysis);
+        
         // add the game board and HUD to the VBox
-        masterPane.getChildren().addAll(btnHome, lblScore, gameBoard, playerHBox);
+        masterPane.getChildren().addAll(optionsHBox, lblScore);
+        if (isAnalyzing && isStandardBoard()) {
+            masterPane.getChildren().add(analysisBar);
+        }
+        if (boardCanvas != null) {
+            masterPane.getChildren().add(boardCanvas);
+        }
+        else {
+            masterPane.getChildren().add(gameBoard);
+        }
+        masterPane.getChildren().add(playerHBox);
+        if (isComputerOpponent || isPuzzleMode) {
+            masterPane.getChildren().add(lblEngine);
+        }
+        if (isAnalyzing && isStandardBoard()) {
+            masterPane.getChildren().add(lblAnalysis);
+        }
     }
     
     /** 
@@ -220,7 +654,7 @@ public class ConnectFourGame {
         // switch from player 1 (r) to player 2 (y)
         if (currentPlayer == 1) {
             currentPlayer = 2;
-            lblInfo.setText("Player 2's turn");
+            lblInfo.setText(getPlayerName(2) + "'s turn");
             playerDisk.setFill(Color.BLUE);
         }
         
@@ -234,108 +668,28 @@ public class ConnectFourGame {
     
     /** 
      * after a player's turn is over, check to see if there's a winner
+     * 
+     * @param row the row of the cell the player just put a disk in
+     * @param column the column of the cell the player just put a disk in
      */
-    private boolean checkForWin() {
-        // check all possible win positions for the rows
-        for (int row = 0; row < 6; row++) {
-            for (int j = 0; j < 4; j++) {
-                if (gameGrid[row][j + 0].getPlayer() == currentPlayer && gameGrid[row][j + 1].getPlayer() == currentPlayer
-                        && gameGrid[row][j + 2].getPlayer() == currentPlayer && gameGrid[row][j + 3].getPlayer() == currentPlayer) {
-                    animateWinningCells(new Cell[]{gameGrid[row][j + 0], gameGrid[row][j + 1], gameGrid[row][j + 2], gameGrid[row][j + 3]});
-                    return true;
-                }
-            }
-        }
-        
-        // check all all possible win positions for the columns
-        for (int column = 0; column < 7; column++) {
-            for (int j = 0; j < 3; j++) {
-                if (gameGrid[j + 0][column].getPlayer() == currentPlayer && gameGrid[j + 1][column].getPlayer() == currentPlayer
-                        && gameGrid[j + 2][column].getPlayer() == currentPlayer && gameGrid[j + 3][column].getPlayer() == currentPlayer) {
-                    animateWinningCells(new Cell[]{gameGrid[j + 0][column], gameGrid[j + 1][column], gameGrid[j + 2][column], gameGrid[j + 3][column]});
-                    return true;
-                }
-            }
-        }
-        
-        // check all possible win positions for the diagonals originating from the left column going down right.
-        for (int row = 2; row >= 0; row--) {
-            int numberOfWinChecks = 3 - row;
-            int startingRow = row;
-            int startingColumn = 0;
-            
-            for (int i = 0; i < numberOfWinChecks; i++) {
-                if (gameGrid[startingRow + 0][startingColumn + 0].getPlayer() == currentPlayer && gameGrid[startingRow + 1][startingColumn + 1].getPlayer() == currentPlayer
-                        && gameGrid[startingRow + 2][startingColumn + 2].getPlayer() == currentPlayer && gameGrid[startingRow + 3][startingColumn + 3].getPlayer() == currentPlayer) {
-                    animateWinningCells(new Cell[]{gameGrid[startingRow + 0][startingColumn + 0], gameGrid[startingRow + 1][startingColumn + 1], 
-                        gameGrid[startingRow + 2][startingColumn + 2], gameGrid[startingRow + 3][startingColumn + 3]});
-                    return true;
-                }
-                
-                startingRow++;
-                startingColumn++;
-            }
-        }
-        
-        // check all possible win positions for the diagonals originating from the top row second column going down right.
-        for (int column = 1; column <= 3; column++) {
-            int numberOfWinChecks = 4 - column;
-            int startingColumn = column;
-            int startingRow = 0;
-            
-            for (int i = 0; i < numberOfWinChecks; i++) {
-                if (gameGrid[startingRow + 0][startingColumn + 0].getPlayer() == currentPlayer && gameGrid[startingRow + 1][startingColumn + 1].getPlayer() == currentPlayer
-                        && gameGrid[startingRow + 2][startingColumn + 2].getPlayer() == currentPlayer && gameGrid[startingRow + 3][startingColumn + 3].getPlayer() == currentPlayer) {
-                    animateWinningCells(new Cell[]{gameGrid[startingRow + 0][startingColumn + 0], gameGrid[startingRow + 1][startingColumn + 1], 
-                        gameGrid[startingRow + 2][startingColumn + 2], gameGrid[startingRow + 3][startingColumn + 3]});
-                    return true;
-                }
-                
-                startingRow++;
-                startingColumn++;
-            }
+    private boolean checkForWin(int row, int column) {
+        // only the lines going through the new disk can have changed
+        if (!winDetector.checkMove(board::getPlayer, row, column)) {
+            return false;
         }
         
-        // check all possible win positions for the diagonals originating from the right column going down left
-        for (int row = 2; row >= 0; row--) {
-            int numberOfWinChecks = 3 - row;
-            int startingRow = row;
-            int startingColumn = 6;
-            
-            for (int i = 0; i < numberOfWinChecks; i++) {
-                if (gameGrid[startingRow + 0][startingColumn - 0].getPlayer() == currentPlayer && gameGrid[startingRow + 1][startingColumn - 1].getPlayer() == currentPlayer
-                        && gameGrid[startingRow + 2][startingColumn - 2].getPlayer() == currentPlayer && gameGrid[startingRow + 3][startingColumn - 3].getPlayer() == currentPlayer) {
-                    animateWinningCells(new Cell[]{gameGrid[startingRow + 0][startingColumn - 0], gameGrid[startingRow + 1][startingColumn - 1], 
-                        gameGrid[startingRow + 2][startingColumn - 2], gameGrid[startingRow + 3][startingColumn - 3]});
-                    return true;
-                }
-                
-                startingRow++;
-                startingColumn--;
-            }
+        int[][] winningCells = winDetector.getWinningCells();
+        if (boardCanvas != null) {
+            boardCanvas.flashCells(winningCells);
+            return true;
         }
         
-        // check all possible win positions for the diagonals originating from the top row second-to-last column going down left.
-        for (int column = 5; column >= 3; column--) {
-            int numberOfWinChecks = column - 2;
-            int startingColumn = column;
-            int startingRow = 0;
-            
-            for (int i = 0; i < numberOfWinChecks; i++) {
-                if (gameGrid[startingRow + 0][startingColumn - 0].getPlayer() == currentPlayer && gameGrid[startingRow + 1][startingColumn - 1].getPlayer() == currentPlayer
-                        && gameGrid[startingRow + 2][startingColumn - 2].getPlayer() == currentPlayer && gameGrid[startingRow + 3][startingColumn - 3].getPlayer() == currentPlayer) {
-                    animateWinningCells(new Cell[]{gameGrid[startingRow + 0][startingColumn - 0], gameGrid[startingRow + 1][startingColumn - 1], 
-                        gameGrid[startingRow + 2][startingColumn - 2], gameGrid[startingRow + 3][startingColumn - 3]});
-                    return true;
-                }
-                
-                startingRow++;
-                startingColumn--;
-            }
+        Cell[] cells = new Cell[winningCells.length];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = gameGrid[winningCells[i][0]][winningCells[i][1]];
         }
-        
-        // if it made it here, there's not a winner.
-        return false;
+        animateWinningCells(cells);
+        return true;
     }
     
     /** after someone won, flash the cells that won.
@@ -345,7 +699,8 @@ public class ConnectFourGame {
     private void animateWinningCells(Cell[] cells) {
         
         // create the animation, which I'm using a FadeTransition
-        FadeTransition[] animations = new FadeTransition[4];
+        FadeTransition[] animations = new FadeTransition[cells.length];
+        winAnimations = animations;
         
         // start the animation on each of the winning Cells
         for (int i = 0; i < cells.length; i++) {
@@ -363,94 +718,380 @@ public class ConnectFourGame {
     }
     
     /** 
-     * when a player clicks on a Cell, this method places one of their
-     * disks in the Cell if it's empty
+     * drops the current player's disk in a column. This is the only way disks are
+     * put on the board: clicks, the number keys, and the computer all use it.
      * 
-     * @param c the cell the user clicked on
+     * @param column the column to drop the disk in (0 is the left column)
      */
-    private void placeDisk(Cell c) {
+    public void dropInColumn(int column) {
         
-        // if the Cell isn't empty or the game isn't running, the disk can't be put
-        // in the Cell
-        if (c.isEmpty() && isGameRunning) {
-            
-            boolean isBelowCellEmpty = true;
-            
-            // if the cell isn't on the bottom row, check if its downward neighbor is empty.
-            if (c.getRow() < 5) {
-                isBelowCellEmpty = !gameGrid[c.getRow() + 1][c.getColumn()].isEmpty();
+        // the disk can't be dropped if the game isn't running or the computer is still thinking
+        if (!isGameRunning || isComputerThinking || column < 0 || column >= columns) {
+            return;
+        }
+        
+        // alert the user if the column has no room left
+        if (!board.canPlay(column)) {
+            if (!(lblInfo.getText().contains(" - That column is full"))) {
+                lblInfo.setText(lblInfo.getText() + " - That column is full");
             }
-            
-            // if the Cell's downward neighbor is empty or if it's on the bottom row,
-            // place the current player's disc in it.
-            if (isBelowCellEmpty) {
-                
-                // put the current player's disc in the Cell.
-                c.setFill(currentPlayer == 1 ? Color.RED : Color.BLUE);
-                
-                // if someone won, stop the game
-                if (checkForWin()) {
-                    if (currentPlayer == 1) {
-                        player1Score++;
-                    }
-                    else {
-                        player2Score++;
-                    }
-                    
-                    lblInfo.setText((currentPlayer == 1 ? "Player 1" : "Player 2") + " won!" +
-                            " - Press ENTER to play again");
-                    lblScore.setText("Player 1: " + player1Score + "\tPlayer 2: " + player2Score);
-                    if (Settings.doSaveDataPermanently) {
-                        saveGame();
-                    }
-                    isGameRunning = false;
+            return;
+        }
+        
+        // the solver's and analysis's answers are for the old position, so stop them
+        stopSolving();
+        stopAnalysis();
+        hidePreview();
+        
+        // put the current player's disc in the lowest empty Cell of the column.
+        int row = board.play(column);
+        setCellColor(row, column, currentPlayer == 1 ? Color.RED : Color.BLUE);
+        if (isStandardBoard()) {
+            engineBoard.play(column);
+        }
+        
+        // if someone won, stop the game
+        if (checkForWin(row, column)) {
+            // puzzles don't count towards the score
+            if (isPuzzleMode) {
+                lblInfo.setText((currentPlayer == 1 ? "Puzzle solved!" : "Puzzle failed") + " - Press ENTER for another puzzle");
+            }
+            else {
+                if (currentPlayer == 1) {
+                    player1Score++;
                 }
-                
-                // otherwise, change turns
                 else {
-                    changeTurn();
+                    player2Score++;
+                }
+                
+                lblInfo.setText(getPlayerName(currentPlayer) + " won!" +
+                        " - Press ENTER to play again");
+                lblScore.setText("Player 1: " + player1Score + "\t" + getPlayerName(2) + ": " + player2Score);
+                if (Settings.doSaveDataPermanently) {
+                    saveGame();
                 }
             }
-            
-            // if the player clicked a Cell that can't have a disc put in it, alert the user
+            isGameRunning = false;
+        }
+        
+        // if all Cells are full, alert the user and stop the game
+        else if (board.isFull()) {
+            lblInfo.setText("It's a tie! - Press ENTER to play another game");
+            if (Settings.doSaveDataPermanently) {
+                saveGame();
+            }
+            isGameRunning = false;
+        }
+        
+        // player 1 has to win a puzzle with their last disk
+        else if (isPuzzleMode && currentPlayer == 1 && --puzzleMovesLeft == 0) {
+            lblInfo.setText("Puzzle failed - Press ENTER for another puzzle");
+            isGameRunning = false;
+        }
+        
+        // otherwise, change turns
+        else {
+            changeTurn();
+            if (isPuzzleMode && currentPlayer == 1) {
+                lblScore.setText("Puzzle: win in " + puzzleMovesLeft + (puzzleMovesLeft == 1 ? " move" : " moves"));
+            }
+        }
+        
+        startAnalysis();
+        
+        // if it's the computer's turn now, let it find a move
+        if (isGameRunning && (isComputerOpponent || isPuzzleMode) && currentPlayer == 2) {
+            startComputerTurn();
+        }
+        // otherwise show where the next disk would land if the mouse is still over the board
+        else {
+            showPreview(hoverColumn);
+        }
+    }
+    
+    /**
+     * Shows a faded disk in the Cell where the current player's disk would land
+     * if it was dropped in a column.
+     * 
+     * @param column the column the mouse is over, or -1 if it isn't over the board
+     */
+    private void showPreview(int column) {
+        hidePreview();
+        hoverColumn = column;
+        
+        if (column == -1 || !isGameRunning || isComputerThinking || !board.canPlay(column)) {
+            return;
+        }
+        
+        // the board already knows where the disk would land, so nothing has to be searched
+        previewRow = board.getLandingRow(column);
+        previewColumn = column;
+        setCellColor(previewRow, previewColumn, currentPlayer == 1 ? PREVIEW_RED : PREVIEW_BLUE);
+    }
+    
+    /**
+     * Removes the faded disk shown by showPreview().
+     */
+    private void hidePreview() {
+        if (previewRow != -1 && board.getPlayer(previewRow, previewColumn) == -1) {
+            setCellColor(previewRow, previewColumn, Color.WHITE);
+        }
+        previewRow = -1;
+    }
+    
+    /**
+     * Changes the color of a cell on whichever game board is being used.
+     */
+    private void setCellColor(int row, int column, Color color) {
+        if (boardCanvas != null) {
+            boardCanvas.setCellColor(row, column, color);
+        }
+        else {
+            gameGrid[row][column].setFill(color);
+        }
+    }
+    
+    /**
+     * Starts searching for the computer's move on the AI thread. When the search
+     * is done, the move is played on the JavaFX Application Thread.
+     */
+    private void startComputerTurn() {
+        isComputerThinking = true;
+        lblInfo.setText("Computer is thinking...");
+        
+        // the search gets its own copies so nothing it uses changes while it's running
+        ConnectFourBoard position = new ConnectFourBoard(engineBoard);
+        MonteCarloTreeSearch.Game game = MonteCarloTreeSearch.forBoard(board);
+        // in a puzzle, the computer always plays its best defense
+        ConnectFourAI.Difficulty searchDifficulty = isPuzzleMode ? ConnectFourAI.Difficulty.HARD : difficulty;
+        boolean usesMonteCarlo = isMonteCarloOpponent && !isPuzzleMode;
+        int searchGameNumber = gameNumber;
+        // if the search is stopped before the AI thread gets to it, it doesn't run at all
+        int monteCarloStopCount = monteCarlo.getStopCount();
+        
+        aiThread.submit(() -> {
+            int column;
+            String stats;
+            if (usesMonteCarlo) {
+                column = monteCarlo.findMove(game, searchDifficulty.getTimeLimitMillis(), Long.MAX_VALUE, monteCarloStopCount);
+                stats = String.format("Monte Carlo: %,d playouts on %d threads - %,.0f playouts/sec", monteCarlo.getLastPlayouts(),
+                        monteCarlo.getThreadCount(), monteCarlo.getPlayoutsPerSecond());
+            }
             else {
-                if (!(lblInfo.getText().contains(" - Cannot place disk there"))) {
-                    lblInfo.setText(lblInfo.getText() + " - Cannot place disk there");
+                column = ai.findMove(position, searchDifficulty);
+                if (ai.isLastMoveFromBook()) {
+                    stats = "Played from the opening book";
+                }
+                else {
+                    stats = String.format("Searched %d moves ahead - %,.0f nodes/sec", ai.getLastDepth(), ai.getNodesPerSecond());
                 }
             }
             
-            // this remains true unless the board isn't full
-            // (in other words, this isn't necessarily true)
-            boolean isBoardFull = true;
-            
-            // check for a draw
-            if (isGameRunning) {
-                // check if all Cells are full
-                for (int row = 0; row < 6; row++) {
-                    for (int column = 0; column < 7; column++) {
-                        if (gameGrid[row][column].isEmpty()) {
-                            isBoardFull = false;
+            Platform.runLater(() -> {
+                // ignore the move if a new game was started while the computer was thinking
+                if (searchGameNumber == gameNumber && isGameRunning && column != -1) {
+                    isComputerThinking = false;
+                    lblEngine.setText(stats);
+                    dropInColumn(column);
+                }
+            });
+        });
+    }
+    
+    /**
+     * Starts solving the current position on the solver thread. When it's solved,
+     * the result is added to the HUD.
+     */
+    private void startSolving() {
+        if (!isGameRunning || !isStandardBoard()) {
+            return;
+        }
+        
+        String turnText = lblInfo.getText();
+        lblInfo.setText(turnText + " - Solving...");
+        
+        long current = engineBoard.getCurrentDisks();
+        long mask = engineBoard.getMask();
+        int moveCount = engineBoard.getMoveCount();
+        
+        // the solve is queued behind any old one, so remember how many times the solver
+        // was stopped now. If it's stopped again before this starts, this never runs.
+        if (solver == null) {
+            solver = new ParallelConnectFourSolver();
+        }
+        ParallelConnectFourSolver positionSolver = solver;
+        int stopCount = solver.getStopCount();
+        
+        solverThread.submit(() -> {
+            // early in the game, the opening book already has the answer
+            ConnectFourOpeningBook book = ConnectFourOpeningBook.getDefault();
+            if (book != null) {
+                int bookScore = book.getScore(current, mask);
+                if (bookScore != ConnectFourOpeningBook.NOT_FOUND) {
+                    String result = ConnectFourSolver.describe(bookScore, moveCount);
+                    Platform.runLater(() -> {
+                        if (engineBoard.getMask() == mask && isGameRunning) {
+                            lblInfo.setText(turnText + " - " + result);
+                            lblEngine.setText("Found in the opening book");
                         }
-                    }
+                    });
+                    return;
                 }
+            }
             
-                // if all Cells are full, alert the user and stop the game
-                if (isBoardFull) {
-                    lblInfo.setText("It's a tie! - Press ENTER to play another game");
-                    if (Settings.doSaveDataPermanently) {
-                        saveGame();
+            long startNodes = positionSolver.getNodes();
+            long startTime = System.nanoTime();
+            int score = positionSolver.solve(current, mask, moveCount, stopCount);
+            double seconds = (System.nanoTime() - startTime) / 1e9;
+            
+            // a stopped solve doesn't have a real answer
+            if (positionSolver.isStopped()) {
+                return;
+            }
+            
+            String result = ConnectFourSolver.describe(score, moveCount);
+            String stats = String.format("Solved in %.1f s with %d threads - %,.0f nodes/sec", seconds,
+                    positionSolver.getThreadCount(), (positionSolver.getNodes() - startNodes) / seconds);
+            Platform.runLater(() -> {
+                // only show the result if the board hasn't changed
+                if (engineBoard.getMask() == mask && isGameRunning) {
+                    lblInfo.setText(turnText + " - " + result);
+                    lblEngine.setText(stats);
+                }
+            });
+        });
+    }
+    
+    /**
+     * Stops the solver if it's working on a position.
+     */
+    private void stopSolving() {
+        if (solver != null) {
+            solver.stop();
+        }
+    }
+    
+    /**
+     * Starts analyzing the current position on the analysis thread, if analysis
+     * is on. The scores are shown by the analysis timer as each depth finishes.
+     */
+    private void startAnalysis() {
+        stopAnalysis();
+        for (Label label : analysisLabels) {
+            label.setText("");
+        }
+        lblAnalysis.setText("");
+        
+        if (!isAnalyzing || !isGameRunning || !isStandardBoard()) {
+            return;
+        }
+        
+        lblAnalysis.setText("Analyzing...");
+        ConnectFourBoard position = new ConnectFourBoard(engineBoard);
+        ConnectFourAI positionAnalyzer = new ConnectFourAI();
+        int number = analysisNumber;
+        analyzer = positionAnalyzer;
+        
+        analysisTask = analysisThread.submit(() -> {
+            int maxDepth = ConnectFourBoard.ROWS * ConnectFourBoard.COLUMNS - position.getMoveCount();
+            for (int depth = 1; depth <= maxDepth; depth++) {
+                int[] scores = new int[ConnectFourBoard.COLUMNS];
+                if (!positionAnalyzer.scoreColumns(position, depth, scores)) {
+                    return;
+                }
+                
+                AnalysisUpdate update = new AnalysisUpdate();
+                update.analysisNumber = number;
+                update.depth = depth;
+                update.moveCount = position.getMoveCount();
+                update.scores = scores;
+                latestAnalysis.set(update);
+                
+                // once every column is a win or a loss, looking deeper won't change anything
+                boolean isDecided = true;
+                for (int score : scores) {
+                    if (score != ConnectFourAI.FULL_COLUMN && !ConnectFourAI.isWinScore(score)) {
+                        isDecided = false;
                     }
-                    isGameRunning = false;
+                }
+                if (isDecided) {
+                    return;
                 }
             }
+        });
+    }
+    
+    /**
+     * Stops the analysis of the old position. Scores it already found are ignored.
+     */
+    private void stopAnalysis() {
+        analysisNumber++;
+        if (analyzer != null) {
+            analyzer.stop();
+            analyzer = null;
+        }
+        // an analysis that hasn't started yet never will
+        if (analysisTask != null) {
+            analysisTask.cancel(false);
+            analysisTask = null;
+        }
+    }
+    
+    /**
+     * Shows the scores from the analysis above each column. The best column's
+     * score is green.
+     */
+    private void showAnalysis(AnalysisUpdate update) {
+        int bestScore = ConnectFourAI.FULL_COLUMN;
+        for (int score : update.scores) {
+            bestScore = Math.max(bestScore, score);
         }
         
-        // alert the user if they try to place a disk in an occupied Cell
-        else if (c.isEmpty() == false && isGameRunning) {
-            if (!(lblInfo.getText().contains(" - Cannot place disk there"))) {
-                lblInfo.setText(lblInfo.getText() + " - Cannot place disk there");
+        for (int column = 0; column < analysisLabels.length; column++) {
+            int score = update.scores[column];
+            String text;
+            if (score == ConnectFourAI.FULL_COLUMN) {
+                text = "";
+            }
+            else if (ConnectFourAI.isWinScore(score)) {
+                // W3 means a win in 3 moves, L2 means a loss in 2
+                text = (score > 0 ? "W" : "L") + ConnectFourAI.getMovesToWin(score, update.moveCount);
             }
+            else {
+                text = (score > 0 ? "+" : "") + score;
+            }
+            analysisLabels[column].setText(text);
+            analysisLabels[column].setTextFill(score == bestScore ? Color.GREEN : Color.BLACK);
         }
+        
+        lblAnalysis.setText("Analysis: looked " + update.depth + (update.depth == 1 ? " move" : " moves") + " ahead");
+    }
+    
+    /**
+     * Shows which opponent is picked on the opponent button.
+     */
+    private void updateOpponentText() {
+        if (!isComputerOpponent) {
+            btnOpponent.setText("Opponent: Player 2");
+        }
+        else if (isMonteCarloOpponent) {
+            btnOpponent.setText("Opponent: Monte Carlo");
+        }
+        else {
+            btnOpponent.setText("Opponent: Computer");
+        }
+    }
+    
+    /**
+     * Returns the name of a player to display in the HUD
+     * 
+     * @param player 1 or 2
+     */
+    private String getPlayerName(int player) {
+        if (player == 2 && (isComputerOpponent || isPuzzleMode)) {
+            return "Computer";
+        }
+        return "Player " + player;
     }
     
     /**
@@ -509,20 +1150,16 @@ public class ConnectFourGame {
             column = c;
             super.setRadius(20);
             super.setFill(Color.WHITE);
-            super.setOnMouseClicked(e -> placeDisk(this));
+            
+            // clicking anywhere in a column drops a disk in it
+            super.setOnMouseClicked(e -> dropInColumn(column));
+            super.setOnMouseEntered(e -> showPreview(column));
+            super.setOnMouseExited(e -> showPreview(-1));
         }
         
         // this method returns which player's disk is in the Cell, if any
         public int getPlayer() {
-            if (super.getFill() == Color.RED) {
-                return 1;
-            }
-            else if (super.getFill() == Color.BLUE) {
-                return 2;
-            }
-            else {
-                return -1;
-            }
+            return board.getPlayer(row, column);
         }
         
         // getters for the x and y coordinates
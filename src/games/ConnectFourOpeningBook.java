@@ -0,0 +1,337 @@
+package games;
+
+/**
+ * This class is the connect 4 opening book: a file with the perfect play score of
+ * every position from the start of the game up to a number of disks (the book's ply).
+ *
+ * The file is made ahead of time by running this class (the "opening-book" target in
+ * build.xml does this). It has a header, then the positions' keys sorted from
+ * smallest to largest, then one score for each key. A position and its mirror image
+ * have the same score, so only the smaller of their keys is stored.
+ *
+ * When the game runs, the file is memory mapped instead of read in, so it never has
+ * to be loaded onto the heap, and a position is found with a binary search on the
+ * sorted keys.
+ */
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConnectFourOpeningBook {
+
+    /**
+     * The score returned for positions that aren't in the book.
+     */
+    public static final int NOT_FOUND = Integer.MIN_VALUE;
+
+    // the book the game uses
+    private static final File BOOK_FILE = new File("src/games", "connect4 opening book.bin");
+
+    // "C4BK", so files that aren't opening books aren't used by mistake
+    private static final int MAGIC_NUMBER = 0x4334424B;
+
+    // the magic number, the ply, and the number of positions
+    private static final int HEADER_BYTES = 3 * Integer.BYTES;
+
+    private static final int CELLS = ConnectFourBoard.ROWS * ConnectFourBoard.COLUMNS;
+
+    // the book the game uses, it's only opened once
+    private static ConnectFourOpeningBook defaultBook;
+    private static boolean isDefaultBookLoaded = false;
+
+    private final MappedByteBuffer buffer;
+    private final int ply;
+    private final int positionCount;
+
+    // where the scores start in the file
+    private final int scoresOffset;
+
+    private ConnectFourOpeningBook(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC_NUMBER) {
+            throw new IOException("The file isn't a connect 4 opening book");
+        }
+
+        ply = buffer.getInt(Integer.BYTES);
+        positionCount = buffer.getInt(2 * Integer.BYTES);
+        scoresOffset = HEADER_BYTES + positionCount * Long.BYTES;
+        if (buffer.capacity() != scoresOffset + positionCount) {
+            throw new IOException("The opening book file is the wrong size");
+        }
+    }
+
+    /**
+     * Memory maps an opening book file.
+     *
+     * @param file the book to open
+     */
+    public static ConnectFourOpeningBook open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // the mapping stays usable after the channel is closed
+            return new ConnectFourOpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Returns the book the game uses, or null if there isn't one. The book is only
+     * opened the first time this is called.
+     */
+    public static synchronized ConnectFourOpeningBook getDefault() {
+        if (!isDefaultBookLoaded) {
+            isDefaultBookLoaded = true;
+
+            // this is for testing the app in NetBeans.
+            if (BOOK_FILE.exists()) {
+                try {
+                    defaultBook = open(BOOK_FILE);
+                }
+                catch (IOException ex) {
+                    System.out.println("An error occurred while reading the opening book.");
+                    ex.printStackTrace();
+                }
+            }
+        }
+
+        return defaultBook;
+    }
+
+    /**
+     * Returns the score of a position (from ConnectFourSolver's point of view), or
+     * NOT_FOUND if the position isn't in the book.
+     *
+     * @param current the disks of the player whose turn it is
+     * @param mask every disk on the board
+     */
+    public int getScore(long current, long mask) {
+        long key = ConnectFourBoard.getCanonicalKey(ConnectFourBoard.getKey(current, mask));
+
+        // binary search for the key
+        int low = 0;
+        int high = positionCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleKey = buffer.getLong(HEADER_BYTES + middle * Long.BYTES);
+
+            if (middleKey < key) {
+                low = middle + 1;
+            }
+            else if (middleKey > key) {
+                high = middle - 1;
+            }
+            else {
+                return buffer.get(scoresOffset + middle);
+            }
+        }
+
+        return NOT_FOUND;
+    }
+
+    /**
+     * Returns the score of a position, or NOT_FOUND if it isn't in the book.
+     *
+     * @param board the position to look up
+     */
+    public int getScore(ConnectFourBoard board) {
+        return getScore(board.getCurrentDisks(), board.getMask());
+    }
+
+    /**
+     * Returns the best column to play according to the book, or -1 if the
+     * position's moves aren't all in the book.
+     *
+     * @param board the position to find a move for
+     * @param columnOrder the order to try columns in (the first best column is returned)
+     */
+    public int getBestMove(ConnectFourBoard board, int[] columnOrder) {
+        long current = board.getCurrentDisks();
+        long mask = board.getMask();
+        int bestColumn = -1;
+        int bestScore = NOT_FOUND;
+
+        for (int column : columnOrder) {
+            if (!board.canPlay(column)) {
+                continue;
+            }
+
+            // a move that wins right away is always the best
+            if (board.isWinningMove(column)) {
+                return column;
+            }
+
+            long move = ConnectFourBoard.possibleMoves(mask) & ConnectFourBoard.columnMask(column);
+            int childScore = getScore(current ^ mask, mask | move);
+            if (childScore == NOT_FOUND) {
+                return -1;
+            }
+
+            // the move's score for the current player is the negative of the score for the other player
+            if (-childScore > bestScore) {
+                bestScore = -childScore;
+                bestColumn = column;
+            }
+        }
+
+        return bestColumn;
+    }
+
+    /**
+     * Returns how many disks the positions in the book can have.
+     */
+    public int getPly() {
+        return ply;
+    }
+
+    public int getPositionCount() {
+        return positionCount;
+    }
+
+    /**
+     * Makes an opening book file.
+     *
+     * Only the positions with the most disks are solved (in parallel, sharing one
+     * table). The scores of positions with fewer disks come from the scores of the
+     * positions after them.
+     *
+     * usage: ConnectFourOpeningBook [ply] [output file] [table size in MB]
+     */
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        int ply = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+        File outputFile = args.length > 1 ? new File(args[1]) : BOOK_FILE;
+        int tableSizeMB = args.length > 2 ? Integer.parseInt(args[2]) : 1024;
+
+        if (ply < 0 || ply >= CELLS) {
+            throw new IllegalArgumentException("The ply must be between 0 and " + (CELLS - 1) + ", not " + ply);
+        }
+
+        long startTime = System.nanoTime();
+
+        // find every position with ply disks where the game isn't over yet
+        Set<Long> deepest = new HashSet<>();
+        findPositions(0, 0, 0, ply, deepest);
+        System.out.println("Solving " + deepest.size() + " positions with " + ply + " disks");
+
+        // solve them on every core, sharing one table
+        TranspositionTable table = new TranspositionTable(tableSizeMB);
+        int threadCount = ParallelConnectFourSolver.DEFAULT_THREAD_COUNT;
+        ThreadLocal<ConnectFourSolver> solvers = ThreadLocal.withInitial(() -> new ConnectFourSolver(table));
+        ExecutorService threads = Executors.newFixedThreadPool(threadCount);
+        AtomicInteger solvedCount = new AtomicInteger();
+
+        List<Long> keys = new ArrayList<>(deepest);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (long key : keys) {
+            results.add(threads.submit(() -> {
+                long mask = ConnectFourBoard.getMaskFromKey(key);
+                int score = solvers.get().solve(key - mask, mask, ply);
+
+                int solved = solvedCount.incrementAndGet();
+                if (solved % 1000 == 0) {
+                    System.out.println("Solved " + solved + " positions");
+                }
+                return score;
+            }));
+        }
+
+        Map<Long, Integer> scores = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            scores.put(keys.get(i), results.get(i).get());
+        }
+        threads.shutdown();
+
+        // work back to the start of the game
+        scorePosition(0, 0, 0, ply, scores);
+
+        // write the positions sorted by key
+        long[] sortedKeys = new long[scores.size()];
+        int index = 0;
+        for (long key : scores.keySet()) {
+            sortedKeys[index++] = key;
+        }
+        Arrays.sort(sortedKeys);
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(outputFile)))) {
+            out.writeInt(MAGIC_NUMBER);
+            out.writeInt(ply);
+            out.writeInt(sortedKeys.length);
+            for (long key : sortedKeys) {
+                out.writeLong(key);
+            }
+            for (long key : sortedKeys) {
+                out.writeByte(scores.get(key));
+            }
+        }
+
+        System.out.printf("Wrote %d positions to %s in %.1f s%n", sortedKeys.length, outputFile, (System.nanoTime() - startTime) / 1e9);
+    }
+
+    /**
+     * Adds the keys of every position with a number of disks that can come from a
+     * position. Positions where the game is over aren't added.
+     */
+    private static void findPositions(long current, long mask, int moveCount, int ply, Set<Long> positions) {
+        if (moveCount == ply) {
+            positions.add(ConnectFourBoard.getCanonicalKey(ConnectFourBoard.getKey(current, mask)));
+            return;
+        }
+
+        long possible = ConnectFourBoard.possibleMoves(mask);
+        long winning = ConnectFourBoard.winningCells(current, mask);
+        for (int column = 0; column < ConnectFourBoard.COLUMNS; column++) {
+            long move = possible & ConnectFourBoard.columnMask(column);
+
+            // skip moves that end the game
+            if (move != 0 && (move & winning) == 0) {
+                findPositions(current ^ mask, mask | move, moveCount + 1, ply, positions);
+            }
+        }
+    }
+
+    /**
+     * Finds the score of a position with fewer than ply disks from the scores of the
+     * positions after it, and adds it to the scores.
+     */
+    private static int scorePosition(long current, long mask, int moveCount, int ply, Map<Long, Integer> scores) {
+        long key = ConnectFourBoard.getCanonicalKey(ConnectFourBoard.getKey(current, mask));
+        Integer knownScore = scores.get(key);
+        if (knownScore != null) {
+            return knownScore;
+        }
+
+        long possible = ConnectFourBoard.possibleMoves(mask);
+
+        // the current player wins right away if they can
+        int score;
+        if ((ConnectFourBoard.winningCells(current, mask) & possible) != 0) {
+            score = (CELLS + 1 - moveCount) / 2;
+        }
+        else {
+            score = -CELLS;
+            for (int column = 0; column < ConnectFourBoard.COLUMNS; column++) {
+                long move = possible & ConnectFourBoard.columnMask(column);
+                if (move != 0) {
+                    score = Math.max(score, -scorePosition(current ^ mask, mask | move, moveCount + 1, ply, scores));
+                }
+            }
+        }
+
+        scores.put(key, score);
+        return score;
+    }
+}
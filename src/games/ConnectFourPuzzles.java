@@ -0,0 +1,283 @@
+package games;
+
+/**
+ * This class is a file of connect 4 puzzles, where player 1 (red) has to win in
+ * an exact number of moves no matter what player 2 does.
+ *
+ * The file is made ahead of time by running this class (the "puzzles" target in
+ * build.xml does this). Random games are played on every core, and after each move
+ * the position is checked with the solver. Positions that are a win in the right
+ * number of moves are written to the file as soon as they're found, so the file
+ * can be used even if the generator is stopped early.
+ *
+ * After a header, each puzzle is one long: the position's key (the smaller of its
+ * key and its mirror image's key, so a position and its mirror image are only added
+ * once) with the number of moves to win in the top byte. When the game runs, the
+ * file is memory mapped like the opening book.
+ */
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ConnectFourPuzzles {
+
+    // the puzzles the game uses
+    private static final File PUZZLE_FILE = new File("src/games", "connect4 puzzles.bin");
+
+    // "C4PZ", so files that aren't puzzle files aren't used by mistake
+    private static final int MAGIC_NUMBER = 0x43345A50;
+
+    private static final int HEADER_BYTES = Integer.BYTES;
+
+    private static final int CELLS = ConnectFourBoard.ROWS * ConnectFourBoard.COLUMNS;
+
+    // the number of moves to win is stored above the key (keys use 49 bits)
+    private static final int MOVES_SHIFT = 56;
+    private static final long KEY_MASK = (1L << MOVES_SHIFT) - 1;
+
+    // how many disks a puzzle can have. Positions with fewer disks take longer to
+    // check, and positions with more disks don't have many moves left to make a puzzle.
+    private static final int MIN_DISKS = 10, MAX_DISKS = 34;
+
+    // the puzzles the game uses, they're only opened once
+    private static ConnectFourPuzzles defaultPuzzles;
+    private static boolean isDefaultPuzzlesLoaded = false;
+
+    private final MappedByteBuffer buffer;
+    private final int puzzleCount;
+
+    private ConnectFourPuzzles(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC_NUMBER) {
+            throw new IOException("The file isn't a connect 4 puzzle file");
+        }
+
+        // a file that's still being written can end in the middle of a puzzle
+        puzzleCount = (buffer.capacity() - HEADER_BYTES) / Long.BYTES;
+    }
+
+    /**
+     * Memory maps a puzzle file.
+     *
+     * @param file the puzzles to open
+     */
+    public static ConnectFourPuzzles open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return new ConnectFourPuzzles(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Returns the puzzles the game uses, or null if there aren't any. The file is
+     * only opened the first time this is called.
+     */
+    public static synchronized ConnectFourPuzzles getDefault() {
+        if (!isDefaultPuzzlesLoaded) {
+            isDefaultPuzzlesLoaded = true;
+
+            // this is for testing the app in NetBeans.
+            if (PUZZLE_FILE.exists()) {
+                try {
+                    defaultPuzzles = open(PUZZLE_FILE);
+                }
+                catch (IOException ex) {
+                    System.out.println("An error occurred while reading the puzzles.");
+                    ex.printStackTrace();
+                }
+            }
+        }
+
+        return defaultPuzzles;
+    }
+
+    public int getPuzzleCount() {
+        return puzzleCount;
+    }
+
+    /**
+     * Returns the key of a puzzle's position (see ConnectFourBoard.getKey()).
+     *
+     * @param index which puzzle, from 0 to getPuzzleCount() - 1
+     */
+    public long getKey(int index) {
+        return buffer.getLong(HEADER_BYTES + index * Long.BYTES) & KEY_MASK;
+    }
+
+    /**
+     * Returns how many disks player 1 needs to play to win a puzzle (including the
+     * winning disk).
+     *
+     * @param index which puzzle, from 0 to getPuzzleCount() - 1
+     */
+    public int getMovesToWin(int index) {
+        return (int) (buffer.getLong(HEADER_BYTES + index * Long.BYTES) >>> MOVES_SHIFT);
+    }
+
+    /**
+     * Makes a puzzle file.
+     *
+     * usage: ConnectFourPuzzles [moves to win] [number of puzzles] [output file] [table size in MB]
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int movesToWin = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int puzzleCount = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+        File outputFile = args.length > 2 ? new File(args[2]) : PUZZLE_FILE;
+        int tableSizeMB = args.length > 3 ? Integer.parseInt(args[3]) : 256;
+
+        if (movesToWin < 2 || movesToWin > (CELLS - MIN_DISKS) / 2) {
+            throw new IllegalArgumentException("The moves to win must be between 2 and " + (CELLS - MIN_DISKS) / 2 + ", not " + movesToWin);
+        }
+
+        long startTime = System.nanoTime();
+
+        // the same position can be checked more than once, but the solver's table
+        // remembers it, so checking it again is quick. Only the puzzles that were
+        // written are remembered here, so nothing is written twice.
+        PuzzleSet written = new PuzzleSet(puzzleCount);
+        AtomicLong checkedCount = new AtomicLong();
+
+        // the puzzles found by the generator threads, waiting to be written
+        BlockingQueue<Long> found = new ArrayBlockingQueue<>(4096);
+
+        // every thread plays random games and shares one table
+        TranspositionTable table = new TranspositionTable(tableSizeMB);
+        int threadCount = ParallelConnectFourSolver.DEFAULT_THREAD_COUNT;
+        ExecutorService threads = Executors.newFixedThreadPool(threadCount, r -> {
+            Thread thread = new Thread(r, "Connect 4 puzzle generator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < threadCount; i++) {
+            threads.submit(() -> {
+                findPuzzles(movesToWin, new ConnectFourSolver(table), checkedCount, found);
+                return null;
+            });
+        }
+
+        // write the puzzles here as they come in, so only one thread writes to the file
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(outputFile)))) {
+            out.writeInt(MAGIC_NUMBER);
+            while (written.size() < puzzleCount) {
+                long key = found.take();
+                if (!written.add(key)) {
+                    continue;
+                }
+                out.writeLong(key | (long) movesToWin << MOVES_SHIFT);
+
+                if (written.size() % 1000 == 0) {
+                    out.flush();
+                    System.out.printf("Found %d puzzles after checking %d positions%n", written.size(), checkedCount.get());
+                }
+            }
+        }
+        finally {
+            threads.shutdownNow();
+        }
+
+        System.out.printf("Wrote %d puzzles to %s in %.1f s%n", puzzleCount, outputFile, (System.nanoTime() - startTime) / 1e9);
+    }
+
+    /**
+     * Plays random games until the thread is interrupted, and adds every position
+     * where player 1 wins in exactly movesToWin moves to the found puzzles.
+     */
+    private static void findPuzzles(int movesToWin, ConnectFourSolver solver, AtomicLong checkedCount,
+            BlockingQueue<Long> found) throws InterruptedException {
+        Random random = ThreadLocalRandom.current();
+
+        while (!Thread.currentThread().isInterrupted()) {
+            long current = 0;
+            long mask = 0;
+
+            for (int moveCount = 0; moveCount <= MAX_DISKS; moveCount++) {
+                // puzzles are always player 1's turn, so they're an even number of disks
+                if (moveCount >= MIN_DISKS && moveCount % 2 == 0) {
+                    long key = ConnectFourBoard.getCanonicalKey(ConnectFourBoard.getKey(current, mask));
+                    checkedCount.incrementAndGet();
+
+                    // player 1 has played moveCount / 2 disks, so a win with their
+                    // movesToWin-th disk has this score
+                    int score = (CELLS + 2) / 2 - moveCount / 2 - movesToWin;
+                    if (solver.solve(current, mask, moveCount, score - 1, score + 1) == score) {
+                        found.put(key);
+                    }
+                }
+
+                long possible = ConnectFourBoard.possibleMoves(mask);
+
+                // stop the game before anyone wins
+                if ((ConnectFourBoard.winningCells(current, mask) & possible) != 0) {
+                    break;
+                }
+
+                // play a random move, but don't miss a block or give the other player
+                // a win, so the games look more like real ones
+                long opponentWins = ConnectFourBoard.winningCells(current ^ mask, mask);
+                if ((possible & opponentWins) != 0) {
+                    possible &= opponentWins;
+                }
+                long safe = possible & ~(opponentWins >>> 1);
+                if (safe != 0) {
+                    possible = safe;
+                }
+
+                long move = possible;
+                for (int skip = random.nextInt(Long.bitCount(possible)); skip > 0; skip--) {
+                    move &= move - 1;
+                }
+                move = Long.lowestOneBit(move);
+
+                current ^= mask;
+                mask |= move;
+            }
+        }
+    }
+
+    // the keys of the puzzles that were written, in an open addressing table of
+    // longs (a Set<Long> would take several times as much memory for each one).
+    // It never has more than the number of puzzles in it, so it never grows.
+    private static class PuzzleSet {
+        static final long EMPTY = -1L;
+
+        final long[] keys;
+        int size;
+
+        PuzzleSet(int capacity) {
+            // keep the table at most half full so the searches stay short
+            keys = new long[Integer.highestOneBit(Math.max(capacity, 1)) * 4];
+            Arrays.fill(keys, EMPTY);
+        }
+
+        // adds a key, returns false if it was already there
+        boolean add(long key) {
+            int mask = keys.length - 1;
+            int slot = (int) (key * 0x9E3779B97F4A7C15L >>> 40) & mask;
+            while (keys[slot] != EMPTY) {
+                if (keys[slot] == key) {
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            size++;
+            return true;
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package games;
+
+/**
+ * This class finds the result of a connect 4 position when both players play
+ * perfectly (who wins, and how many moves it takes).
+ *
+ * It searches every move to the end of the game with a negamax alpha-beta search on
+ * bitboards. To make that fast enough it only searches moves that don't hand the
+ * other player a win, searches the moves that make the most threats first, narrows
+ * down the score with null window searches, and remembers positions it's already
+ * searched in a TranspositionTable.
+ *
+ * Scores are from the point of view of the player whose turn it is: 0 is a draw, a
+ * positive score means they win, and a negative score means they lose. The bigger
+ * the score, the sooner the win (a score of 1 is a win with their last disk).
+ */
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConnectFourSolver {
+
+    private static final int CELLS = ConnectFourBoard.ROWS * ConnectFourBoard.COLUMNS;
+
+    // the lowest and highest scores that can be stored in the table
+    private static final int MIN_SCORE = -CELLS / 2 + 3, MAX_SCORE = (CELLS + 1) / 2 - 3;
+
+    /**
+     * How big the table is if no size is given (in MB). It can be changed with the
+     * "connect4.tableSizeMB" system property.
+     */
+    public static final int DEFAULT_TABLE_SIZE_MB = Integer.getInteger("connect4.tableSizeMB", 64);
+
+    // the order columns are searched in when they make the same number of threats
+    private static final int[] COLUMN_ORDER = {3, 2, 4, 1, 5, 0, 6};
+
+    // the column order this solver uses (helpers in a parallel search each use a
+    // different order so they don't all search the same positions at the same time)
+    private final int[] columnOrder;
+
+    private final TranspositionTable table;
+
+    // the moves and their scores at each number of disks on the board, so
+    // sorting moves doesn't create new arrays
+    private final long[][] moveBuffers = new long[CELLS][ConnectFourBoard.COLUMNS];
+    private final int[][] scoreBuffers = new int[CELLS][ConnectFourBoard.COLUMNS];
+
+    // the number of positions searched
+    private long nodes;
+
+    // this is set to stop a search early (for example, when the position changes)
+    private volatile boolean isStopped;
+
+    // how many times stop() has been called. A search that was asked for before a
+    // stop() doesn't run, even if it was still waiting to start.
+    private final AtomicInteger stopCount = new AtomicInteger();
+
+    public ConnectFourSolver() {
+        this(new TranspositionTable(DEFAULT_TABLE_SIZE_MB));
+    }
+
+    /**
+     * Makes a solver that uses a table of results (the table can be shared
+     * with other solvers).
+     *
+     * @param table the table of already searched positions
+     */
+    public ConnectFourSolver(TranspositionTable table) {
+        this(table, 0);
+    }
+
+    /**
+     * Makes a solver that helps other solvers solve the same position by sharing a
+     * table with them. Helper 0 searches columns in the usual order, and the other
+     * helpers mix up the order of columns that make the same number of threats.
+     *
+     * @param table the table of already searched positions
+     * @param helperNumber which helper this solver is
+     */
+    public ConnectFourSolver(TranspositionTable table, int helperNumber) {
+        this.table = table;
+        columnOrder = COLUMN_ORDER.clone();
+
+        if (helperNumber > 0) {
+            Random random = new Random(helperNumber);
+            for (int i = columnOrder.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int temp = columnOrder[i];
+                columnOrder[i] = columnOrder[j];
+                columnOrder[j] = temp;
+            }
+        }
+    }
+
+    /**
+     * Finds the score of a position with perfect play from both players.
+     *
+     * @param board the position to solve (it isn't changed)
+     */
+    public int solve(ConnectFourBoard board) {
+        return solve(board.getCurrentDisks(), board.getMask(), board.getMoveCount());
+    }
+
+    /**
+     * Finds the score of a position with perfect play from both players.
+     *
+     * @param current the disks of the player whose turn it is
+     * @param mask every disk on the board
+     * @param moveCount how many disks are on the board
+     */
+    public int solve(long current, long mask, int moveCount) {
+        return solve(current, mask, moveCount, getStopCount());
+    }
+
+    /**
+     * Finds the score of a position with perfect play from both players, unless
+     * stop() was called after the search was asked for.
+     *
+     * @param current the disks of the player whose turn it is
+     * @param mask every disk on the board
+     * @param moveCount how many disks are on the board
+     * @param stopCount getStopCount() from when the search was asked for
+     */
+    public int solve(long current, long mask, int moveCount, int stopCount) {
+        return solve(current, mask, moveCount, -(CELLS - moveCount) / 2, (CELLS + 1 - moveCount) / 2, stopCount);
+    }
+
+    /**
+     * Finds the score of a position, but only if it's between two scores. Searching
+     * a small range is much faster than finding the exact score, so this is used
+     * when only one score matters (like checking a puzzle).
+     *
+     * @param current the disks of the player whose turn it is
+     * @param mask every disk on the board
+     * @param moveCount how many disks are on the board
+     * @param min the lowest score to look for
+     * @param max the highest score to look for
+     * @return the exact score if it's between min and max, min if the score is
+     * lower than that, or max or more if the score is higher than that
+     */
+    public int solve(long current, long mask, int moveCount, int min, int max) {
+        return solve(current, mask, moveCount, min, max, getStopCount());
+    }
+
+    private int solve(long current, long mask, int moveCount, int min, int max, int stopCount) {
+        // the flag is cleared before the count is checked, so a stop() at the same time
+        // either changes the count first or sets the flag again after this
+        isStopped = false;
+        if (this.stopCount.get() != stopCount) {
+            isStopped = true;
+            return 0;
+        }
+
+        // if the current player can win right away, there's no need to search
+        if ((ConnectFourBoard.winningCells(current, mask) & ConnectFourBoard.possibleMoves(mask)) != 0) {
+            return Math.max(min, (CELLS + 1 - moveCount) / 2);
+        }
+
+        // narrow down the score by checking if it's above or below a guess
+        while (min < max) {
+            int guess = min + (max - min) / 2;
+            if (guess <= 0 && min / 2 < guess) {
+                guess = min / 2;
+            }
+            else if (guess >= 0 && max / 2 > guess) {
+                guess = max / 2;
+            }
+
+            int score = negamax(current, mask, moveCount, guess, guess + 1);
+            if (isStopped) {
+                return 0;
+            }
+            if (score <= guess) {
+                max = score;
+            }
+            else {
+                min = score;
+            }
+        }
+
+        return min;
+    }
+
+    /**
+     * Scores a position for the player whose turn it is, assuming they can't win
+     * with their next disk.
+     *
+     * @return the exact score if it's between alpha and beta, a score at most alpha
+     * if the real score is at most alpha, or a score at least beta if the real score
+     * is at least beta
+     */
+    private int negamax(long current, long mask, int moveCount, int alpha, int beta) {
+        nodes++;
+
+        // the moves that don't let the other player win right away
+        long possible = ConnectFourBoard.possibleMoves(mask);
+        long opponentWins = ConnectFourBoard.winningCells(current ^ mask, mask);
+        long forced = possible & opponentWins;
+        if (forced != 0) {
+            // if the other player has two ways to win, one can't be blocked
+            if ((forced & (forced - 1)) != 0) {
+                return -(CELLS - moveCount) / 2;
+            }
+            possible = forced;
+        }
+        long next = possible & ~(opponentWins >>> 1);
+        if (next == 0) {
+            return -(CELLS - moveCount) / 2;
+        }
+
+        // if there are only two empty cells and nobody can win, it's a draw
+        if (moveCount >= CELLS - 2) {
+            return 0;
+        }
+
+        // the current player can't lose before the other player's next disk
+        int min = -(CELLS - 2 - moveCount) / 2;
+        if (alpha < min) {
+            alpha = min;
+            if (alpha >= beta) {
+                return alpha;
+            }
+        }
+
+        // the current player can't win before their disk after next
+        int max = (CELLS - 1 - moveCount) / 2;
+
+        // use what's already known about the position
+        long key = ConnectFourBoard.getKey(current, mask);
+        int value = table.get(key);
+        if (value != 0) {
+            if (value > MAX_SCORE - MIN_SCORE + 1) {
+                // the table has a lower bound
+                min = value + 2 * MIN_SCORE - MAX_SCORE - 2;
+                if (alpha < min) {
+                    alpha = min;
+                    if (alpha >= beta) {
+                        return alpha;
+                    }
+                }
+            }
+            else {
+                // the table has an upper bound
+                max = value + MIN_SCORE - 1;
+            }
+        }
+        if (beta > max) {
+            beta = max;
+            if (alpha >= beta) {
+                return beta;
+            }
+        }
+
+        // sort the moves by how many threats they make (most first)
+        long[] moves = moveBuffers[moveCount];
+        int[] scores = scoreBuffers[moveCount];
+        int moveTotal = 0;
+        for (int i = columnOrder.length - 1; i >= 0; i--) {
+            long move = next & ConnectFourBoard.columnMask(columnOrder[i]);
+            if (move != 0) {
+                int score = Long.bitCount(ConnectFourBoard.winningCells(current | move, mask));
+
+                // insertion sort, equal scores keep the column order
+                int position = moveTotal++;
+                while (position > 0 && scores[position - 1] <= score) {
+                    moves[position] = moves[position - 1];
+                    scores[position] = scores[position - 1];
+                    position--;
+                }
+                moves[position] = move;
+                scores[position] = score;
+            }
+        }
+
+        for (int i = 0; i < moveTotal; i++) {
+            long newMask = mask | moves[i];
+
+            // after the move, it's the other player's turn
+            int score = -negamax(current ^ mask, newMask, moveCount + 1, -beta, -alpha);
+
+            // don't store anything from a search that was stopped, since it isn't finished
+            if (isStopped) {
+                return 0;
+            }
+            if (score >= beta) {
+                table.put(key, score + MAX_SCORE - 2 * MIN_SCORE + 2, CELLS - moveCount);
+                return score;
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+        }
+
+        table.put(key, alpha - MIN_SCORE + 1, CELLS - moveCount);
+        return alpha;
+    }
+
+    /**
+     * Stops the search that's running. solve() returns right away, and the score
+     * it returns should be ignored.
+     */
+    public void stop() {
+        stopCount.incrementAndGet();
+        isStopped = true;
+    }
+
+    public boolean isStopped() {
+        return isStopped;
+    }
+
+    /**
+     * Returns how many times stop() has been called. A search that's queued to run
+     * later should be passed this from when it was queued, so a stop() made before
+     * it starts isn't lost.
+     */
+    public int getStopCount() {
+        return stopCount.get();
+    }
+
+    /**
+     * Returns how many positions have been searched since the solver was made.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Describes the result of a position in words, like "Player 1 wins in 3 moves".
+     *
+     * @param score the score of the position from solve()
+     * @param moveCount how many disks were on the board
+     */
+    public static String describe(int score, int moveCount) {
+        if (score == 0) {
+            return "It's a draw with perfect play";
+        }
+
+        int currentPlayer = (moveCount & 1) + 1;
+        int winner = score > 0 ? currentPlayer : 3 - currentPlayer;
+
+        // the disks the winner still has to play (the winner's last disk is the winning one)
+        int winnerDisks = score > 0 ? moveCount / 2 : (moveCount + 1) / 2;
+        int movesLeft = (CELLS + 2) / 2 - Math.abs(score) - winnerDisks;
+
+        return "Player " + winner + " wins in " + movesLeft + (movesLeft == 1 ? " move" : " moves") + " with perfect play";
+    }
+}
@@ -0,0 +1,236 @@
+package games;
+
+/**
+ * This class is the word picker for evil hangman, where the computer doesn't pick
+ * a word at the start. It keeps every word that still fits what the player has
+ * seen, and when a letter is guessed it sorts those words into families by where
+ * the letter is in them (for example "_e__e", "e____", or not at all). Then it
+ * keeps whichever family is biggest, so the player usually misses.
+ *
+ * Where a letter is in a word is stored as bits (one for each position), and the
+ * families are counted in a map from those bits to a count that doesn't box
+ * anything. With a big dictionary there can be millions of words left, so the
+ * words are split into chunks that are sorted into families on several threads
+ * at once, and then the chunks' counts are added together.
+ */
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class EvilHangman {
+
+    /**
+     * How many threads are used to sort big word lists into families. It can be
+     * changed with the "hangman.threads" system property.
+     */
+    public static final int THREAD_COUNT = Integer.getInteger("hangman.threads", Runtime.getRuntime().availableProcessors());
+
+    // fewer words than this are sorted on one thread, since starting threads would take longer
+    private static final int MIN_PARALLEL_WORDS = 50_000;
+
+    private static final ExecutorService threads = Executors.newFixedThreadPool(THREAD_COUNT, r -> {
+        Thread thread = new Thread(r, "Evil hangman");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int length;
+
+    // the letters of every word of the right length, one word after another
+    private final byte[] letters;
+
+    // the words that are left (where they start in letters / length), and how many there are
+    private final int[] candidates;
+    private int candidateCount;
+
+    // where the guessed letter is in each word that's left
+    private final long[] patterns;
+
+    /**
+     * Starts with every word of a length in a word list.
+     *
+     * @param words the word list
+     * @param length how many letters the word has, from 1 to HangmanWordList.MAX_LENGTH
+     */
+    public EvilHangman(HangmanWordList words, int length) {
+        this.length = length;
+        candidateCount = words.size(length, null);
+        letters = new byte[candidateCount * length];
+        candidates = new int[candidateCount];
+        patterns = new long[candidateCount];
+
+        for (int i = 0; i < candidateCount; i++) {
+            words.getLetters(length, null, i, letters, i * length);
+            candidates[i] = i;
+        }
+    }
+
+    /**
+     * Sorts the words that are left into families by where a letter is in them,
+     * and keeps the biggest family. If two families are the same size, the one
+     * that shows the fewest letters is kept.
+     *
+     * @param letter the letter that was guessed (a to z)
+     * @return the positions of the letter in every word that's left, as bits (0 if it isn't in them)
+     */
+    public long guess(char letter) {
+        LongIntMap families;
+        if (candidateCount < MIN_PARALLEL_WORDS || THREAD_COUNT == 1) {
+            families = sortIntoFamilies((byte) letter, 0, candidateCount);
+        }
+        else {
+            families = sortIntoFamiliesInParallel((byte) letter);
+        }
+
+        // find the biggest family
+        long bestPattern = 0;
+        int bestCount = -1;
+        for (int i = 0; i < families.keys.length; i++) {
+            long pattern = families.keys[i];
+            if (pattern == LongIntMap.EMPTY) {
+                continue;
+            }
+
+            int count = families.values[i];
+            if (count > bestCount || count == bestCount && Long.bitCount(pattern) < Long.bitCount(bestPattern)) {
+                bestPattern = pattern;
+                bestCount = count;
+            }
+        }
+
+        // keep the words in that family
+        int kept = 0;
+        for (int i = 0; i < candidateCount; i++) {
+            if (patterns[i] == bestPattern) {
+                candidates[kept++] = candidates[i];
+            }
+        }
+        candidateCount = kept;
+        return bestPattern;
+    }
+
+    // splits the words into one chunk for each thread and adds up the chunks' families
+    private LongIntMap sortIntoFamiliesInParallel(byte letter) {
+        List<Future<LongIntMap>> chunks = new ArrayList<>();
+        int chunkSize = (candidateCount + THREAD_COUNT - 1) / THREAD_COUNT;
+        for (int start = 0; start < candidateCount; start += chunkSize) {
+            int chunkStart = start;
+            int chunkEnd = Math.min(start + chunkSize, candidateCount);
+            chunks.add(threads.submit(() -> sortIntoFamilies(letter, chunkStart, chunkEnd)));
+        }
+
+        LongIntMap families = new LongIntMap();
+        try {
+            for (Future<LongIntMap> chunk : chunks) {
+                LongIntMap chunkFamilies = chunk.get();
+                for (int i = 0; i < chunkFamilies.keys.length; i++) {
+                    if (chunkFamilies.keys[i] != LongIntMap.EMPTY) {
+                        families.add(chunkFamilies.keys[i], chunkFamilies.values[i]);
+                    }
+                }
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while sorting words into families", ex);
+        }
+        catch (ExecutionException ex) {
+            throw new IllegalStateException("An error occurred while sorting words into families", ex.getCause());
+        }
+        return families;
+    }
+
+    // finds the pattern of each word from start to end and counts the words in each family
+    private LongIntMap sortIntoFamilies(byte letter, int start, int end) {
+        LongIntMap families = new LongIntMap();
+        for (int i = start; i < end; i++) {
+            int first = candidates[i] * length;
+            long pattern = 0;
+            for (int position = 0; position < length; position++) {
+                if (letters[first + position] == letter) {
+                    pattern |= 1L << position;
+                }
+            }
+            patterns[i] = pattern;
+            families.add(pattern, 1);
+        }
+        return families;
+    }
+
+    /**
+     * Returns one of the words that are left. Every word that's left has the
+     * letters that have been revealed in the same places, and none of the letters
+     * that have been missed.
+     */
+    public String getWord() {
+        return new String(letters, candidates[0] * length, length, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Returns how many words are left.
+     */
+    public int size() {
+        return candidateCount;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    // a hash map from long to int that doesn't box its keys or values. Patterns never
+    // have every bit set (words are at most 50 letters), so that's used for empty slots.
+    private static class LongIntMap {
+        static final long EMPTY = -1L;
+
+        long[] keys = newKeys(64);
+        int[] values = new int[64];
+        int size;
+
+        private static long[] newKeys(int capacity) {
+            long[] keys = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+            return keys;
+        }
+
+        void add(long key, int amount) {
+            int slot = findSlot(keys, key);
+            if (keys[slot] == EMPTY) {
+                keys[slot] = key;
+                if (++size * 2 > keys.length) {
+                    grow();
+                    slot = findSlot(keys, key);
+                }
+            }
+            values[slot] += amount;
+        }
+
+        // returns the slot a key is in, or the empty slot it would go in
+        private static int findSlot(long[] keys, long key) {
+            int mask = keys.length - 1;
+            int slot = (int) (key * 0x9E3779B97F4A7C15L >>> 40) & mask;
+            while (keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = newKeys(oldKeys.length * 2);
+            values = new int[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    int slot = findSlot(keys, oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+    }
+}
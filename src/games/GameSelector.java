@@ -32,6 +32,8 @@ public class GameSelector extends Application {
     private HangmanGame hangmanGame = new HangmanGame();
     private ConnectFourGame connectFourGame = new ConnectFourGame();
     private TicTacToeGame ticTacToeGame = new TicTacToeGame();
+    private QubicGame qubicGame = new QubicGame();
+    private UltimateTicTacToeGame ultimateTicTacToeGame = new UltimateTicTacToeGame();
     
     @Override
     public void start(Stage primaryStage) {
@@ -40,6 +42,9 @@ public class GameSelector extends Application {
         masterStage.setWidth(400);
         masterStage.setHeight(420);
         Settings.startClass();
+        
+        // read in the hangman words in the background so starting a game doesn't wait for them
+        HangmanWordList.startLoading();
         draw();
         masterStage.show();
     }
@@ -73,6 +78,8 @@ public class GameSelector extends Application {
         GameCell hangman = new GameCell("Hangman");
         GameCell connect4 = new GameCell("Connect 4");
         GameCell tictactoe = new GameCell("Tic Tac Toe");
+        GameCell qubic = new GameCell("Qubic");
+        GameCell ultimate = new GameCell("Ultimate Tic Tac Toe");
         
         // set the GridPane properties
         gamesPane.setAlignment(Pos.CENTER);
@@ -84,6 +91,8 @@ public class GameSelector extends Application {
         gamesPane.add(hangman, 1, 1);
         gamesPane.add(connect4, 2, 1);
         gamesPane.add(tictactoe, 3, 1);
+        gamesPane.add(qubic, 2, 2);
+        gamesPane.add(ultimate, 3, 2);
         
         // add the label "Click to select a game" and the games to the VBox
         masterPane.getChildren().addAll(txtInfo, gamesPane, btnSettings);
@@ -151,6 +160,38 @@ public class GameSelector extends Application {
                 }
                 masterStage.setTitle("Tic Tac Toe");
             }
+            
+            case "Qubic" ->  {
+                if (Settings.dontSaveData) {
+                    qubicGame = new QubicGame();
+                    masterStage.setScene(qubicGame.startClass(this));
+                }
+                else {
+                    masterStage.setScene(qubicGame.startClass(this));
+                }
+                
+                if (masterStage.getWidth() < 560 || masterStage.getHeight() < 300) {
+                    masterStage.setWidth(560);
+                    masterStage.setHeight(300);
+                }
+                masterStage.setTitle("Qubic");
+            }
+            
+            case "Ultimate Tic Tac Toe" ->  {
+                if (Settings.dontSaveData) {
+                    ultimateTicTacToeGame = new UltimateTicTacToeGame();
+                    masterStage.setScene(ultimateTicTacToeGame.startClass(this));
+                }
+                else {
+                    masterStage.setScene(ultimateTicTacToeGame.startClass(this));
+                }
+                
+                if (masterStage.getWidth() < 450 || masterStage.getHeight() < 520) {
+                    masterStage.setWidth(450);
+                    masterStage.setHeight(520);
+                }
+                masterStage.setTitle("Ultimate Tic Tac Toe");
+            }
         }
         // either "new {ClassName}().startClass(this)" or "{objectName}.startClass(this)" will work
         // for example, "new HangmanGame().startClass(this)" or "hangmanGame.startClass(this)"
@@ -0,0 +1,306 @@
+package games;
+
+/**
+ * This class is the computer opponent for tic tac toe boards that are too big to
+ * solve ahead of time, up to 19x19 gomoku.
+ *
+ * Looking at every move a few turns ahead is way too slow on a 361 cell board, so it
+ * only searches "threats": moves that leave a line one letter away from winning, so
+ * the other player has to block it. Following threats until there are two at once
+ * (which can't both be blocked) finds forced wins many moves ahead while only
+ * looking at a handful of cells each turn. Everything is counted with the board's
+ * line counts, so checking a move only looks at the lines going through its cell.
+ *
+ * It picks a move in this order: win right away, block a win, start a forced win,
+ * stop the other player's forced win, and if there's nothing forced, the move that
+ * builds the most of its own lines and blocks the most of the other player's.
+ */
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class GomokuAI {
+
+    // moves further than this from every letter on the board aren't looked at
+    private static final int NEIGHBOR_DISTANCE = 2;
+
+    // how many threats in a row a forced win can take, and how many positions one
+    // search can look at before it gives up (so a move never takes long)
+    private static final int MAX_THREATS = 12;
+    private static final int MAX_NODES = 20000;
+
+    // how many of the best looking moves are tried to stop the other player's forced win
+    private static final int DEFENSE_MOVES = 12;
+
+    // when the computer makes a mistake, it picks one of this many of the best looking moves
+    private static final int MISTAKE_MOVES = 5;
+
+    private final TicTacToeBoard board;
+    private final int size, winLength;
+
+    // positions looked at by the current forced win search
+    private int nodes;
+
+    // the first move of the forced win that was found
+    private int forcedWinMove;
+
+    private GomokuAI(TicTacToeBoard board) {
+        this.board = board;
+        size = board.getSize();
+        winLength = board.getWinLength();
+    }
+
+    /**
+     * Picks a cell for the player whose turn it is.
+     *
+     * @param board a board where the game isn't over. It's changed while the moves
+     * are searched, but it's put back the way it was.
+     * @param difficulty how often the computer makes a mistake
+     * @param random used to pick between moves
+     * @return the cell as row * size + column
+     */
+    public static int findMove(TicTacToeBoard board, TicTacToeAI.Difficulty difficulty, Random random) {
+        return findMove(board, difficulty.getMistakeChance(), random);
+    }
+
+    /**
+     * Picks a cell for the player whose turn it is.
+     *
+     * @param board a board where the game isn't over
+     * @param mistakeChance the chance (from 0 to 1) of picking a good looking move
+     * without checking it for threats
+     * @param random used to pick between moves
+     * @return the cell as row * size + column
+     */
+    public static int findMove(TicTacToeBoard board, double mistakeChance, Random random) {
+        return new GomokuAI(board).findMove(mistakeChance, random);
+    }
+
+    /**
+     * Returns whether the player whose turn it is can win no matter what the other
+     * player does, by winning right away or with a series of threats.
+     *
+     * @param board a board where the game isn't over
+     */
+    public static boolean canForceWin(TicTacToeBoard board) {
+        GomokuAI ai = new GomokuAI(board);
+        int player = board.getCurrentPlayer();
+        return ai.findWinningCell(player) != -1
+                || ai.findWinningCell(3 - player) == -1 && ai.findForcedWin(player, MAX_THREATS);
+    }
+
+    private int findMove(double mistakeChance, Random random) {
+        if (board.getMoveCount() == 0) {
+            return size / 2 * size + size / 2;
+        }
+
+        int player = board.getCurrentPlayer();
+        int opponent = 3 - player;
+
+        int win = findWinningCell(player);
+        if (win != -1) {
+            return win;
+        }
+        int block = findWinningCell(opponent);
+        if (block != -1) {
+            return block;
+        }
+
+        List<Integer> moves = getCandidateMoves(player, random);
+        if (random.nextDouble() < mistakeChance) {
+            return moves.get(random.nextInt(Math.min(MISTAKE_MOVES, moves.size())));
+        }
+
+        nodes = 0;
+        if (findForcedWin(player, MAX_THREATS)) {
+            return forcedWinMove;
+        }
+
+        // play the best looking move that leaves the other player without a forced win
+        for (int i = 0; i < Math.min(DEFENSE_MOVES, moves.size()); i++) {
+            int move = moves.get(i);
+            board.play(move / size, move % size);
+            nodes = 0;
+            boolean isLost = findForcedWin(opponent, MAX_THREATS);
+            board.undo(move / size, move % size);
+
+            if (!isLost) {
+                return move;
+            }
+        }
+
+        // every move loses (or the search gave up), so just play the best looking one
+        return moves.get(0);
+    }
+
+    /**
+     * Searches for a series of threats that wins for a player, starting with a move
+     * by that player. Neither player can have a line that's one letter from winning.
+     *
+     * @param attacker the player whose turn it is
+     * @param threatsLeft how many more threats can be made
+     * @return true if there's a forced win (the first move is saved in forcedWinMove)
+     */
+    private boolean findForcedWin(int attacker, int threatsLeft) {
+        if (threatsLeft == 0 || ++nodes > MAX_NODES) {
+            return false;
+        }
+        int defender = 3 - attacker;
+
+        for (int threat : findThreatMoves(attacker)) {
+            board.play(threat / size, threat % size);
+
+            // the new letter can only have finished lines going through it
+            int first = -1;
+            boolean isDoubleThreat = false;
+            for (int line : board.getLinesThrough(threat)) {
+                if (board.getCount(attacker, line) == winLength - 1 && board.getCount(defender, line) == 0) {
+                    int cell = getEmptyCell(line);
+                    if (first == -1) {
+                        first = cell;
+                    }
+                    else if (cell != first) {
+                        isDoubleThreat = true;
+                    }
+                }
+            }
+
+            boolean isWin = isDoubleThreat;
+            if (!isWin && first != -1) {
+                // the other player has to block. If the block makes a threat of their
+                // own, the attacker would have to answer it, so that's not searched.
+                board.play(first / size, first % size);
+                if (!hasWinningLineThrough(defender, first)) {
+                    isWin = findForcedWin(attacker, threatsLeft - 1);
+                }
+                board.undo(first / size, first % size);
+            }
+
+            board.undo(threat / size, threat % size);
+            if (isWin) {
+                forcedWinMove = threat;
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the empty cells that would leave one of a player's lines one letter
+     * away from winning.
+     */
+    private List<Integer> findThreatMoves(int player) {
+        int opponent = 3 - player;
+        List<Integer> threats = new ArrayList<>();
+        boolean[] isAdded = new boolean[size * size];
+
+        for (int line = 0; line < board.getLineCount(); line++) {
+            if (board.getCount(player, line) == winLength - 2 && board.getCount(opponent, line) == 0) {
+                for (int cell : board.getLineCells(line)) {
+                    if (board.isEmpty(cell) && !isAdded[cell]) {
+                        isAdded[cell] = true;
+                        threats.add(cell);
+                    }
+                }
+            }
+        }
+        return threats;
+    }
+
+    /**
+     * Returns a cell that wins right away for a player, or -1 if there isn't one.
+     */
+    private int findWinningCell(int player) {
+        for (int line = 0; line < board.getLineCount(); line++) {
+            if (board.getCount(player, line) == winLength - 1 && board.getCount(3 - player, line) == 0) {
+                return getEmptyCell(line);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns whether a player has a line through a cell that's one letter from winning.
+     */
+    private boolean hasWinningLineThrough(int player, int cell) {
+        for (int line : board.getLinesThrough(cell)) {
+            if (board.getCount(player, line) == winLength - 1 && board.getCount(3 - player, line) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the first empty cell in a line.
+     */
+    private int getEmptyCell(int line) {
+        for (int cell : board.getLineCells(line)) {
+            if (board.isEmpty(cell)) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the empty cells near the letters on the board, best looking first
+     * (moves that look equally good are in a random order).
+     */
+    private List<Integer> getCandidateMoves(int player, Random random) {
+        List<Integer> moves = new ArrayList<>();
+        long[] scores = new long[size * size];
+
+        for (int cell = 0; cell < size * size; cell++) {
+            if (board.isEmpty(cell) && hasNeighbor(cell / size, cell % size)) {
+                moves.add(cell);
+                scores[cell] = getScore(player, cell);
+            }
+        }
+
+        Collections.shuffle(moves, random);
+        moves.sort((cell1, cell2) -> Long.compare(scores[cell2], scores[cell1]));
+        return moves;
+    }
+
+    /**
+     * Returns how good a move looks: lines where the player has more letters (and
+     * the other player has none) are worth a lot more, and lines the move blocks
+     * count a bit less than lines it builds.
+     */
+    private long getScore(int player, int cell) {
+        long score = 0;
+        for (int line : board.getLinesThrough(cell)) {
+            int mine = board.getCount(player, line);
+            int theirs = board.getCount(3 - player, line);
+            if (theirs == 0) {
+                score += 2 * getLineValue(mine);
+            }
+            if (mine == 0) {
+                score += getLineValue(theirs);
+            }
+        }
+        return score;
+    }
+
+    // each letter in a line makes it worth 8 times more
+    private static long getLineValue(int count) {
+        return 1L << Math.min(3 * count, 50);
+    }
+
+    /**
+     * Returns whether there's a letter within NEIGHBOR_DISTANCE of a cell.
+     */
+    private boolean hasNeighbor(int row, int column) {
+        for (int r = Math.max(0, row - NEIGHBOR_DISTANCE); r <= Math.min(size - 1, row + NEIGHBOR_DISTANCE); r++) {
+            for (int c = Math.max(0, column - NEIGHBOR_DISTANCE); c <= Math.min(size - 1, column + NEIGHBOR_DISTANCE); c++) {
+                if (!board.isEmpty(r, c)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,380 @@
+package games;
+
+/**
+ * This class is the hangman word list compiled into a DAWG (a trie where words
+ * that end the same way share their endings too), so it can be shipped inside the
+ * jar instead of depending on "src/games/hangman words.txt" being next to the app.
+ *
+ * The DAWG is made when the project is built (the "-post-compile" target in
+ * build.xml runs this class), and the words are sorted and have duplicates taken
+ * out. Each edge of the DAWG is one int (its letter, two flags, and where the
+ * node it goes to starts), plus how many words go through it. Those counts are
+ * what make it possible to find a word by its index without going through the
+ * words before it: at each node, the edges whose counts add up past the index
+ * are skipped.
+ *
+ * When the game runs, the DAWG is read from the classpath the first time it's
+ * needed, and HangmanWordList reads the words straight out of it by index.
+ */
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.BufferedInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class HangmanDictionary {
+
+    /**
+     * Where the dictionary is on the classpath (next to this class).
+     */
+    public static final String RESOURCE_NAME = "hangman words.dawg";
+
+    // "HDWG", so files that aren't dictionaries aren't used by mistake
+    private static final int MAGIC_NUMBER = 0x48445747;
+
+    // the parts of an edge: its letter, whether it's the last edge of its node,
+    // whether a word ends where it goes, and where the node it goes to starts
+    private static final int LETTER_MASK = 0x1F;
+    private static final int LAST_EDGE = 1 << 5;
+    private static final int ENDS_WORD = 1 << 6;
+    private static final int CHILD_SHIFT = 7;
+
+    // the most edges a dictionary can have, since where a node starts has to fit above the flags
+    private static final int MAX_EDGES = 1 << (Integer.SIZE - CHILD_SHIFT);
+
+    // the dictionary the game uses, it's only read once
+    private static HangmanDictionary defaultDictionary;
+    private static boolean isDefaultDictionaryLoaded = false;
+
+    // every edge, with the root node's edges first. A node is where its first edge is,
+    // and 0 means a node with no edges (the root is never an edge's child).
+    private final int[] edges;
+
+    // how many words go through each edge
+    private final int[] counts;
+
+    private final int wordCount;
+
+    private HangmanDictionary(int[] edges, int[] counts, int wordCount) {
+        this.edges = edges;
+        this.counts = counts;
+        this.wordCount = wordCount;
+    }
+
+    /**
+     * Reads a dictionary.
+     *
+     * @param input the dictionary file's bytes
+     */
+    public static HangmanDictionary read(InputStream input) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(input));
+        if (in.readInt() != MAGIC_NUMBER) {
+            throw new IOException("The file isn't a hangman dictionary");
+        }
+
+        int wordCount = in.readInt();
+        int edgeCount = in.readInt();
+        int[] edges = new int[edgeCount];
+        int[] counts = new int[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            edges[i] = in.readInt();
+        }
+        for (int i = 0; i < edgeCount; i++) {
+            counts[i] = in.readInt();
+        }
+        return new HangmanDictionary(edges, counts, wordCount);
+    }
+
+    /**
+     * Returns the dictionary on the classpath, or null if there isn't one. The
+     * dictionary is only read the first time this is called.
+     */
+    public static synchronized HangmanDictionary getDefault() {
+        if (!isDefaultDictionaryLoaded) {
+            isDefaultDictionaryLoaded = true;
+
+            try (InputStream input = HangmanDictionary.class.getResourceAsStream(RESOURCE_NAME)) {
+                if (input != null) {
+                    defaultDictionary = read(input);
+                }
+            }
+            catch (IOException ex) {
+                System.out.println("An error occurred while reading the hangman dictionary.");
+                ex.printStackTrace();
+            }
+        }
+
+        return defaultDictionary;
+    }
+
+    /**
+     * Returns how many words are in the dictionary.
+     */
+    public int size() {
+        return wordCount;
+    }
+
+    /**
+     * Returns how many bytes the dictionary takes up in memory.
+     */
+    public long getMemoryBytes() {
+        return 2L * edges.length * Integer.BYTES;
+    }
+
+    /**
+     * Returns a word from the dictionary (the words are in alphabetical order).
+     *
+     * @param index from 0 to size() - 1
+     */
+    public String get(int index) {
+        byte[] letters = new byte[HangmanWordList.MAX_LENGTH];
+        int length = getLetters(index, letters, 0);
+        return new String(letters, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Copies the letters of a word from the dictionary into an array, without
+     * making a String. The letters are lowercase ASCII.
+     *
+     * @param index from 0 to size() - 1
+     * @param letters the array to copy the letters into
+     * @param offset where in the array to put the first letter
+     * @return how many letters the word has
+     */
+    public int getLetters(int index, byte[] letters, int offset) {
+        if (index < 0 || index >= wordCount) {
+            throw new IndexOutOfBoundsException("There's no word " + index + " in a dictionary of " + wordCount + " words");
+        }
+
+        int length = 0;
+        int edge = 0;
+        while (true) {
+            // skip the edges that have fewer words than the index
+            while (index >= counts[edge]) {
+                index -= counts[edge];
+                edge++;
+            }
+
+            letters[offset + length++] = (byte) ('a' + (edges[edge] & LETTER_MASK));
+            if ((edges[edge] & ENDS_WORD) != 0) {
+                if (index == 0) {
+                    return length;
+                }
+                index--;
+            }
+            edge = edges[edge] >>> CHILD_SHIFT;
+        }
+    }
+
+    /**
+     * Calls a method with every word in the dictionary, in alphabetical order. This
+     * is faster than calling get() for each word.
+     *
+     * @param action what to do with each word's letters (lowercase ASCII) and length.
+     *               The array is reused for the next word.
+     */
+    public void forEachWord(WordAction action) {
+        forEachWord(0, new byte[HangmanWordList.MAX_LENGTH], 0, action);
+    }
+
+    private void forEachWord(int edge, byte[] letters, int length, WordAction action) {
+        while (true) {
+            letters[length] = (byte) ('a' + (edges[edge] & LETTER_MASK));
+            if ((edges[edge] & ENDS_WORD) != 0) {
+                action.accept(letters, length + 1);
+            }
+
+            int child = edges[edge] >>> CHILD_SHIFT;
+            if (child != 0) {
+                forEachWord(child, letters, length + 1, action);
+            }
+            if ((edges[edge] & LAST_EDGE) != 0) {
+                return;
+            }
+            edge++;
+        }
+    }
+
+    /**
+     * Something to do with each word in the dictionary.
+     */
+    public interface WordAction {
+        void accept(byte[] letters, int length);
+    }
+
+    // a node while the DAWG is being made
+    private static class Node {
+        final List<Byte> letters = new ArrayList<>();
+        final List<Node> children = new ArrayList<>();
+        final List<Boolean> endsWord = new ArrayList<>();
+
+        // set when the node is registered, so equal nodes can be found by their edges
+        int id = -1;
+
+        // how many words go through the node
+        int wordCount;
+
+        // where the node's first edge is in the file
+        int position;
+
+        String getSignature() {
+            StringBuilder signature = new StringBuilder();
+            for (int i = 0; i < letters.size(); i++) {
+                signature.append((char) (byte) letters.get(i)).append(endsWord.get(i) ? '!' : '.').append(children.get(i).id).append(',');
+            }
+            return signature.toString();
+        }
+    }
+
+    /**
+     * Makes a dictionary file from a word file.
+     *
+     * The words are added in alphabetical order, and every time a word is added,
+     * the nodes of the word before it that the new word doesn't share are checked
+     * against the nodes already made. If there's one with the same edges, it's used
+     * instead (this is Daciuk's algorithm for making a minimal DAWG).
+     *
+     * usage: HangmanDictionary [word file] [output file]
+     */
+    public static void main(String[] args) throws IOException {
+        File wordFile = new File(args.length > 0 ? args[0] : "src/games/hangman words.txt");
+        File outputFile = new File(args.length > 1 ? args[1] : "build/classes/games/" + RESOURCE_NAME);
+
+        long startTime = System.nanoTime();
+        String[] words = readSortedWords(wordFile);
+
+        Map<String, Node> register = new HashMap<>();
+        List<Node> registered = new ArrayList<>();
+        Node root = new Node();
+
+        // the nodes of the word before, from the root to its last letter
+        Node[] path = new Node[HangmanWordList.MAX_LENGTH + 1];
+        path[0] = root;
+        String previous = "";
+
+        for (String word : words) {
+            int common = 0;
+            while (common < previous.length() && common < word.length() && previous.charAt(common) == word.charAt(common)) {
+                common++;
+            }
+
+            // the rest of the word before can't change anymore
+            minimize(path, common, previous.length(), register, registered);
+
+            for (int i = common; i < word.length(); i++) {
+                Node child = new Node();
+                path[i].letters.add((byte) (word.charAt(i) - 'a'));
+                path[i].children.add(child);
+                path[i].endsWord.add(i == word.length() - 1);
+                path[i + 1] = child;
+            }
+            previous = word;
+        }
+        minimize(path, 0, previous.length(), register, registered);
+
+        // the root is laid out first so its edges start at 0, and nodes without
+        // edges don't take up any space
+        int edgeCount = root.letters.size();
+        for (Node node : registered) {
+            if (!node.letters.isEmpty()) {
+                node.position = edgeCount;
+                edgeCount += node.letters.size();
+                if (edgeCount >= MAX_EDGES) {
+                    throw new IOException("The hangman dictionary has too many edges (it can have up to " + (MAX_EDGES - 1) + ")");
+                }
+            }
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(outputFile)))) {
+            out.writeInt(MAGIC_NUMBER);
+            out.writeInt(words.length);
+            out.writeInt(edgeCount);
+
+            List<Node> nodes = new ArrayList<>();
+            nodes.add(root);
+            for (Node node : registered) {
+                if (!node.letters.isEmpty()) {
+                    nodes.add(node);
+                }
+            }
+
+            for (Node node : nodes) {
+                for (int i = 0; i < node.letters.size(); i++) {
+                    int edge = node.letters.get(i) | node.children.get(i).position << CHILD_SHIFT;
+                    if (i == node.letters.size() - 1) {
+                        edge |= LAST_EDGE;
+                    }
+                    if (node.endsWord.get(i)) {
+                        edge |= ENDS_WORD;
+                    }
+                    out.writeInt(edge);
+                }
+            }
+            for (Node node : nodes) {
+                for (int i = 0; i < node.letters.size(); i++) {
+                    out.writeInt(node.children.get(i).wordCount + (node.endsWord.get(i) ? 1 : 0));
+                }
+            }
+        }
+
+        System.out.printf("Wrote %,d words as %,d edges (%,d KB) to %s in %.1f s%n", words.length, edgeCount,
+                outputFile.length() / 1024, outputFile, (System.nanoTime() - startTime) / 1e9);
+    }
+
+    /**
+     * Replaces the nodes on the path from one depth to another with equal nodes that
+     * were already made, starting with the deepest one.
+     */
+    private static void minimize(Node[] path, int from, int to, Map<String, Node> register, List<Node> registered) {
+        for (int depth = to; depth > from; depth--) {
+            Node node = path[depth];
+            Node parent = path[depth - 1];
+
+            node.wordCount = 0;
+            for (int i = 0; i < node.children.size(); i++) {
+                node.wordCount += node.children.get(i).wordCount + (node.endsWord.get(i) ? 1 : 0);
+            }
+
+            String signature = node.getSignature();
+            Node existing = register.get(signature);
+            if (existing != null) {
+                parent.children.set(parent.children.size() - 1, existing);
+            }
+            else {
+                node.id = registered.size();
+                register.put(signature, node);
+                registered.add(node);
+            }
+        }
+    }
+
+    /**
+     * Reads the words in from a word file, sorted and without any duplicates. Only
+     * words HangmanWordList would use are kept.
+     */
+    private static String[] readSortedWords(File wordFile) throws IOException {
+        HangmanWordList list = HangmanWordList.open(wordFile);
+        String[] words = new String[list.size()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = list.get(i);
+        }
+        Arrays.parallelSort(words);
+
+        int unique = 0;
+        for (int i = 0; i < words.length; i++) {
+            if (unique == 0 || !words[i].equals(words[unique - 1])) {
+                words[unique++] = words[i];
+            }
+        }
+        return Arrays.copyOf(words, unique);
+    }
+}
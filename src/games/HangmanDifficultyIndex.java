@@ -0,0 +1,246 @@
+package games;
+
+/**
+ * This class is the hangman difficulty index: a file with every word in the word
+ * list, sorted into easy, medium, and hard words.
+ *
+ * The file is made ahead of time by running this class (the "hangman-index" target
+ * in build.xml does this), because scoring and sorting a big word list takes a
+ * while. Each word gets a score from how rare its letters are, how short it is,
+ * and how many of its letters are repeats (fewer different letters means fewer
+ * letters a guess can hit). The words are sorted by score, and the easiest third
+ * are easy, the next third are medium, and the hardest third are hard.
+ *
+ * The file has a header with where each difficulty's words start, then where each
+ * word starts in the file, then the words (each one is its length and then its
+ * letters). When the game runs, the file is memory mapped, so picking a random
+ * word of a difficulty is one random number and two reads, no matter how many
+ * words there are.
+ */
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+public class HangmanDifficultyIndex {
+
+    // the index the game uses
+    private static final File INDEX_FILE = new File("src/games", "hangman difficulty index.bin");
+
+    // "HMDX", so files that aren't difficulty indexes aren't used by mistake
+    private static final int MAGIC_NUMBER = 0x484D4458;
+
+    private static final int DIFFICULTY_COUNT = HangmanWordList.Difficulty.values().length;
+
+    // the magic number, the number of words, and where each difficulty starts (plus the end)
+    private static final int HEADER_BYTES = (2 + DIFFICULTY_COUNT + 1) * Integer.BYTES;
+
+    // how much each part of a word's score counts
+    private static final int RARITY_WEIGHT = 4;
+    private static final int SHORTNESS_WEIGHT = 8;
+    private static final int REPEAT_WEIGHT = 8;
+
+    // words with at least this many letters don't get harder for being short
+    private static final int LONG_WORD_LENGTH = 10;
+
+    // the highest score a word can get
+    private static final int MAX_SCORE = RARITY_WEIGHT * 25 + SHORTNESS_WEIGHT * LONG_WORD_LENGTH
+            + REPEAT_WEIGHT * HangmanWordList.MAX_LENGTH;
+
+    // the index the game uses, it's only opened once
+    private static HangmanDifficultyIndex defaultIndex;
+    private static boolean isDefaultIndexLoaded = false;
+
+    private final MappedByteBuffer buffer;
+    private final int wordCount;
+
+    private HangmanDifficultyIndex(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC_NUMBER) {
+            throw new IOException("The file isn't a hangman difficulty index");
+        }
+
+        wordCount = buffer.getInt(Integer.BYTES);
+        if (getBucketStart(DIFFICULTY_COUNT) != wordCount || buffer.capacity() < HEADER_BYTES + (long) wordCount * Integer.BYTES) {
+            throw new IOException("The hangman difficulty index is the wrong size");
+        }
+    }
+
+    /**
+     * Memory maps a difficulty index file.
+     *
+     * @param file the index to open
+     */
+    public static HangmanDifficultyIndex open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // the mapping stays usable after the channel is closed
+            return new HangmanDifficultyIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Returns the index the game uses, or null if there isn't one. The index is only
+     * opened the first time this is called.
+     */
+    public static synchronized HangmanDifficultyIndex getDefault() {
+        if (!isDefaultIndexLoaded) {
+            isDefaultIndexLoaded = true;
+
+            // this is for testing the app in NetBeans.
+            if (INDEX_FILE.exists()) {
+                try {
+                    defaultIndex = open(INDEX_FILE);
+                }
+                catch (IOException ex) {
+                    System.out.println("An error occurred while reading the hangman difficulty index.");
+                    ex.printStackTrace();
+                }
+            }
+        }
+
+        return defaultIndex;
+    }
+
+    // returns where a difficulty's words start in the list of words (DIFFICULTY_COUNT for the end)
+    private int getBucketStart(int difficulty) {
+        return buffer.getInt((2 + difficulty) * Integer.BYTES);
+    }
+
+    /**
+     * Returns how many words have a difficulty.
+     */
+    public int size(HangmanWordList.Difficulty difficulty) {
+        return getBucketStart(difficulty.ordinal() + 1) - getBucketStart(difficulty.ordinal());
+    }
+
+    public int size() {
+        return wordCount;
+    }
+
+    /**
+     * Picks a random word of a difficulty, or returns null if there aren't any.
+     *
+     * @param difficulty how hard the word is
+     * @param random picks the word
+     */
+    public String getRandomWord(HangmanWordList.Difficulty difficulty, Random random) {
+        int count = size(difficulty);
+        if (count == 0) {
+            return null;
+        }
+
+        int index = getBucketStart(difficulty.ordinal()) + random.nextInt(count);
+        int offset = buffer.getInt(HEADER_BYTES + index * Integer.BYTES);
+        byte[] letters = new byte[buffer.get(offset) & 0xFF];
+        buffer.get(offset + 1, letters);
+        return new String(letters, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Returns how hard a word is to guess. Higher scores are harder.
+     *
+     * @param letters the word's letters (lowercase ASCII)
+     * @param length how many letters the word has
+     */
+    public static int score(byte[] letters, int length) {
+        int lettersInWord = 0;
+        int raritySum = 0;
+        for (int i = 0; i < length; i++) {
+            int bit = 1 << letters[i] - 'a';
+            if ((lettersInWord & bit) == 0) {
+                lettersInWord |= bit;
+                raritySum += HangmanWordList.LETTER_FREQUENCY_ORDER.indexOf(letters[i]);
+            }
+        }
+
+        int differentLetters = Integer.bitCount(lettersInWord);
+        int averageRarity = raritySum / differentLetters;
+        int shortness = Math.max(LONG_WORD_LENGTH - length, 0);
+        int repeats = length - differentLetters;
+        return RARITY_WEIGHT * averageRarity + SHORTNESS_WEIGHT * shortness + REPEAT_WEIGHT * repeats;
+    }
+
+    /**
+     * Makes a difficulty index file from a word file.
+     *
+     * usage: HangmanDifficultyIndex [word file] [output file]
+     */
+    public static void main(String[] args) throws IOException {
+        File wordFile = new File(args.length > 0 ? args[0] : "src/games/hangman words.txt");
+        File outputFile = args.length > 1 ? new File(args[1]) : INDEX_FILE;
+
+        long startTime = System.nanoTime();
+        HangmanWordList words = HangmanWordList.open(wordFile);
+        int count = words.size();
+
+        // score every word, and remember where it is in the word list
+        int[] scores = new int[count];
+        byte[] lengths = new byte[count];
+        int[] indexes = new int[count];
+        int[] scoreCounts = new int[MAX_SCORE + 2];
+        byte[] letters = new byte[HangmanWordList.MAX_LENGTH];
+        int word = 0;
+        for (int length = 1; length <= HangmanWordList.MAX_LENGTH; length++) {
+            for (int i = 0; i < words.size(length, null); i++) {
+                words.getLetters(length, null, i, letters, 0);
+                scores[word] = score(letters, length);
+                lengths[word] = (byte) length;
+                indexes[word] = i;
+                scoreCounts[scores[word] + 1]++;
+                word++;
+            }
+        }
+
+        // sort the words by score (a counting sort, since the scores are small)
+        for (int score = 1; score < scoreCounts.length; score++) {
+            scoreCounts[score] += scoreCounts[score - 1];
+        }
+        int[] sorted = new int[count];
+        for (int i = 0; i < count; i++) {
+            sorted[scoreCounts[scores[i]]++] = i;
+        }
+
+        long fileSize = HEADER_BYTES + (long) count * Integer.BYTES;
+        for (int i = 0; i < count; i++) {
+            fileSize += 1 + lengths[i];
+        }
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IOException("The hangman difficulty index would be bigger than 2 GB");
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(outputFile)))) {
+            out.writeInt(MAGIC_NUMBER);
+            out.writeInt(count);
+
+            // each difficulty gets a third of the words
+            for (int difficulty = 0; difficulty <= DIFFICULTY_COUNT; difficulty++) {
+                out.writeInt((int) ((long) count * difficulty / DIFFICULTY_COUNT));
+            }
+
+            // where each word will be
+            int offset = HEADER_BYTES + count * Integer.BYTES;
+            for (int i : sorted) {
+                out.writeInt(offset);
+                offset += 1 + lengths[i];
+            }
+
+            for (int i : sorted) {
+                words.getLetters(lengths[i], null, indexes[i], letters, 0);
+                out.writeByte(lengths[i]);
+                out.write(letters, 0, lengths[i]);
+            }
+        }
+
+        System.out.printf("Wrote %,d words to %s in %.1f s%n", count, outputFile, (System.nanoTime() - startTime) / 1e9);
+        HangmanDifficultyIndex index = open(outputFile);
+        for (HangmanWordList.Difficulty difficulty : HangmanWordList.Difficulty.values()) {
+            System.out.println(difficulty + ": " + index.size(difficulty) + " words, for example " + index.getRandomWord(difficulty, new Random()));
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package games;
+
+/**
+ * This class plays hangman against every word in a word list without opening a
+ * window, to see how well a guessing strategy does. It's used to find out which
+ * words are hard and to check that a change to a strategy didn't make it worse.
+ *
+ * The games are played with HangmanModel, so they follow the same rules as the
+ * real game (7 wrong guesses loses). The words are split into chunks that are
+ * played on every core. At the end, each strategy's win rate, average number of
+ * wrong guesses, and hardest words are printed, and every word's result can be
+ * written to a CSV file.
+ *
+ * It can be run from the command line:
+ *   java -cp MiniGames.jar games.HangmanEvaluator [word file] [strategy or "all"] [threads] [CSV file]
+ * (the "hangman-evaluator" target in build.xml does this).
+ */
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class HangmanEvaluator {
+
+    /**
+     * A way of guessing letters. The same strategy is used by several threads at
+     * once, so it can't keep anything about one game in its fields.
+     */
+    public interface Strategy {
+        /**
+         * Returns the letter to guess next (a to z). It can't be a letter that's
+         * already been guessed.
+         */
+        char guess(HangmanModel model);
+    }
+
+    // how many of the hardest words are printed
+    private static final int HARDEST_WORD_COUNT = 20;
+
+    // how many words each thread plays at a time
+    private static final int CHUNK_SIZE = 1024;
+
+    // the result of every word for one strategy
+    private static class Results {
+        final int[] misses;
+
+        // how many letters of the word were still hidden at the end (0 if it was guessed)
+        final int[] hiddenLetters;
+
+        Results(int wordCount) {
+            misses = new int[wordCount];
+            hiddenLetters = new int[wordCount];
+        }
+
+        // harder words have more misses, and then more letters left
+        int getHardness(int word) {
+            return misses[word] * 64 + hiddenLetters[word];
+        }
+    }
+
+    /**
+     * Returns the strategies that can be tested, by name.
+     *
+     * @param words the word list the strategies can use
+     */
+    public static Map<String, Strategy> getStrategies(HangmanWordList words) {
+        Map<String, Strategy> strategies = new LinkedHashMap<>();
+        strategies.put("Frequency", HangmanEvaluator::guessMostCommonLetter);
+
+        // the same hints the hint button gives
+        HangmanHints hints = new HangmanHints(words);
+        strategies.put("Hints", hints::getHint);
+        return strategies;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        File wordFile = new File(args.length > 0 ? args[0] : "src/games/hangman words.txt");
+        String strategyName = args.length > 1 ? args[1] : "all";
+        int threadCount = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        File csvFile = args.length > 3 ? new File(args[3]) : null;
+
+        HangmanWordList words = HangmanWordList.open(wordFile);
+        System.out.printf("Loaded %,d words from %s in %d ms%n", words.size(), wordFile, words.getLoadMillis());
+
+        Map<String, Strategy> strategies = getStrategies(words);
+        if (!strategyName.equals("all")) {
+            if (!strategies.containsKey(strategyName)) {
+                System.out.println("There's no strategy called " + strategyName + ". The strategies are: " + strategies.keySet());
+                return;
+            }
+            strategies.keySet().retainAll(List.of(strategyName));
+        }
+
+        ExecutorService threads = Executors.newFixedThreadPool(threadCount);
+        Map<String, Results> allResults = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<String, Strategy> entry : strategies.entrySet()) {
+                long startTime = System.nanoTime();
+                Results results = evaluate(words, entry.getValue(), threads);
+                double seconds = (System.nanoTime() - startTime) / 1e9;
+                allResults.put(entry.getKey(), results);
+
+                printSummary(entry.getKey(), words, results, seconds, threadCount);
+            }
+        }
+        finally {
+            threads.shutdown();
+        }
+
+        if (csvFile != null) {
+            try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(csvFile)))) {
+                out.println("strategy,word,misses,won");
+                for (Map.Entry<String, Results> entry : allResults.entrySet()) {
+                    Results results = entry.getValue();
+                    for (int i = 0; i < words.size(); i++) {
+                        out.printf("%s,%s,%d,%b%n", entry.getKey(), words.get(i), results.misses[i], results.hiddenLetters[i] == 0);
+                    }
+                }
+            }
+            System.out.println("Wrote every word's result to " + csvFile);
+        }
+    }
+
+    /**
+     * Plays every word in the list with a strategy, spread across the threads.
+     */
+    private static Results evaluate(HangmanWordList words, Strategy strategy, ExecutorService threads)
+            throws InterruptedException, ExecutionException {
+        Results results = new Results(words.size());
+        CompletionService<Void> chunks = new ExecutorCompletionService<>(threads);
+
+        // each chunk writes to its own part of the results, so they don't need to be locked
+        int chunkCount = 0;
+        for (int start = 0; start < words.size(); start += CHUNK_SIZE) {
+            int chunkStart = start;
+            int chunkEnd = Math.min(start + CHUNK_SIZE, words.size());
+            chunks.submit(() -> {
+                HangmanModel model = new HangmanModel();
+                for (int i = chunkStart; i < chunkEnd; i++) {
+                    play(words.get(i), strategy, model);
+                    results.misses[i] = model.getMissCount();
+                    results.hiddenLetters[i] = model.getWord().length() - Long.bitCount(model.getRevealedPositions());
+                }
+                return null;
+            });
+            chunkCount++;
+        }
+
+        for (int i = 0; i < chunkCount; i++) {
+            chunks.take().get();
+        }
+        return results;
+    }
+
+    /**
+     * Plays one game of hangman with a strategy.
+     */
+    private static void play(String word, Strategy strategy, HangmanModel model) {
+        model.newGame(word);
+        while (!model.isGameOver()) {
+            char guess = strategy.guess(model);
+            HangmanModel.Guess result = model.guess(guess);
+            if (result == HangmanModel.Guess.IGNORED || result == HangmanModel.Guess.ALREADY_GUESSED) {
+                throw new IllegalStateException("The strategy guessed '" + guess + "', which can't be guessed in \"" + word + "\"");
+            }
+        }
+    }
+
+    private static void printSummary(String name, HangmanWordList words, Results results, double seconds, int threadCount) {
+        int wins = 0;
+        long totalMisses = 0;
+        for (int i = 0; i < words.size(); i++) {
+            if (results.hiddenLetters[i] == 0) {
+                wins++;
+            }
+            totalMisses += results.misses[i];
+        }
+
+        System.out.println();
+        System.out.println("Strategy: " + name);
+        System.out.printf("Played %,d words in %.2f s (%,.0f words/sec) on %d threads%n", words.size(), seconds,
+                words.size() / seconds, threadCount);
+        System.out.printf("Won %,d of %,d (%.1f%%), %.2f misses per word on average%n", wins, words.size(),
+                100.0 * wins / words.size(), (double) totalMisses / words.size());
+
+        // keep the hardest words in a heap with the easiest of them on top
+        PriorityQueue<Integer> hardest = new PriorityQueue<>(HARDEST_WORD_COUNT + 1,
+                (a, b) -> Integer.compare(results.getHardness(a), results.getHardness(b)));
+        for (int i = 0; i < words.size(); i++) {
+            hardest.add(i);
+            if (hardest.size() > HARDEST_WORD_COUNT) {
+                hardest.poll();
+            }
+        }
+
+        Integer[] hardestWords = hardest.toArray(new Integer[0]);
+        Arrays.sort(hardestWords, (a, b) -> Integer.compare(results.getHardness(b), results.getHardness(a)));
+        System.out.println("Hardest words:");
+        System.out.println("word\tmisses\tletters left");
+        for (int word : hardestWords) {
+            System.out.println(words.get(word) + "\t" + results.misses[word] + "\t" + results.hiddenLetters[word]);
+        }
+    }
+
+    /**
+     * Guesses the most common letter that hasn't been guessed yet.
+     */
+    private static char guessMostCommonLetter(HangmanModel model) {
+        for (int i = 0; i < HangmanWordList.LETTER_FREQUENCY_ORDER.length(); i++) {
+            char letter = HangmanWordList.LETTER_FREQUENCY_ORDER.charAt(i);
+            if ((model.getGuessedLetters() & 1 << letter - 'a') == 0) {
+                return letter;
+            }
+        }
+        return 'a';
+    }
+}
@@ -11,13 +11,13 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.LinkedList;
-import java.util.Scanner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
 import javafx.scene.input.KeyCode;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.VBox;
@@ -33,16 +33,9 @@ public class HangmanGame {
     // the game is over.
     private Text txtWord = new Text("Guess a word: "), txtInfo = new Text();
     
-    // a LinkedList containing all letters guessed by the user.
-    private LinkedList<Character> guessedLetters = new LinkedList<>();
-    private LinkedList<Character> missedLetters = new LinkedList<>();
-    
-    // words that are randomly chosen to be guessed.
-    // there is a file of words, but these are used if the file is unavailable.
-    private String[] words = {"banana", "chip", "car", "boat", "ground", "textile", "tree"};
-    
-    // the word to guess
-    private String word;
+    // the word to guess and the letters guessed by the user.
+    // the Texts only display what's stored here.
+    private HangmanModel model = new HangmanModel();
     
     // the pane that contains the hangman and its pole
     private HangmanPane hangmanPane;
@@ -53,6 +46,27 @@ public class HangmanGame {
     private Scene masterScene;
     private Button btnHome = new Button("Home");
     
+    // switches between normal hangman and evil hangman, where the computer
+    // changes the word to dodge the user's guesses (see EvilHangman)
+    private Button btnMode = new Button("Mode: Normal");
+    private boolean isEvilMode = false;
+    
+    // chooses how hard the words are ("Any" or one of HangmanWordList.Difficulty)
+    private ComboBox<String> cbDifficulty = new ComboBox<>();
+    
+    // suggests a letter to guess (see HangmanHints). txtHint displays the letter.
+    private Button btnHint = new Button("Hint");
+    private Text txtHint = new Text();
+    private HangmanHints hints;
+    
+    // the hint index for the word's length is made on this thread when a game
+    // starts, so asking for a hint doesn't have to wait for it. Every HangmanGame uses the same thread.
+    private static final ExecutorService hintThread = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Hangman hints");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
     private int numberOfWins = 0, numberOfLosses = 0;
     
     public Scene startClass(GameSelector selector) {
@@ -73,6 +87,31 @@ public class HangmanGame {
         
         btnHome.setOnAction(e -> selector.draw());
         
+        btnHint.setOnAction(e -> {
+            showHint();
+            masterPane.requestFocus();
+        });
+        
+        // the difficulty is used starting with the next game.
+        // startClass is called again every time the game is opened, so the choices are only added once
+        if (cbDifficulty.getItems().isEmpty()) {
+            cbDifficulty.getItems().add("Any");
+            for (HangmanWordList.Difficulty difficulty : HangmanWordList.Difficulty.values()) {
+                cbDifficulty.getItems().add(difficulty.toString());
+            }
+            cbDifficulty.setValue("Any");
+        }
+        cbDifficulty.setOnAction(e -> masterPane.requestFocus());
+        
+        // changing the mode starts a new game
+        btnMode.setOnAction(e -> {
+            isEvilMode = !isEvilMode;
+            btnMode.setText(isEvilMode ? "Mode: Evil" : "Mode: Normal");
+            hangmanPane.stopAnimation();
+            beginGame();
+            masterPane.requestFocus();
+        });
+        
         // redraw the window when it changes size
         masterScene.widthProperty().addListener(e -> draw());
         masterScene.heightProperty().addListener(e -> draw());
@@ -88,21 +127,6 @@ public class HangmanGame {
      * 
      */
     private void beginGame() {
-        // this reads in words from a .txt file
-        try {
-            // this is for testing the app in NetBeans.
-            File saveFile = new File("src/games", "hangman words.txt");
-            
-            if (saveFile.exists()) {
-                Scanner txtFileInput = new Scanner(saveFile);
-                
-                words = txtFileInput.nextLine().split(",");
-            }
-        }
-        catch (IOException e) {
-            System.out.println("An error occurred while reading from the text file");
-        }
-        
         if (Settings.doSaveDataPermanently) {
             // read in scores from a file.
             try {
@@ -138,20 +162,35 @@ public class HangmanGame {
         }
         
         // assign a random word to be guessed.
-        word = words[(int)(Math.random() * words.length)];
+        // the words are read in once when the app starts (see HangmanWordList)
+        HangmanWordList words = HangmanWordList.getDefault();
+        String randomWord = pickWord(words);
         
+        // in evil mode, the word can be any word as long as the random one.
+        // the difficulty index isn't made from the same list, so make sure the list has words that long
+        if (isEvilMode && words.size(randomWord.length(), null) == 0) {
+            randomWord = words.get((int)(Math.random() * words.size()));
+        }
+        if (isEvilMode) {
+            model.newGame(new EvilHangman(words, randomWord.length()));
+        }
+        else {
+            model.newGame(randomWord);
+        }
         
-        guessedLetters.clear();
-        missedLetters.clear();
+        // the hints have to be made again if the word list changed
+        if (hints == null || hints.getWords() != words) {
+            hints = new HangmanHints(words);
+        }
+        HangmanHints gameHints = hints;
+        int length = randomWord.length();
+        hintThread.submit(() -> gameHints.prepare(length));
         
         // reset the Texts for the word and missed letters.
-        txtWord.setText("Guess a word: ");
+        // the letters in the word are hidden with '*'
+        txtWord.setText("Guess a word: " + model.getMaskedWord());
         txtInfo.setText("");
-        
-        // hide the letters in the word with '*'
-        for (int i = 0; i < word.length(); i++) {
-            txtWord.setText(txtWord.getText() + "*");
-        }
+        txtHint.setText("");
         
         isGameRunning = true;
         hangmanPane.gameIsBegun();
@@ -160,6 +199,41 @@ public class HangmanGame {
         draw();
     }
     
+    /**
+     * Picks a random word of the difficulty the user chose. The words come from the
+     * difficulty index if it's been made (see HangmanDifficultyIndex), and from the
+     * word list's own estimate if it hasn't.
+     * 
+     * @param words the word list
+     */
+    private String pickWord(HangmanWordList words) {
+        // find the difficulty by its name ("Any" isn't one)
+        HangmanWordList.Difficulty difficulty = null;
+        for (HangmanWordList.Difficulty choice : HangmanWordList.Difficulty.values()) {
+            if (choice.toString().equals(cbDifficulty.getValue())) {
+                difficulty = choice;
+            }
+        }
+        String word = null;
+        
+        if (difficulty != null) {
+            HangmanDifficultyIndex index = HangmanDifficultyIndex.getDefault();
+            
+            if (index != null) {
+                word = index.getRandomWord(difficulty, ThreadLocalRandom.current());
+            }
+            else {
+                word = words.getRandomWord(1, HangmanWordList.MAX_LENGTH, difficulty, ThreadLocalRandom.current());
+            }
+        }
+        
+        // if there are no words of that difficulty, any word will do
+        if (word == null) {
+            word = words.get((int)(Math.random() * words.size()));
+        }
+        return word;
+    }
+    
     /**
      * Draws the text boxes for the word to guess and letters guessed, then
      * calls the draw() method in HangmanPane to draw the hangman and the pole
@@ -177,14 +251,14 @@ public class HangmanGame {
         Text txtWins = new Text("Wins: " + numberOfWins);
         Text txtLosses = new Text("Losses: " + numberOfLosses);
         
-        controlBox.getChildren().addAll(btnHome, txtWins, txtLosses);
+        controlBox.getChildren().addAll(btnHome, btnMode, cbDifficulty, btnHint, txtHint, txtWins, txtLosses);
         
         txtWord.setX(masterScene.getWidth() * 0.4);
         txtWord.setY(masterScene.getHeight() * 0.85);
         
         txtInfo.setX(txtWord.getX());
         txtInfo.setY(txtWord.getY() + 15);
-        hangmanPane.draw(masterScene.getWidth(), masterScene.getHeight(), missedLetters.size());
+        hangmanPane.draw(masterScene.getWidth(), masterScene.getHeight(), model.getMissCount());
         
         masterPane.getChildren().addAll(hangmanPane, txtWord, txtInfo, controlBox);
         
@@ -195,114 +269,88 @@ public class HangmanGame {
     }
     
     /** this method is called when a user guesses a letter. it reveals any letters
-     * in the word that match the guess and adds the guess to the list of guessed letters
-     * (if it's a newly guessed word) and to the label of wrong letters if the guess is wrong.
+     * in the word that match the guess and adds the guess to the label of wrong
+     * letters if the guess is wrong. Letters that were already guessed and keys
+     * that aren't letters are ignored (see HangmanModel).
      * 
      * @param guess the letter that the user guesses
      */
     public void processLetter(char guess) {
         
-        // make the guess lowercase if it isn't.
-        guess = (guess + "").toLowerCase().charAt(0);
-        
-        // check the guess only if the guess is a letter
-        if (((int)guess >= 97 && (int)guess <= 122)) {
+        // only check the guess while the game is running
+        if (!isGameRunning) {
+            return;
+        }
+        txtHint.setText("");
         
-            // only check the guess if it hasn't been guessed before.
-            if (Collections.disjoint(guessedLetters, Arrays.asList(guess)) && isGameRunning) {
-                
-                // add it to the list of guessed letters
-                guessedLetters.add(guess);
-                
-                // this word is the word in txtWord with all letters that = the user's current guess revealed.
-                String newWord = "";
-                
-                // get the current String that represents the word to guess in txtWord
-                // (i.e. if the word to guess is "apple" the word in txtWord might be "*pp*e" or "a****". get THAT word.)
-                String currentWord = txtWord.getText().substring(txtWord.getText().indexOf(":") + 2);
-                boolean isGuessCorrect = false;
-                
+        switch (model.guess(guess)) {
+            case CORRECT ->  {
                 // reveal all letters in the word that match the guess
-                for (int i = 0; i < word.length(); i++) {
-                    
-                    // if the current char is "*" (hidden), check if the actual char in the word to guess
-                    // is = to the user's guess. If it is, replace the * with the actual char.
-                    if (currentWord.charAt(i) == '*') {
-                        if (word.charAt(i) == guess) {
-                            newWord += guess;
-                            isGuessCorrect = true;
-                        }
-                        else {
-                            newWord += "*";
-                        }
-                    }
-                    // if the char is already revealed, simply add it to the new word.
-                    else {
-                        newWord += word.charAt(i);
-                    }
-                }
-                
-                // replace the old word with the new word.
-                txtWord.setText("Guess a word: " + newWord);
+                txtWord.setText("Guess a word: " + model.getMaskedWord());
                 
                 // if the user won, end the game
-                if (newWord.equals(word)) {
+                if (model.isWon()) {
                     numberOfWins++;
                     endGame();
                 }
+            }
             
-                // if the guess is wrong, add it to the label which displays wrong guesses.
-                if (!isGuessCorrect) {
-                    missedLetters.add(guess);
-                    
-                    // draw the next part of the hangman
-                    hangmanPane.draw(masterPane.getWidth(), masterPane.getHeight(), missedLetters.size());
-                    
-                    // if the user has missed 7 letters, end the game.
-                    if (missedLetters.size() == 7) {
-                        numberOfLosses++;
-                        endGame();
-                    }
-                    
-                    // otherwise, add their guess to txtInfo.
-                    else {
-                        if (missedLetters.size() == 1)
-                            txtInfo.setText("Missed letters: ");
-                        txtInfo.setText(txtInfo.getText() + guess);
-                    }
+            // if the guess is wrong, add it to the label which displays wrong guesses.
+            case WRONG ->  {
+                // draw the next part of the hangman
+                hangmanPane.draw(masterPane.getWidth(), masterPane.getHeight(), model.getMissCount());
+                
+                // if the user has missed 7 letters, end the game.
+                if (model.isLost()) {
+                    numberOfLosses++;
+                    endGame();
+                }
+                
+                // otherwise, add their guess to txtInfo.
+                else {
+                    txtInfo.setText("Missed letters: " + model.getMissedLettersText());
                 }
             }
+            
+            default ->  {
+                // the guess was already guessed or isn't a letter
+            }
         }
     }
     
+    /**
+     * Shows the letter that's in the most words that could be the word to guess.
+     */
+    private void showHint() {
+        if (!isGameRunning) {
+            return;
+        }
+        
+        char hint = hints.getHint(model);
+        int wordCount = hints.countCandidates(model);
+        txtHint.setText("Try " + hint + " (" + String.format("%,d", wordCount) + (wordCount == 1 ? " word fits)" : " words fit)"));
+    }
+    
     /**
      * Returns the number of letters that the user guessed incorrectly. 
      */
     public int getNumberOfLettersMissed() {
-        return missedLetters.size();
+        return model.getMissCount();
     }
     
     /** this method ends the game.
      * 
      */
     private void endGame() {
-        // get the current String that represents the word to guess in txtWord
-        // (i.e. if the word to guess is "apple" the word in txtWord might be "*pp*e" or "a****". get THAT word.)
-        String currentWord = txtWord.getText().substring(txtWord.getText().indexOf(":") + 2);
-        
         // update the labels and allow the user to end the game by pressing enter.
-        txtWord.setText("The word is: " + word);
+        txtWord.setText("The word is: " + model.getWord());
         txtInfo.setText("Press ENTER to restart");
         
         // if the user didn't guess the word, animate the hangman
-        if (!(currentWord.equals(word))) {
+        if (!(model.isWon())) {
             hangmanPane.startAnimation();
         }
         
-        // reset the guessed letters and missed letters LinkedLists.
-        guessedLetters = new LinkedList<>();
-        missedLetters = new LinkedList<>();
-        
         if (Settings.doSaveDataPermanently) {
             saveGame();
         }
@@ -0,0 +1,208 @@
+package games;
+
+/**
+ * This class stores the state of a game of hangman without any JavaFX, so the game
+ * can also be played by bots and simulations.
+ *
+ * Letters are stored as bits (bit 0 is 'a' and bit 25 is 'z'), and so are the
+ * positions in the word. When a word is picked, the positions of each letter are
+ * found once, so a guess is just a few bit operations: it doesn't look through the
+ * word or make any new objects.
+ *
+ * In evil mode, there isn't a word until the game is over. EvilHangman decides
+ * where each guessed letter is, and the word is changed to one that fits.
+ */
+public class HangmanModel {
+
+    /**
+     * The number of wrong guesses that loses the game (one for each part of the hangman).
+     */
+    public static final int MAX_MISSES = 7;
+
+    /**
+     * The longest word a game can be played with (one bit for each position).
+     */
+    public static final int MAX_LENGTH = Long.SIZE;
+
+    /**
+     * What happened when a letter was guessed.
+     */
+    public enum Guess {
+        // the guess wasn't a letter, or the game is over
+        IGNORED,
+        ALREADY_GUESSED,
+        CORRECT,
+        WRONG
+    }
+
+    private String word = "";
+
+    // the positions of each letter in the word ([letter])
+    private final long[] letterPositions = new long[26];
+
+    // every position in the word, and the positions that have been guessed
+    private long allPositions;
+    private long revealedPositions;
+
+    // the letters that have been guessed, and the ones that aren't in the word
+    private int guessedLetters;
+    private int missedLetters;
+
+    // the wrong guesses in the order they were made
+    private final char[] missOrder = new char[MAX_MISSES];
+
+    // picks where the guessed letters are in evil mode, or null in a normal game
+    private EvilHangman evil;
+
+    /**
+     * Starts a new game with a word to guess.
+     *
+     * @param word the word, made of the letters a to z and at most MAX_LENGTH letters long
+     */
+    public void newGame(String word) {
+        setWord(word);
+        revealedPositions = 0;
+        guessedLetters = 0;
+        missedLetters = 0;
+        evil = null;
+    }
+
+    /**
+     * Starts a new game of evil hangman, where the word is only decided as letters
+     * are guessed.
+     *
+     * @param evil the words the word can be (they all have to be the same length)
+     */
+    public void newGame(EvilHangman evil) {
+        newGame(evil.getWord());
+        this.evil = evil;
+    }
+
+    // finds the positions of each letter in a word
+    private void setWord(String word) {
+        if (word.length() > MAX_LENGTH) {
+            throw new IllegalArgumentException("The word can't be longer than " + MAX_LENGTH + " letters");
+        }
+
+        for (int i = 0; i < letterPositions.length; i++) {
+            letterPositions[i] = 0;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            int letter = word.charAt(i) - 'a';
+            if (letter < 0 || letter >= 26) {
+                throw new IllegalArgumentException("The word can only have the letters a to z");
+            }
+            letterPositions[letter] |= 1L << i;
+        }
+
+        this.word = word;
+        allPositions = word.length() == MAX_LENGTH ? -1L : (1L << word.length()) - 1;
+    }
+
+    /**
+     * Guesses a letter, revealing it everywhere it is in the word.
+     *
+     * @param guess the letter (it can be uppercase or lowercase)
+     */
+    public Guess guess(char guess) {
+        int letter = Character.toLowerCase(guess) - 'a';
+        if (letter < 0 || letter >= 26 || isGameOver()) {
+            return Guess.IGNORED;
+        }
+
+        int bit = 1 << letter;
+        if ((guessedLetters & bit) != 0) {
+            return Guess.ALREADY_GUESSED;
+        }
+        guessedLetters |= bit;
+
+        // in evil mode, the letter goes wherever it keeps the most words possible
+        if (evil != null) {
+            evil.guess((char) ('a' + letter));
+            setWord(evil.getWord());
+        }
+
+        if (letterPositions[letter] != 0) {
+            revealedPositions |= letterPositions[letter];
+            return Guess.CORRECT;
+        }
+        missOrder[getMissCount()] = (char) ('a' + letter);
+        missedLetters |= bit;
+        return Guess.WRONG;
+    }
+
+    public String getWord() {
+        return word;
+    }
+
+    /**
+     * Returns whether the letter at a position in the word has been guessed.
+     */
+    public boolean isRevealed(int position) {
+        return (revealedPositions & 1L << position) != 0;
+    }
+
+    /**
+     * Returns the positions in the word that have been guessed, as bits.
+     */
+    public long getRevealedPositions() {
+        return revealedPositions;
+    }
+
+    /**
+     * Returns the letters that have been guessed, as bits.
+     */
+    public int getGuessedLetters() {
+        return guessedLetters;
+    }
+
+    /**
+     * Returns the letters that have been guessed and aren't in the word, as bits.
+     */
+    public int getMissedLetters() {
+        return missedLetters;
+    }
+
+    /**
+     * Returns the positions of a letter in the word, as bits.
+     *
+     * @param letter the letter (a to z)
+     */
+    public long getPositions(char letter) {
+        return letterPositions[letter - 'a'];
+    }
+
+    public int getMissCount() {
+        return Integer.bitCount(missedLetters);
+    }
+
+    /**
+     * Returns the word with the letters that haven't been guessed as '*'.
+     */
+    public String getMaskedWord() {
+        char[] letters = new char[word.length()];
+        for (int i = 0; i < letters.length; i++) {
+            letters[i] = isRevealed(i) ? word.charAt(i) : '*';
+        }
+        return new String(letters);
+    }
+
+    /**
+     * Returns the wrong guesses in the order they were made.
+     */
+    public String getMissedLettersText() {
+        return new String(missOrder, 0, getMissCount());
+    }
+
+    public boolean isWon() {
+        return revealedPositions == allPositions && !word.isEmpty();
+    }
+
+    public boolean isLost() {
+        return getMissCount() >= MAX_MISSES;
+    }
+
+    public boolean isGameOver() {
+        return isWon() || isLost();
+    }
+}
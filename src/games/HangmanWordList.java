@@ -0,0 +1,559 @@
+package games;
+
+/**
+ * This class is the list of words hangman picks from. The words are read in from
+ * "hangman words.txt" once, on a background thread when the app starts, instead of
+ * every time a game starts.
+ *
+ * Word lists can have tens of millions of words, so the words aren't read in as
+ * Strings. The file is memory mapped, and the list only keeps where each word
+ * starts in the file (one int per word). The starts are sorted by the word's
+ * length and difficulty, so the words of one length or difficulty are next to each
+ * other and a random one can be picked without looking at the rest. A word is only
+ * made into a String when it's picked.
+ *
+ * A word list never changes after it's loaded. When the file changes, a new list
+ * is loaded and swapped in all at once, so a game that's starting always sees
+ * either the whole old list or the whole new one.
+ *
+ * If there's no word file (like when the app is run from the jar), the words come
+ * from the HangmanDictionary on the classpath instead. Then the list keeps each
+ * word's index in the dictionary instead of where it starts in a file, and reads
+ * the word out of the dictionary when it's used, so only the dictionary and the
+ * index are in memory.
+ */
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class HangmanWordList {
+
+    /**
+     * How hard a word is to guess. This is a quick estimate: it's how many wrong
+     * guesses it takes to get every letter of the word when guessing letters from
+     * the most common in English to the least common, so words with rare letters
+     * are harder. The game uses HangmanDifficultyIndex instead if it's been made.
+     */
+    public enum Difficulty {
+        EASY("Easy"),
+        MEDIUM("Medium"),
+        HARD("Hard");
+
+        private final String name;
+
+        Difficulty(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * The longest word that's used. Longer words are left out.
+     */
+    public static final int MAX_LENGTH = 50;
+
+    // this is for testing the app in NetBeans.
+    private static final File WORDS_FILE = new File("src/games", "hangman words.txt");
+
+    // these are used if the file is unavailable.
+    private static final String BUILT_IN_WORDS = "banana,chip,car,boat,ground,textile,tree";
+
+    // letters from the most common in English to the least common (the other
+    // hangman classes use this too)
+    static final String LETTER_FREQUENCY_ORDER = "etaoinshrdlcumwfgypbvkjxqz";
+
+    // the most wrong guesses an easy and a medium word can take (see Difficulty)
+    private static final int MAX_EASY_MISSES = 6;
+    private static final int MAX_MEDIUM_MISSES = 12;
+
+    private static final int DIFFICULTY_COUNT = Difficulty.values().length;
+
+    // how long to wait after the file changes before reading it, so a file that's
+    // still being saved isn't read halfway through
+    private static final long RELOAD_DELAY_MILLIS = 200;
+
+    // the list the game uses. It's only replaced, never changed.
+    private static final AtomicReference<HangmanWordList> current = new AtomicReference<>(
+            new HangmanWordList(ByteBuffer.wrap(BUILT_IN_WORDS.getBytes(StandardCharsets.US_ASCII)), 0));
+
+    // loads the words and then watches the file for changes
+    private static ExecutorService loaderThread;
+
+    // copies of the word file that couldn't be deleted yet because they're still
+    // mapped (Windows doesn't let a mapped file be deleted). They're tried again
+    // every time a file is opened.
+    private static final List<Path> undeletedSnapshots = new ArrayList<>();
+
+    // the words, separated by commas or new lines (null if they're in a dictionary)
+    private final ByteBuffer buffer;
+
+    // the words, if they're in a dictionary instead of a buffer
+    private final HangmanDictionary dictionary;
+
+    // where each word starts in the buffer (or its index in the dictionary), sorted
+    // by bucket (length * 3 + difficulty)
+    private final int[] offsets;
+
+    // where each bucket starts in offsets (the last one is the number of words)
+    private final int[] bucketStarts = new int[(MAX_LENGTH + 1) * DIFFICULTY_COUNT + 1];
+
+    // how long it took to read the words in and index them
+    private final long loadMillis;
+
+    /**
+     * Indexes the words in a buffer. The buffer has to stay the same while the list
+     * is used.
+     */
+    private HangmanWordList(ByteBuffer buffer, long startTime) {
+        this.buffer = buffer;
+        dictionary = null;
+
+        // count the words in each bucket first, so the index is the exact size it needs to be
+        int[] bucketCounts = new int[bucketStarts.length];
+        int limit = buffer.limit();
+        for (int start = nextWord(0); start < limit; start = nextWord(start)) {
+            int bucket = getBucket(start);
+            if (bucket != -1) {
+                bucketCounts[bucket + 1]++;
+            }
+            start = endOfWord(start);
+        }
+        for (int i = 1; i < bucketStarts.length; i++) {
+            bucketStarts[i] = bucketStarts[i - 1] + bucketCounts[i];
+        }
+
+        // then put each word's start in its bucket
+        offsets = new int[bucketStarts[bucketStarts.length - 1]];
+        int[] nextOffset = bucketStarts.clone();
+        for (int start = nextWord(0); start < limit; start = nextWord(start)) {
+            int bucket = getBucket(start);
+            if (bucket != -1) {
+                offsets[nextOffset[bucket]++] = start;
+            }
+            start = endOfWord(start);
+        }
+
+        loadMillis = startTime == 0 ? 0 : (System.nanoTime() - startTime) / 1_000_000;
+    }
+
+    /**
+     * Indexes the words in a dictionary.
+     */
+    private HangmanWordList(HangmanDictionary dictionary, long startTime) {
+        buffer = null;
+        this.dictionary = dictionary;
+
+        // each word's bucket is kept from the first time through (buckets are under
+        // 256), so the dictionary only has to be gone through once
+        byte[] buckets = new byte[dictionary.size()];
+        int[] bucketCounts = new int[bucketStarts.length];
+        int[] index = new int[1];
+        dictionary.forEachWord((letters, length) -> {
+            int bucket = getBucket(letters, length);
+            buckets[index[0]++] = (byte) bucket;
+            bucketCounts[bucket + 1]++;
+        });
+        for (int i = 1; i < bucketStarts.length; i++) {
+            bucketStarts[i] = bucketStarts[i - 1] + bucketCounts[i];
+        }
+
+        offsets = new int[buckets.length];
+        int[] nextOffset = bucketStarts.clone();
+        for (int i = 0; i < buckets.length; i++) {
+            offsets[nextOffset[buckets[i] & 0xFF]++] = i;
+        }
+
+        loadMillis = (System.nanoTime() - startTime) / 1_000_000;
+    }
+
+    /**
+     * Starts loading the words on a background thread and watching the file for
+     * changes. It only does anything the first time it's called.
+     */
+    public static synchronized void startLoading() {
+        if (loaderThread != null) {
+            return;
+        }
+
+        loaderThread = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "Hangman word list");
+            thread.setDaemon(true);
+            return thread;
+        });
+        loaderThread.submit(() -> {
+            reload();
+            watchForChanges();
+        });
+    }
+
+    /**
+     * Returns the newest word list. Until the file has been read in (or if it can't
+     * be), this is a short built-in list.
+     */
+    public static HangmanWordList getDefault() {
+        startLoading();
+        return current.get();
+    }
+
+    /**
+     * Maps a word file and indexes it. The file is copied first and the copy is
+     * mapped, because a mapped file that's changed while it's being used changes
+     * the words under the list (or crashes it if the file gets shorter). The copy
+     * is deleted as soon as it's mapped, and the mapping keeps working until the
+     * list isn't used anymore.
+     *
+     * @param file a file of words separated by commas or new lines
+     */
+    public static HangmanWordList open(File file) throws IOException {
+        long startTime = System.nanoTime();
+
+        deleteSnapshots();
+        Path snapshot = Files.createTempFile("hangman words", ".txt");
+        try {
+            Files.copy(file.toPath(), snapshot, StandardCopyOption.REPLACE_EXISTING);
+
+            try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+                if (channel.size() > Integer.MAX_VALUE) {
+                    throw new IOException("The hangman word list is bigger than 2 GB");
+                }
+
+                // the mapping stays usable after the channel is closed
+                return new HangmanWordList(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), startTime);
+            }
+        }
+        finally {
+            synchronized (undeletedSnapshots) {
+                undeletedSnapshots.add(snapshot);
+            }
+            deleteSnapshots();
+        }
+    }
+
+    /**
+     * Deletes the copies of word files that aren't needed anymore. A copy that's
+     * still mapped can't be deleted on Windows, so it's kept to be tried again
+     * later (and deleted when the app closes if it never can be).
+     */
+    private static void deleteSnapshots() {
+        synchronized (undeletedSnapshots) {
+            undeletedSnapshots.removeIf(snapshot -> {
+                try {
+                    Files.deleteIfExists(snapshot);
+                    return true;
+                }
+                catch (IOException ex) {
+                    snapshot.toFile().deleteOnExit();
+                    return false;
+                }
+            });
+        }
+    }
+
+    /**
+     * Makes a list out of the words in a dictionary. The words aren't copied out of
+     * it: the list only keeps each word's index in the dictionary (one int per
+     * word), so the words take up as little memory as the dictionary does.
+     *
+     * @param dictionary the words
+     */
+    public static HangmanWordList open(HangmanDictionary dictionary) {
+        return new HangmanWordList(dictionary, System.nanoTime());
+    }
+
+    /**
+     * Reads the words in from the file and swaps them in. If the file can't be read
+     * or has no words, the old list is kept.
+     */
+    private static void reload() {
+        if (!WORDS_FILE.exists()) {
+            loadDictionary();
+            return;
+        }
+
+        try {
+            HangmanWordList words = open(WORDS_FILE);
+            if (words.size() == 0) {
+                System.out.println("There are no words in the hangman word list, so it wasn't loaded.");
+                return;
+            }
+
+            current.set(words);
+            System.out.printf("Loaded %,d hangman words (%,d KB) in %d ms.%n", words.size(), words.buffer.limit() / 1024, words.loadMillis);
+        }
+        catch (IOException ex) {
+            System.out.println("An error occurred while reading from the text file");
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Swaps in the words from the dictionary on the classpath, if there is one.
+     */
+    private static void loadDictionary() {
+        HangmanDictionary dictionary = HangmanDictionary.getDefault();
+        if (dictionary == null || dictionary.size() == 0) {
+            return;
+        }
+
+        HangmanWordList words = open(dictionary);
+        current.set(words);
+        System.out.printf("Loaded %,d hangman words from the dictionary (%,d KB) in %d ms.%n", words.size(),
+                (dictionary.getMemoryBytes() + (long) words.size() * Integer.BYTES) / 1024, words.loadMillis);
+    }
+
+    /**
+     * Reloads the words every time the file is changed. This runs until the app
+     * closes.
+     */
+    private static void watchForChanges() {
+        Path directory = WORDS_FILE.getAbsoluteFile().getParentFile().toPath();
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+
+        try (WatchService watcher = FileSystems.getDefault().newWatchService()) {
+            directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+            while (true) {
+                WatchKey key = watcher.take();
+
+                // only reload if one of the changed files is the word list
+                boolean isWordListChanged = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (WORDS_FILE.getName().equals(String.valueOf(event.context()))) {
+                        isWordListChanged = true;
+                    }
+                }
+
+                if (isWordListChanged) {
+                    Thread.sleep(RELOAD_DELAY_MILLIS);
+                    // saving a file can change it more than once, so ignore the changes from this save
+                    key.pollEvents();
+                    reload();
+                }
+
+                if (!key.reset()) {
+                    return;
+                }
+            }
+        }
+        catch (IOException ex) {
+            System.out.println("An error occurred while watching the hangman word list for changes.");
+            ex.printStackTrace();
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // returns where the next word starts, at or after a position in the buffer
+    private int nextWord(int position) {
+        while (position < buffer.limit() && isSeparator(buffer.get(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    // returns where a word ends (the position after its last letter)
+    private int endOfWord(int start) {
+        int end = start;
+        while (end < buffer.limit() && !isSeparator(buffer.get(end))) {
+            end++;
+        }
+        return end;
+    }
+
+    private static boolean isSeparator(byte b) {
+        return b == ',' || b == '\n' || b == '\r' || b == ' ' || b == '\t';
+    }
+
+    /**
+     * Returns the bucket of the word that starts at a position, or -1 if the word
+     * can't be used because it's too long or has something other than the letters
+     * a to z in it (those are the only letters a player can guess).
+     */
+    private int getBucket(int start) {
+        int letters = 0;
+        int length = 0;
+        for (int i = start; i < buffer.limit() && !isSeparator(buffer.get(i)); i++) {
+            int letter = Character.toLowerCase(buffer.get(i)) - 'a';
+            if (letter < 0 || letter >= 26 || ++length > MAX_LENGTH) {
+                return -1;
+            }
+            letters |= 1 << letter;
+        }
+        return getBucket(letters, length);
+    }
+
+    /**
+     * Returns the bucket of a word from its length and which letters are in it (one
+     * bit per letter, a is the lowest).
+     */
+    private static int getBucket(int letters, int length) {
+        // guess letters from the most common to the least common until the word is guessed
+        int misses = 0;
+        for (int i = 0; letters != 0; i++) {
+            int bit = 1 << LETTER_FREQUENCY_ORDER.charAt(i) - 'a';
+            if ((letters & bit) == 0) {
+                misses++;
+            }
+            letters &= ~bit;
+        }
+
+        Difficulty difficulty = misses <= MAX_EASY_MISSES ? Difficulty.EASY
+                : misses <= MAX_MEDIUM_MISSES ? Difficulty.MEDIUM : Difficulty.HARD;
+        return length * DIFFICULTY_COUNT + difficulty.ordinal();
+    }
+
+    // returns the bucket of a word in a dictionary (its letters are always a to z)
+    private static int getBucket(byte[] word, int length) {
+        int letters = 0;
+        for (int i = 0; i < length; i++) {
+            letters |= 1 << word[i] - 'a';
+        }
+        return getBucket(letters, length);
+    }
+
+    // makes the word at an index of offsets into a String
+    private String readWord(int index) {
+        if (dictionary != null) {
+            return dictionary.get(offsets[index]);
+        }
+
+        int start = offsets[index];
+        int end = endOfWord(start);
+        byte[] letters = new byte[end - start];
+        buffer.get(start, letters);
+        return new String(letters, StandardCharsets.US_ASCII).toLowerCase();
+    }
+
+    /**
+     * Returns a word from the list (the words are in order of length, not in the
+     * order they're in the file).
+     *
+     * @param index from 0 to size() - 1
+     */
+    public String get(int index) {
+        return readWord(index);
+    }
+
+    /**
+     * Returns how many words are in the list.
+     */
+    public int size() {
+        return offsets.length;
+    }
+
+    /**
+     * Returns how many words have a length and difficulty.
+     *
+     * @param length the number of letters, from 1 to MAX_LENGTH
+     * @param difficulty how hard the words are, or null for any difficulty
+     */
+    public int size(int length, Difficulty difficulty) {
+        if (length < 1 || length > MAX_LENGTH) {
+            return 0;
+        }
+        if (difficulty == null) {
+            return bucketStarts[(length + 1) * DIFFICULTY_COUNT] - bucketStarts[length * DIFFICULTY_COUNT];
+        }
+        int bucket = length * DIFFICULTY_COUNT + difficulty.ordinal();
+        return bucketStarts[bucket + 1] - bucketStarts[bucket];
+    }
+
+    /**
+     * Returns one of the words that have a length and difficulty.
+     *
+     * @param length the number of letters, from 1 to MAX_LENGTH
+     * @param difficulty how hard the word is, or null for any difficulty
+     * @param index from 0 to size(length, difficulty) - 1
+     */
+    public String get(int length, Difficulty difficulty, int index) {
+        int bucket = length * DIFFICULTY_COUNT + (difficulty == null ? 0 : difficulty.ordinal());
+        return readWord(bucketStarts[bucket] + index);
+    }
+
+    /**
+     * Copies the letters of one of the words that have a length and difficulty into
+     * an array, without making a String. The letters are lowercase ASCII.
+     *
+     * @param length the number of letters, from 1 to MAX_LENGTH
+     * @param difficulty how hard the word is, or null for any difficulty
+     * @param index from 0 to size(length, difficulty) - 1
+     * @param letters the array to copy the letters into
+     * @param offset where in the array to put the first letter
+     */
+    public void getLetters(int length, Difficulty difficulty, int index, byte[] letters, int offset) {
+        int bucket = length * DIFFICULTY_COUNT + (difficulty == null ? 0 : difficulty.ordinal());
+        if (dictionary != null) {
+            dictionary.getLetters(offsets[bucketStarts[bucket] + index], letters, offset);
+            return;
+        }
+
+        buffer.get(offsets[bucketStarts[bucket] + index], letters, offset, length);
+        for (int i = offset; i < offset + length; i++) {
+            letters[i] |= 0x20;
+        }
+    }
+
+    /**
+     * Picks a random word with a length in a range and a difficulty, or returns
+     * null if there aren't any. Only the words' counts are looked at, so this takes
+     * the same time no matter how many words there are.
+     *
+     * @param minLength the fewest letters the word can have
+     * @param maxLength the most letters the word can have
+     * @param difficulty how hard the word is, or null for any difficulty
+     * @param random picks the word
+     */
+    public String getRandomWord(int minLength, int maxLength, Difficulty difficulty, Random random) {
+        minLength = Math.max(minLength, 1);
+        maxLength = Math.min(maxLength, MAX_LENGTH);
+
+        int count = 0;
+        for (int length = minLength; length <= maxLength; length++) {
+            count += size(length, difficulty);
+        }
+        if (count == 0) {
+            return null;
+        }
+
+        int index = random.nextInt(count);
+        for (int length = minLength;; length++) {
+            int lengthCount = size(length, difficulty);
+            if (index < lengthCount) {
+                return get(length, difficulty, index);
+            }
+            index -= lengthCount;
+        }
+    }
+
+    /**
+     * Returns how long it took to read the words in and index them, in
+     * milliseconds (0 for the built-in list).
+     */
+    public long getLoadMillis() {
+        return loadMillis;
+    }
+}
@@ -0,0 +1,59 @@
+package games;
+
+/**
+ * This class measures how fast MonteCarloTreeSearch plays out games, without
+ * opening a window. Each game is searched from its first move with 1, 2, 4, ...
+ * threads (up to the number of cores), and the playouts per second in total and
+ * per thread are printed. If the playouts per thread drop a lot as threads are
+ * added, the threads are getting in each other's way.
+ *
+ * It can be run from the command line:
+ *   java -cp MiniGames.jar games.MonteCarloBenchmark [seconds per search] [most threads]
+ * (the "mcts-benchmark" target in build.xml does this).
+ */
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class MonteCarloBenchmark {
+
+    // how long each game is searched before it's timed, so the JIT has compiled everything
+    private static final long WARM_UP_MILLIS = 500;
+
+    public static void main(String[] args) {
+        double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 2;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : MonteCarloTreeSearch.DEFAULT_THREAD_COUNT;
+
+        Map<String, MonteCarloTreeSearch.Game> games = new LinkedHashMap<>();
+        games.put("Connect 4 (6x7)", MonteCarloTreeSearch.forBoard(new ConnectBoard(6, 7, 4)));
+        games.put("Connect 6 (20x20)", MonteCarloTreeSearch.forBoard(new ConnectBoard(20, 20, 6)));
+        games.put("Tic Tac Toe (3x3)", MonteCarloTreeSearch.forBoard(new TicTacToeBoard()));
+        games.put("Gomoku (15x15)", MonteCarloTreeSearch.forBoard(new TicTacToeBoard(15, 5)));
+        games.put("Gomoku (19x19)", MonteCarloTreeSearch.forBoard(new TicTacToeBoard(19, 5)));
+        games.put("Ultimate Tic Tac Toe", MonteCarloTreeSearch.forBoard(new UltimateBoard()));
+
+        // 1, 2, 4, ... threads, and then the most threads if it isn't a power of 2
+        List<Integer> threadCounts = new ArrayList<>();
+        for (int threads = 1; threads < maxThreads; threads *= 2) {
+            threadCounts.add(threads);
+        }
+        threadCounts.add(maxThreads);
+
+        System.out.println("game\tthreads\tplayouts\tplayouts/sec\tplayouts/sec/thread");
+        for (Map.Entry<String, MonteCarloTreeSearch.Game> entry : games.entrySet()) {
+            MonteCarloTreeSearch warmUp = new MonteCarloTreeSearch(1);
+            warmUp.findMove(entry.getValue(), WARM_UP_MILLIS, Long.MAX_VALUE);
+            warmUp.shutdown();
+
+            for (int threads : threadCounts) {
+                MonteCarloTreeSearch search = new MonteCarloTreeSearch(threads);
+                search.findMove(entry.getValue(), (long) (seconds * 1000), Long.MAX_VALUE);
+
+                System.out.printf("%s\t%d\t%d\t%,.0f\t%,.0f%n", entry.getKey(), threads, search.getLastPlayouts(),
+                        search.getPlayoutsPerSecond(), search.getPlayoutsPerSecond() / threads);
+                search.shutdown();
+            }
+        }
+    }
+}
@@ -0,0 +1,628 @@
+package games;
+
+/**
+ * This class finds moves with Monte Carlo tree search, for games that are too big
+ * to search with alpha-beta (like big tic tac toe boards, or connect 4 boards that
+ * aren't 6x7).
+ *
+ * Instead of scoring positions, it plays lots of random games ("playouts") from the
+ * current position and builds a tree of the moves that did best in them. Each round
+ * follows the moves that have won the most (while still trying moves that haven't
+ * been tried much), adds one new move to the tree, plays a random game from there,
+ * and counts who won for every move on the way back up.
+ *
+ * Every thread builds its own tree of the same position ("root parallel"), so the
+ * threads never have to wait for each other. At the end, the number of times each
+ * move was tried is added up over every tree and the move tried the most is picked.
+ * Playouts are played on a copy of the board without making any new objects, so
+ * they're as fast as the board can play moves.
+ */
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MonteCarloTreeSearch {
+
+    /**
+     * A game that can be searched. Each move is a number from 0 to getMaxMoves() - 1
+     * (for example, a column in connect 4 or a cell in tic tac toe).
+     */
+    public interface Game {
+        /**
+         * Returns a copy of the game that can be changed without changing this one.
+         */
+        Game copy();
+
+        /**
+         * Makes this game the same as another one made by copy(), without making
+         * any new objects.
+         */
+        void copyFrom(Game other);
+
+        /**
+         * Returns the most moves there can be in a position.
+         */
+        int getMaxMoves();
+
+        /**
+         * Puts the moves that can be made into an array and returns how many there
+         * are (0 if the game is over).
+         */
+        int getMoves(int[] moves);
+
+        /**
+         * Makes a move for the player whose turn it is.
+         */
+        void play(int move);
+
+        /**
+         * Returns the player whose turn it is (1 or 2).
+         */
+        int getCurrentPlayer();
+
+        /**
+         * Returns the player who won, 0 for a draw, or -1 if the game isn't over.
+         */
+        int getWinner();
+
+        /**
+         * Plays random moves until the game is over, without making any new objects,
+         * and returns getWinner().
+         */
+        int playout(Random random);
+    }
+
+    /**
+     * How many threads are used if no number is given. It can be changed with the
+     * "mcts.threads" system property.
+     */
+    public static final int DEFAULT_THREAD_COUNT = Integer.getInteger("mcts.threads", Runtime.getRuntime().availableProcessors());
+
+    // how much moves that haven't been tried much are picked over moves that have won a lot
+    private static final double EXPLORATION = Math.sqrt(2);
+
+    // the most moves one thread's tree can have. After that, playouts are still
+    // played from the bottom of the tree, but no more moves are added, so a long
+    // search on lots of cores can't run out of memory.
+    private static final int MAX_TREE_SIZE = 1 << 18;
+
+    // one move in a tree
+    private static class Node {
+        final Node parent;
+        final int move;
+
+        // the player who made the move
+        final int player;
+
+        // how many playouts went through the move, and how many of them the player won
+        // (a draw counts as half a win)
+        int visits;
+        double wins;
+
+        // the moves after this one that have been added to the tree
+        Node[] children;
+        int childCount;
+
+        // how many moves can be made after this one (-1 until it's looked at), how many
+        // of them have been added, and the order they're added in: move number
+        // (offset + i * step) % moveCount is added i-th, which goes through every move
+        // in a random looking order without keeping a list
+        int moveCount = -1;
+        int addedCount, offset, step;
+
+        Node(Node parent, int move, int player) {
+            this.parent = parent;
+            this.move = move;
+            this.player = player;
+        }
+    }
+
+    private final int threadCount;
+    private final ExecutorService threads;
+
+    // this is set to stop a search early (for example, when a new game starts)
+    private volatile boolean isStopped;
+
+    // how many times stop() has been called, so a search that was asked for before
+    // a stop() doesn't run even if it was still waiting to start
+    private final AtomicInteger stopCount = new AtomicInteger();
+
+    // how many playouts the last search played, and how long it took
+    private volatile long lastPlayouts;
+    private volatile double lastSeconds;
+
+    public MonteCarloTreeSearch() {
+        this(DEFAULT_THREAD_COUNT);
+    }
+
+    /**
+     * Makes a search that uses a number of threads.
+     *
+     * @param threadCount how many trees are built at once
+     */
+    public MonteCarloTreeSearch(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("There has to be at least 1 thread, not " + threadCount);
+        }
+
+        this.threadCount = threadCount;
+        threads = Executors.newFixedThreadPool(threadCount, r -> {
+            Thread thread = new Thread(r, "Monte Carlo search");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Makes a game for a connect 4 board of any size.
+     *
+     * @param board a board where the game isn't over (it's copied, so it isn't changed)
+     */
+    public static Game forBoard(ConnectBoard board) {
+        return new ConnectBoardGame(new ConnectBoard(board));
+    }
+
+    /**
+     * Makes a game for a tic tac toe board of any size.
+     *
+     * @param board a board where the game isn't over (it's copied, so it isn't changed)
+     */
+    public static Game forBoard(TicTacToeBoard board) {
+        return new TicTacToeBoardGame(new TicTacToeBoard(board));
+    }
+
+    /**
+     * Makes a game for an ultimate tic tac toe board.
+     *
+     * @param board a board where the game isn't over (it's copied, so it isn't changed)
+     */
+    public static Game forBoard(UltimateBoard board) {
+        return new UltimateBoardGame(new UltimateBoard(board));
+    }
+
+    /**
+     * Finds the best move for the player whose turn it is, by searching until the
+     * time runs out or enough playouts have been played.
+     *
+     * @param position the position to search (it isn't changed)
+     * @param timeLimitMillis how long to search for
+     * @param maxPlayouts how many playouts to play (over every thread)
+     * @return the move, or -1 if the game is over
+     */
+    public int findMove(Game position, long timeLimitMillis, long maxPlayouts) {
+        return findMove(position, timeLimitMillis, maxPlayouts, getStopCount());
+    }
+
+    /**
+     * Finds the best move like findMove(), unless stop() was called after the
+     * search was asked for.
+     *
+     * @param position the position to search (it isn't changed)
+     * @param timeLimitMillis how long to search for
+     * @param maxPlayouts how many playouts to play (over every thread)
+     * @param stopCount getStopCount() from when the search was asked for
+     * @return the move, or -1 if the game is over or the search was stopped before it started
+     */
+    public int findMove(Game position, long timeLimitMillis, long maxPlayouts, int stopCount) {
+        // the flag is cleared before the count is checked, so a stop() at the same time
+        // either changes the count first or sets the flag again after this
+        isStopped = false;
+        if (this.stopCount.get() != stopCount) {
+            isStopped = true;
+            return -1;
+        }
+        long startTime = System.nanoTime();
+        long deadline = startTime + timeLimitMillis * 1000000;
+
+        // each thread gets its own copy of the position and its share of the playouts
+        List<Future<Node>> trees = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            Game threadPosition = position.copy();
+            long threadPlayouts = maxPlayouts / threadCount + (i < maxPlayouts % threadCount ? 1 : 0);
+            trees.add(threads.submit(() -> buildTree(threadPosition, deadline, threadPlayouts)));
+        }
+
+        // add up how many times each move was tried in every tree
+        long[] visits = new long[position.getMaxMoves()];
+        long playouts = 0;
+        try {
+            for (Future<Node> tree : trees) {
+                Node root = tree.get();
+                playouts += root.visits;
+                for (int i = 0; i < root.childCount; i++) {
+                    visits[root.children[i].move] += root.children[i].visits;
+                }
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            isStopped = true;
+        }
+        catch (ExecutionException ex) {
+            throw new IllegalStateException("A search thread failed", ex.getCause());
+        }
+
+        lastPlayouts = playouts;
+        lastSeconds = (System.nanoTime() - startTime) / 1e9;
+
+        // the move that was tried the most is the one the search trusts the most
+        int best = -1;
+        for (int move = 0; move < visits.length; move++) {
+            if (visits[move] > 0 && (best == -1 || visits[move] > visits[best])) {
+                best = move;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Builds one tree of a position on the current thread.
+     */
+    private Node buildTree(Game position, long deadline, long maxPlayouts) {
+        Random random = ThreadLocalRandom.current();
+        Game state = position.copy();
+        int[] moves = new int[position.getMaxMoves()];
+        Node root = new Node(null, -1, 3 - position.getCurrentPlayer());
+        int treeSize = 1;
+
+        for (long round = 0; round < maxPlayouts && !isStopped && System.nanoTime() < deadline; round++) {
+            state.copyFrom(position);
+
+            // follow the best moves down the tree until a move has moves that haven't been added
+            Node node = root;
+            while (node.moveCount != -1 && node.addedCount == node.moveCount && node.childCount > 0) {
+                node = selectChild(node);
+                state.play(node.move);
+            }
+
+            // add one move to the tree and play a random game from there
+            int winner = state.getWinner();
+            if (winner == -1 && treeSize < MAX_TREE_SIZE) {
+                int moveCount = state.getMoves(moves);
+                if (node.moveCount == -1) {
+                    node.moveCount = moveCount;
+                    node.offset = random.nextInt(moveCount);
+                    node.step = findStep(moveCount, random);
+                    node.children = new Node[Math.min(moveCount, 4)];
+                }
+
+                int move = moves[(int) ((node.offset + (long) node.addedCount * node.step) % moveCount)];
+                node.addedCount++;
+                Node child = new Node(node, move, state.getCurrentPlayer());
+                if (node.childCount == node.children.length) {
+                    node.children = Arrays.copyOf(node.children, Math.min(node.children.length * 2, moveCount));
+                }
+                node.children[node.childCount++] = child;
+
+                state.play(move);
+                node = child;
+                treeSize++;
+                winner = state.getWinner();
+            }
+            if (winner == -1) {
+                winner = state.playout(random);
+            }
+
+            // count the result for every move on the way back up
+            for (; node != null; node = node.parent) {
+                node.visits++;
+                if (winner == node.player) {
+                    node.wins++;
+                }
+                else if (winner == 0) {
+                    node.wins += 0.5;
+                }
+            }
+        }
+
+        return root;
+    }
+
+    /**
+     * Picks the child with the best chance of winning, plus a bonus for children
+     * that haven't been tried as much as the others (UCT).
+     */
+    private static Node selectChild(Node node) {
+        double logVisits = Math.log(node.visits);
+        Node best = null;
+        double bestValue = Double.NEGATIVE_INFINITY;
+
+        for (int i = 0; i < node.childCount; i++) {
+            Node child = node.children[i];
+            double value = child.wins / child.visits + EXPLORATION * Math.sqrt(logVisits / child.visits);
+            if (value > bestValue) {
+                bestValue = value;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns a random step that has no common factor with the number of moves, so
+     * adding it over and over reaches every move once before it repeats.
+     */
+    private static int findStep(int moveCount, Random random) {
+        int step;
+        do {
+            step = 1 + random.nextInt(moveCount);
+        } while (gcd(step, moveCount) != 1);
+        return step;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int temp = a % b;
+            a = b;
+            b = temp;
+        }
+        return a;
+    }
+
+    /**
+     * Stops the current search (the best move so far is still returned).
+     */
+    public void stop() {
+        stopCount.incrementAndGet();
+        isStopped = true;
+    }
+
+    /**
+     * Returns how many times stop() has been called. A search that's queued to run
+     * later should be passed this from when it was queued.
+     */
+    public int getStopCount() {
+        return stopCount.get();
+    }
+
+    /**
+     * Stops the search and its threads. The search can't be used after this.
+     */
+    public void shutdown() {
+        stop();
+        threads.shutdownNow();
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * Returns how many playouts the last search played over every thread.
+     */
+    public long getLastPlayouts() {
+        return lastPlayouts;
+    }
+
+    /**
+     * Returns how many playouts the last search played per second over every thread.
+     */
+    public double getPlayoutsPerSecond() {
+        return lastSeconds > 0 ? lastPlayouts / lastSeconds : 0;
+    }
+
+    // a connect 4 board of any size
+    private static class ConnectBoardGame implements Game {
+        private final ConnectBoard board;
+
+        // the player who won, 0 for a draw, or -1 (ConnectBoard only checks moves before they're made)
+        private int winner = -1;
+
+        // the columns that aren't full during a playout
+        private final int[] openColumns;
+
+        ConnectBoardGame(ConnectBoard board) {
+            this.board = board;
+            openColumns = new int[board.getColumns()];
+        }
+
+        @Override
+        public Game copy() {
+            ConnectBoardGame copy = new ConnectBoardGame(new ConnectBoard(board));
+            copy.winner = winner;
+            return copy;
+        }
+
+        @Override
+        public void copyFrom(Game other) {
+            board.copyFrom(((ConnectBoardGame) other).board);
+            winner = ((ConnectBoardGame) other).winner;
+        }
+
+        @Override
+        public int getMaxMoves() {
+            return board.getColumns();
+        }
+
+        @Override
+        public int getMoves(int[] moves) {
+            if (winner != -1) {
+                return 0;
+            }
+
+            int count = 0;
+            for (int column = 0; column < board.getColumns(); column++) {
+                if (board.canPlay(column)) {
+                    moves[count++] = column;
+                }
+            }
+            return count;
+        }
+
+        @Override
+        public void play(int column) {
+            int player = board.getCurrentPlayer();
+            boolean isWin = board.isWinningMove(column);
+            board.play(column);
+            if (isWin) {
+                winner = player;
+            }
+            else if (board.isFull()) {
+                winner = 0;
+            }
+        }
+
+        @Override
+        public int getCurrentPlayer() {
+            return board.getCurrentPlayer();
+        }
+
+        @Override
+        public int getWinner() {
+            return winner;
+        }
+
+        @Override
+        public int playout(Random random) {
+            // a column is taken out of the list when it fills up, so every move is a random pick
+            int count = getMoves(openColumns);
+            while (winner == -1) {
+                int i = random.nextInt(count);
+                int column = openColumns[i];
+                play(column);
+                if (!board.canPlay(column)) {
+                    openColumns[i] = openColumns[--count];
+                }
+            }
+            return winner;
+        }
+    }
+
+    // a tic tac toe board of any size
+    private static class TicTacToeBoardGame implements Game {
+        private final TicTacToeBoard board;
+        private final int size;
+
+        // the empty cells during a playout
+        private final int[] emptyCells;
+
+        TicTacToeBoardGame(TicTacToeBoard board) {
+            this.board = board;
+            size = board.getSize();
+            emptyCells = new int[size * size];
+        }
+
+        @Override
+        public Game copy() {
+            return new TicTacToeBoardGame(new TicTacToeBoard(board));
+        }
+
+        @Override
+        public void copyFrom(Game other) {
+            board.copyFrom(((TicTacToeBoardGame) other).board);
+        }
+
+        @Override
+        public int getMaxMoves() {
+            return size * size;
+        }
+
+        @Override
+        public int getMoves(int[] moves) {
+            if (board.getWinner() != -1) {
+                return 0;
+            }
+
+            int count = 0;
+            for (int cell = 0; cell < size * size; cell++) {
+                if (board.isEmpty(cell)) {
+                    moves[count++] = cell;
+                }
+            }
+            return count;
+        }
+
+        @Override
+        public void play(int cell) {
+            board.play(cell / size, cell % size);
+        }
+
+        @Override
+        public int getCurrentPlayer() {
+            return board.getCurrentPlayer();
+        }
+
+        @Override
+        public int getWinner() {
+            if (board.getWinner() != -1) {
+                return board.getWinner();
+            }
+            return board.isFull() ? 0 : -1;
+        }
+
+        @Override
+        public int playout(Random random) {
+            // a played cell is swapped out of the list, so every move is a random pick
+            int count = getMoves(emptyCells);
+            while (board.getWinner() == -1 && count > 0) {
+                int i = random.nextInt(count);
+                int cell = emptyCells[i];
+                emptyCells[i] = emptyCells[--count];
+                play(cell);
+            }
+            return getWinner();
+        }
+    }
+
+    // an ultimate tic tac toe board, which already keeps track of which moves are legal
+    private static class UltimateBoardGame implements Game {
+        private final UltimateBoard board;
+
+        UltimateBoardGame(UltimateBoard board) {
+            this.board = board;
+        }
+
+        @Override
+        public Game copy() {
+            return new UltimateBoardGame(new UltimateBoard(board));
+        }
+
+        @Override
+        public void copyFrom(Game other) {
+            board.copyFrom(((UltimateBoardGame) other).board);
+        }
+
+        @Override
+        public int getMaxMoves() {
+            return UltimateBoard.CELLS;
+        }
+
+        @Override
+        public int getMoves(int[] moves) {
+            return board.getMoves(moves);
+        }
+
+        @Override
+        public void play(int cell) {
+            board.play(cell);
+        }
+
+        @Override
+        public int getCurrentPlayer() {
+            return board.getCurrentPlayer();
+        }
+
+        @Override
+        public int getWinner() {
+            if (board.getWinner() != -1) {
+                return board.getWinner();
+            }
+            return board.isGameOver() ? 0 : -1;
+        }
+
+        @Override
+        public int playout(Random random) {
+            while (!board.isGameOver()) {
+                board.play(board.getRandomMove(random));
+            }
+            return getWinner();
+        }
+    }
+}
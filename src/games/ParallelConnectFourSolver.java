@@ -0,0 +1,241 @@
+package games;
+
+/**
+ * This class solves connect 4 positions with several threads at once.
+ *
+ * Every thread runs its own ConnectFourSolver on the same position (a "lazy SMP"
+ * search). The solvers share one TranspositionTable, so whatever one thread finds
+ * out is used by the others, and since they search columns in different orders
+ * they spread out over different parts of the game tree. The answer comes from
+ * whichever thread finishes first, and the others are stopped.
+ */
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ParallelConnectFourSolver {
+
+    /**
+     * How many threads are used if no number is given. It can be changed with the
+     * "connect4.threads" system property.
+     */
+    public static final int DEFAULT_THREAD_COUNT = Integer.getInteger("connect4.threads", Runtime.getRuntime().availableProcessors());
+
+    private final TranspositionTable table;
+    private final ConnectFourSolver[] solvers;
+    private final ExecutorService threads;
+
+    // this is set to stop a search early (for example, when the position changes)
+    private volatile boolean isStopped;
+
+    // how many times stop() has been called (see ConnectFourSolver.getStopCount())
+    private final AtomicInteger stopCount = new AtomicInteger();
+
+    public ParallelConnectFourSolver() {
+        this(DEFAULT_THREAD_COUNT, ConnectFourSolver.DEFAULT_TABLE_SIZE_MB);
+    }
+
+    /**
+     * Makes a solver that uses a number of threads and a new table.
+     *
+     * @param threadCount how many threads to search with
+     * @param tableSizeMB how big the shared table is (in MB)
+     */
+    public ParallelConnectFourSolver(int threadCount, int tableSizeMB) {
+        this(threadCount, new TranspositionTable(tableSizeMB));
+    }
+
+    /**
+     * Makes a solver that uses a number of threads and an existing table.
+     *
+     * @param threadCount how many threads to search with
+     * @param table the table shared by every thread
+     */
+    public ParallelConnectFourSolver(int threadCount, TranspositionTable table) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("There has to be at least 1 thread, not " + threadCount);
+        }
+
+        this.table = table;
+        solvers = new ConnectFourSolver[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            solvers[i] = new ConnectFourSolver(table, i);
+        }
+
+        threads = Executors.newFixedThreadPool(threadCount, r -> {
+            Thread thread = new Thread(r, "Connect 4 solver helper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Finds the score of a position with perfect play from both players. The score
+     * is the same as the one from ConnectFourSolver.solve().
+     *
+     * @param board the position to solve (it isn't changed)
+     */
+    public int solve(ConnectFourBoard board) {
+        return solve(board.getCurrentDisks(), board.getMask(), board.getMoveCount());
+    }
+
+    /**
+     * Finds the score of a position with perfect play from both players.
+     *
+     * @param current the disks of the player whose turn it is
+     * @param mask every disk on the board
+     * @param moveCount how many disks are on the board
+     */
+    public int solve(long current, long mask, int moveCount) {
+        return solve(current, mask, moveCount, getStopCount());
+    }
+
+    /**
+     * Finds the score of a position with perfect play from both players, unless
+     * stop() was called after the search was asked for.
+     *
+     * @param current the disks of the player whose turn it is
+     * @param mask every disk on the board
+     * @param moveCount how many disks are on the board
+     * @param stopCount getStopCount() from when the search was asked for
+     */
+    public int solve(long current, long mask, int moveCount, int stopCount) {
+        // stop() stops this solver before the helpers, so if it isn't stopped yet,
+        // a stop() now will still change the helpers' counts after they're read
+        int[] helperStopCounts = new int[solvers.length];
+        for (int i = 0; i < solvers.length; i++) {
+            helperStopCounts[i] = solvers[i].getStopCount();
+        }
+        isStopped = false;
+        if (this.stopCount.get() != stopCount) {
+            isStopped = true;
+            return 0;
+        }
+
+        // one thread doesn't need the thread pool
+        if (solvers.length == 1) {
+            return solvers[0].solve(current, mask, moveCount, helperStopCounts[0]);
+        }
+
+        CompletionService<Integer> results = new ExecutorCompletionService<>(threads);
+        List<Future<Integer>> searches = new ArrayList<>();
+        for (int i = 0; i < solvers.length; i++) {
+            ConnectFourSolver solver = solvers[i];
+            int helperStopCount = helperStopCounts[i];
+            searches.add(results.submit(() -> solver.solve(current, mask, moveCount, helperStopCount)));
+        }
+
+        int score = 0;
+        try {
+            // take the first search that finished without being stopped
+            for (int i = 0; i < searches.size(); i++) {
+                Future<Integer> search = results.take();
+                if (!isStopped) {
+                    score = search.get();
+                    break;
+                }
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            isStopped = true;
+        }
+        catch (ExecutionException ex) {
+            throw new IllegalStateException("A solver thread failed", ex.getCause());
+        }
+        finally {
+            stopHelpers(searches);
+        }
+
+        return score;
+    }
+
+    /**
+     * Stops every solver thread and waits for them to finish, so they don't keep
+     * running into the next search.
+     */
+    private void stopHelpers(List<Future<Integer>> searches) {
+        for (Future<Integer> search : searches) {
+            // a search that hasn't started yet never will
+            search.cancel(false);
+
+            while (!search.isDone()) {
+                // a solver that was just starting could have missed the first stop,
+                // so keep stopping them until the search is done
+                for (ConnectFourSolver solver : solvers) {
+                    solver.stop();
+                }
+                try {
+                    search.get(10, TimeUnit.MILLISECONDS);
+                }
+                catch (TimeoutException | ExecutionException ex) {
+                    // the search is still running or failed, either way keep waiting until it's done
+                }
+                catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops the search that's running. solve() returns right away, and the score
+     * it returns should be ignored.
+     */
+    public void stop() {
+        stopCount.incrementAndGet();
+        isStopped = true;
+        for (ConnectFourSolver solver : solvers) {
+            solver.stop();
+        }
+    }
+
+    public boolean isStopped() {
+        return isStopped;
+    }
+
+    /**
+     * Returns how many times stop() has been called. A search that's queued to run
+     * later should be passed this from when it was queued, so a stop() made before
+     * it starts isn't lost.
+     */
+    public int getStopCount() {
+        return stopCount.get();
+    }
+
+    /**
+     * Returns how many positions every thread has searched in total.
+     */
+    public long getNodes() {
+        long nodes = 0;
+        for (ConnectFourSolver solver : solvers) {
+            nodes += solver.getNodes();
+        }
+        return nodes;
+    }
+
+    public int getThreadCount() {
+        return solvers.length;
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    /**
+     * Stops the solver's threads. The solver can't be used after this.
+     */
+    public void shutdown() {
+        stop();
+        threads.shutdownNow();
+    }
+}
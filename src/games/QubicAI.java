@@ -0,0 +1,418 @@
+package games;
+
+/**
+ * This class is the computer opponent for Qubic (4x4x4 tic tac toe).
+ *
+ * It uses negamax with alpha-beta pruning, looking one move deeper each time until
+ * it runs out of time, like ConnectFourAI. Qubic has up to 64 moves to pick from
+ * instead of 7, so it also needs:
+ *  - a transposition table, so positions reached by playing the same moves in a
+ *    different order are only searched once, and the best move found for a position
+ *    is tried first the next time it's searched.
+ *  - forced moves: if the other player has 3 in a line, the only move worth looking
+ *    at is the block (and two lines like that is a loss). Forced moves don't count
+ *    towards the depth, so long chains of threats are followed to the end.
+ *  - a history table of moves that caused cutoffs, to try good moves first.
+ * Every line check is an AND and a bit count on the players' longs.
+ */
+import java.util.Arrays;
+
+public class QubicAI {
+
+    /**
+     * How well the computer plays: how many moves ahead it looks, and how long it can
+     * take to pick a move.
+     */
+    public enum Difficulty {
+        EASY("Easy", 1, 200),
+        MEDIUM("Medium", 3, 1000),
+        HARD("Hard", QubicBoard.CELLS, 3000);
+
+        private final String name;
+        private final int maxDepth;
+        private final long timeLimitMillis;
+
+        Difficulty(String name, int maxDepth, long timeLimitMillis) {
+            this.name = name;
+            this.maxDepth = maxDepth;
+            this.timeLimitMillis = timeLimitMillis;
+        }
+
+        public int getMaxDepth() {
+            return maxDepth;
+        }
+
+        public long getTimeLimitMillis() {
+            return timeLimitMillis;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    // the score of a win (a win sooner is worth a little more than a win later)
+    private static final int WIN_SCORE = 10000;
+
+    // what a line is worth with 0 to 3 of one player's letters and none of the other's
+    private static final int[] LINE_VALUES = {0, 1, 8, 64};
+
+    // how many nodes are searched between checks of the clock
+    private static final int NODES_PER_TIME_CHECK = 4096;
+
+    private static final long[] LINES = new long[QubicBoard.LINE_COUNT];
+
+    // the cells in the order they're tried when nothing better is known: the cells
+    // on 7 lines (the corners and the middle of the cube) first
+    private static final int[] CELL_ORDER = new int[QubicBoard.CELLS];
+
+    static {
+        for (int i = 0; i < LINES.length; i++) {
+            LINES[i] = QubicBoard.getLine(i);
+        }
+
+        int index = 0;
+        for (int lineCount = 7; lineCount >= 0; lineCount--) {
+            for (int cell = 0; cell < QubicBoard.CELLS; cell++) {
+                if (QubicBoard.getLineCount(cell) == lineCount) {
+                    CELL_ORDER[index++] = cell;
+                }
+            }
+        }
+    }
+
+    // the transposition table: the key of each position (see getKey()) and its entry,
+    // which holds the score, the depth it was searched to, what kind of score it is,
+    // and the best move
+    private static final int TABLE_BITS = 20;
+    private static final int EXACT = 1, LOWER_BOUND = 2, UPPER_BOUND = 3;
+    private final long[] tableKeys = new long[1 << TABLE_BITS];
+    private final int[] tableEntries = new int[1 << TABLE_BITS];
+
+    // how many cutoffs each cell has caused in this search, to try those cells earlier
+    private final int[] history = new int[QubicBoard.CELLS];
+
+    // the moves of each position being searched, by how many letters are on the
+    // board, so no arrays are made during a search
+    private final int[][] moveLists = new int[QubicBoard.CELLS + 1][QubicBoard.CELLS];
+
+    // the number of positions looked at in the last search
+    private long nodes;
+
+    // when the current search has to stop (from System.nanoTime())
+    private long deadline;
+    private boolean isOutOfTime;
+
+    // this is set to stop the current search early
+    private volatile boolean isStopped = false;
+
+    // stats about the last search
+    private int lastDepth;
+    private long lastNanos;
+
+    /**
+     * Finds the best cell for the player whose turn it is.
+     *
+     * @param position the board to search (it isn't changed)
+     * @param difficulty how deep and how long to search
+     * @return the cell to play in, or -1 if the game is over
+     */
+    public int findMove(QubicBoard position, Difficulty difficulty) {
+        return findMove(position, difficulty.getMaxDepth(), difficulty.getTimeLimitMillis());
+    }
+
+    /**
+     * Finds the best cell for the player whose turn it is.
+     *
+     * @param position the board to search (it isn't changed)
+     * @param maxDepth how many moves ahead to look at most
+     * @param timeLimitMillis how long the search can take
+     * @return the cell to play in, or -1 if the game is over
+     */
+    public int findMove(QubicBoard position, int maxDepth, long timeLimitMillis) {
+        long startTime = System.nanoTime();
+        deadline = startTime + timeLimitMillis * 1000000L;
+        isOutOfTime = false;
+        isStopped = false;
+        nodes = 0;
+        lastDepth = 0;
+        Arrays.fill(history, 0);
+
+        QubicBoard board = new QubicBoard(position);
+        if (board.isGameOver()) {
+            return -1;
+        }
+
+        int player = board.getCurrentPlayer();
+        long mine = board.getLetters(player);
+        long theirs = board.getLetters(3 - player);
+
+        // win right away, or block a line the other player is about to finish
+        long wins = getWinningCells(mine, theirs);
+        if (wins != 0) {
+            lastNanos = System.nanoTime() - startTime;
+            return Long.numberOfTrailingZeros(wins);
+        }
+        long threats = getWinningCells(theirs, mine);
+        if (threats != 0) {
+            lastNanos = System.nanoTime() - startTime;
+            return Long.numberOfTrailingZeros(threats);
+        }
+
+        int[] moves = new int[QubicBoard.CELLS];
+        int moveCount = orderMoves(board.getEmptyCells(), -1, moves);
+        int bestCell = moves[0];
+
+        // look one move deeper each time
+        int depthLimit = Math.min(maxDepth, QubicBoard.CELLS - board.getMoveCount());
+        for (int depth = 1; depth <= depthLimit; depth++) {
+            int alpha = -WIN_SCORE - 1;
+            int depthBestCell = -1;
+
+            for (int i = 0; i < moveCount; i++) {
+                board.play(moves[i]);
+                int score = -negamax(board, depth - 1, -WIN_SCORE - 1, -alpha);
+                board.undo(moves[i]);
+
+                if (isOutOfTime) {
+                    break;
+                }
+                if (score > alpha) {
+                    alpha = score;
+                    depthBestCell = moves[i];
+                }
+            }
+
+            // only use the results of searches that finished
+            if (isOutOfTime) {
+                break;
+            }
+            bestCell = depthBestCell;
+            lastDepth = depth;
+
+            // there's no point looking deeper once a win or loss has been found
+            if (Math.abs(alpha) > WIN_SCORE - 100) {
+                break;
+            }
+
+            // search the best cell first next time
+            moveToFront(moves, moveCount, bestCell);
+        }
+
+        lastNanos = System.nanoTime() - startTime;
+        return bestCell;
+    }
+
+    /**
+     * Stops the search that's running. It returns the best move it's finished looking at.
+     */
+    public void stop() {
+        isStopped = true;
+    }
+
+    /**
+     * Scores a position for the player whose turn it is.
+     *
+     * @param board the position to score (it's put back the way it was)
+     * @param depth how many more moves to look ahead
+     * @param alpha the score the current player is already guaranteed
+     * @param beta the score the other player is already guaranteed
+     */
+    private int negamax(QubicBoard board, int depth, int alpha, int beta) {
+        nodes++;
+        if ((nodes % NODES_PER_TIME_CHECK) == 0 && (isStopped || System.nanoTime() > deadline)) {
+            isOutOfTime = true;
+        }
+        if (isOutOfTime) {
+            return 0;
+        }
+
+        if (board.isFull()) {
+            return 0;
+        }
+
+        int player = board.getCurrentPlayer();
+        long mine = board.getLetters(player);
+        long theirs = board.getLetters(3 - player);
+
+        // if the current player can win right away, they will
+        if (getWinningCells(mine, theirs) != 0) {
+            return WIN_SCORE - board.getMoveCount();
+        }
+
+        // if the other player can win in two places, only one can be blocked. If
+        // they can win in one place, it has to be blocked.
+        long threats = getWinningCells(theirs, mine);
+        if (Long.bitCount(threats) > 1) {
+            return -(WIN_SCORE - board.getMoveCount() - 1);
+        }
+        if (depth <= 0 && threats == 0) {
+            return evaluate(mine, theirs);
+        }
+
+        // the table might already know the score, and it knows the best move to try first
+        long key = getKey(board.getLetters(1), board.getLetters(2));
+        int slot = (int) (key >>> (64 - TABLE_BITS));
+        int tableMove = -1;
+        if (tableKeys[slot] == key && tableEntries[slot] != 0) {
+            int entry = tableEntries[slot];
+            int entryScore = (entry & 0xFFFF) - 0x8000;
+            int entryDepth = (entry >>> 16) & 0x7F;
+            int entryType = (entry >>> 23) & 3;
+            tableMove = (entry >>> 25) & 0x3F;
+
+            if (entryDepth >= depth && (entryType == EXACT
+                    || entryType == LOWER_BOUND && entryScore >= beta
+                    || entryType == UPPER_BOUND && entryScore <= alpha)) {
+                return entryScore;
+            }
+        }
+
+        int[] moves = moveLists[board.getMoveCount()];
+        int moveCount;
+        if (threats != 0) {
+            // a block doesn't count towards the depth, since it's the only move
+            moves[0] = Long.numberOfTrailingZeros(threats);
+            moveCount = 1;
+            depth++;
+        }
+        else {
+            moveCount = orderMoves(board.getEmptyCells(), tableMove, moves);
+        }
+
+        int startAlpha = alpha;
+        int bestScore = -WIN_SCORE - 1;
+        int bestMove = moves[0];
+        for (int i = 0; i < moveCount; i++) {
+            board.play(moves[i]);
+            int score = -negamax(board, depth - 1, -beta, -alpha);
+            board.undo(moves[i]);
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = moves[i];
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+            if (alpha >= beta) {
+                history[moves[i]] += depth * depth;
+                break;
+            }
+        }
+
+        if (isOutOfTime) {
+            return 0;
+        }
+
+        int type = bestScore <= startAlpha ? UPPER_BOUND : bestScore >= beta ? LOWER_BOUND : EXACT;
+        tableKeys[slot] = key;
+        tableEntries[slot] = (bestScore + 0x8000) | Math.min(depth, 0x7F) << 16 | type << 23 | bestMove << 25;
+        return bestScore;
+    }
+
+    /**
+     * Returns the empty cells that would finish a line for a player (lines where they
+     * have 3 letters and the other player has none).
+     */
+    private static long getWinningCells(long mine, long theirs) {
+        long cells = 0;
+        for (long line : LINES) {
+            if ((line & theirs) == 0 && Long.bitCount(line & mine) == 3) {
+                cells |= line & ~mine;
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Scores a position without looking ahead: every line that only one player has
+     * letters in is worth more the more letters they have in it.
+     */
+    private static int evaluate(long mine, long theirs) {
+        int score = 0;
+        for (long line : LINES) {
+            if ((line & theirs) == 0) {
+                score += LINE_VALUES[Long.bitCount(line & mine)];
+            }
+            else if ((line & mine) == 0) {
+                score -= LINE_VALUES[Long.bitCount(line & theirs)];
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Puts the empty cells in the order they should be searched: the table's move
+     * first, then the cells that caused the most cutoffs, then CELL_ORDER.
+     *
+     * @return how many cells there are
+     */
+    private int orderMoves(long emptyCells, int firstMove, int[] moves) {
+        int count = 0;
+        for (int cell : CELL_ORDER) {
+            if ((emptyCells & 1L << cell) == 0) {
+                continue;
+            }
+
+            // insertion sort by history (there are at most 64 cells)
+            int i = count++;
+            while (i > 0 && history[moves[i - 1]] < history[cell]) {
+                moves[i] = moves[i - 1];
+                i--;
+            }
+            moves[i] = cell;
+        }
+
+        if (firstMove != -1 && (emptyCells & 1L << firstMove) != 0) {
+            moveToFront(moves, count, firstMove);
+        }
+        return count;
+    }
+
+    /**
+     * Moves a cell to the front of the search order, keeping the rest in the same order.
+     */
+    private static void moveToFront(int[] moves, int count, int cell) {
+        int index = 0;
+        while (index < count - 1 && moves[index] != cell) {
+            index++;
+        }
+        for (int i = index; i > 0; i--) {
+            moves[i] = moves[i - 1];
+        }
+        moves[0] = cell;
+    }
+
+    /**
+     * Mixes both players' letters into one number for the transposition table.
+     */
+    private static long getKey(long letters1, long letters2) {
+        long key = letters1 * 0x9E3779B97F4A7C15L + Long.rotateLeft(letters2, 29) * 0xC2B2AE3D27D4EB4FL;
+        key ^= key >>> 31;
+        key *= 0xBF58476D1CE4E5B9L;
+        return key ^ key >>> 29;
+    }
+
+    /**
+     * Returns how many positions the last search looked at.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns how many moves ahead the last search finished looking.
+     */
+    public int getLastDepth() {
+        return lastDepth;
+    }
+
+    /**
+     * Returns how many positions the last search looked at per second.
+     */
+    public double getNodesPerSecond() {
+        return lastNanos == 0 ? 0 : nodes * 1e9 / lastNanos;
+    }
+}
@@ -0,0 +1,262 @@
+package games;
+
+/**
+ * This class stores the state of a game of Qubic (4x4x4 tic tac toe) without any
+ * JavaFX, so the computer can search it on any thread. Player 1 is X and player 2
+ * is O.
+ *
+ * The cube has 64 cells, so each player's letters fit in one long: cell
+ * layer * 16 + row * 4 + column is that bit of the long. Every way to get 4 in a
+ * row (across a layer, straight down through the layers, or diagonally through the
+ * cube) is one of 76 lines, and each line is stored as a long with its 4 cells set.
+ * A player has a line when all 4 bits are in their long, so checking a line is a
+ * single AND.
+ */
+public class QubicBoard {
+
+    /**
+     * The number of layers, rows, and columns of the cube.
+     */
+    public static final int SIZE = 4;
+
+    /**
+     * The number of cells in the cube.
+     */
+    public static final int CELLS = SIZE * SIZE * SIZE;
+
+    /**
+     * The number of ways to get 4 in a row.
+     */
+    public static final int LINE_COUNT = 76;
+
+    // the cells of every line as bits
+    private static final long[] LINES = new long[LINE_COUNT];
+
+    // the lines going through each cell (3 to 7 of them)
+    private static final long[][] LINES_THROUGH = new long[CELLS][];
+
+    static {
+        // every direction a line can go in, counting each direction and its opposite once
+        int lineCount = 0;
+        for (int dLayer = -1; dLayer <= 1; dLayer++) {
+            for (int dRow = -1; dRow <= 1; dRow++) {
+                for (int dColumn = -1; dColumn <= 1; dColumn++) {
+                    boolean isForward = dLayer > 0 || dLayer == 0 && (dRow > 0 || dRow == 0 && dColumn > 0);
+                    if (!isForward) {
+                        continue;
+                    }
+
+                    // every cell the line can start in and still fit in the cube
+                    for (int cell = 0; cell < CELLS; cell++) {
+                        int endLayer = getLayer(cell) + 3 * dLayer;
+                        int endRow = getRow(cell) + 3 * dRow;
+                        int endColumn = getColumn(cell) + 3 * dColumn;
+                        if (isInCube(endLayer) && isInCube(endRow) && isInCube(endColumn)) {
+                            long line = 0;
+                            for (int i = 0; i < SIZE; i++) {
+                                line |= 1L << getCell(getLayer(cell) + i * dLayer, getRow(cell) + i * dRow, getColumn(cell) + i * dColumn);
+                            }
+                            LINES[lineCount++] = line;
+                        }
+                    }
+                }
+            }
+        }
+
+        for (int cell = 0; cell < CELLS; cell++) {
+            int count = 0;
+            for (long line : LINES) {
+                if ((line & 1L << cell) != 0) {
+                    count++;
+                }
+            }
+            LINES_THROUGH[cell] = new long[count];
+            count = 0;
+            for (long line : LINES) {
+                if ((line & 1L << cell) != 0) {
+                    LINES_THROUGH[cell][count++] = line;
+                }
+            }
+        }
+    }
+
+    // the letters of each player as bits ([player - 1])
+    private final long[] letters = new long[2];
+
+    private int moveCount;
+
+    // the player who won and the line they won with, or -1 and 0 if nobody has won yet
+    private int winner;
+    private long winningLine;
+
+    public QubicBoard() {
+        reset();
+    }
+
+    /**
+     * Makes a copy of another board.
+     */
+    public QubicBoard(QubicBoard other) {
+        letters[0] = other.letters[0];
+        letters[1] = other.letters[1];
+        moveCount = other.moveCount;
+        winner = other.winner;
+        winningLine = other.winningLine;
+    }
+
+    /**
+     * Empties every cell and makes it player 1's turn.
+     */
+    public void reset() {
+        letters[0] = 0;
+        letters[1] = 0;
+        moveCount = 0;
+        winner = -1;
+        winningLine = 0;
+    }
+
+    /**
+     * Puts the current player's letter in a cell and makes it the other player's turn.
+     *
+     * @param cell the cell (layer * 16 + row * 4 + column), which must be empty
+     * @return true if the move won the game
+     */
+    public boolean play(int cell) {
+        int player = getCurrentPlayer();
+        long playerLetters = letters[player - 1] |= 1L << cell;
+        moveCount++;
+
+        // only the lines going through the new letter can have been finished
+        for (long line : LINES_THROUGH[cell]) {
+            if ((playerLetters & line) == line) {
+                winner = player;
+                winningLine = line;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Empties a cell, undoing the last move (which has to be the move in that cell).
+     *
+     * @param cell the cell (layer * 16 + row * 4 + column)
+     */
+    public void undo(int cell) {
+        moveCount--;
+        letters[getCurrentPlayer() - 1] &= ~(1L << cell);
+        winner = -1;
+        winningLine = 0;
+    }
+
+    /**
+     * Returns which player is in a cell: 1, 2, or -1 if it's empty.
+     *
+     * @param cell the cell (layer * 16 + row * 4 + column)
+     */
+    public int getPlayer(int cell) {
+        if ((letters[0] & 1L << cell) != 0) {
+            return 1;
+        }
+        if ((letters[1] & 1L << cell) != 0) {
+            return 2;
+        }
+        return -1;
+    }
+
+    public boolean isEmpty(int cell) {
+        return ((letters[0] | letters[1]) & 1L << cell) == 0;
+    }
+
+    /**
+     * Returns a player's letters as bits.
+     *
+     * @param player 1 or 2
+     */
+    public long getLetters(int player) {
+        return letters[player - 1];
+    }
+
+    /**
+     * Returns the empty cells as bits.
+     */
+    public long getEmptyCells() {
+        return ~(letters[0] | letters[1]);
+    }
+
+    /**
+     * Returns the player whose turn it is (1 or 2).
+     */
+    public int getCurrentPlayer() {
+        return (moveCount & 1) + 1;
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Returns the player who won, or -1 if nobody has won.
+     */
+    public int getWinner() {
+        return winner;
+    }
+
+    /**
+     * Returns the cells of the winning line as bits, or 0 if nobody has won.
+     */
+    public long getWinningLine() {
+        return winningLine;
+    }
+
+    /**
+     * Returns whether every cell has a letter in it.
+     */
+    public boolean isFull() {
+        return moveCount == CELLS;
+    }
+
+    /**
+     * Returns whether the game is over because someone won or the cube is full.
+     */
+    public boolean isGameOver() {
+        return winner != -1 || isFull();
+    }
+
+    /**
+     * Returns the cells of one of the 76 lines as bits.
+     *
+     * @param index which line, from 0 to LINE_COUNT - 1
+     */
+    public static long getLine(int index) {
+        return LINES[index];
+    }
+
+    /**
+     * Returns how many lines go through a cell. The 8 corners and the 8 cells in the
+     * middle of the cube have 7, and every other cell has 4.
+     */
+    public static int getLineCount(int cell) {
+        return LINES_THROUGH[cell].length;
+    }
+
+    public static int getCell(int layer, int row, int column) {
+        return layer * SIZE * SIZE + row * SIZE + column;
+    }
+
+    public static int getLayer(int cell) {
+        return cell / (SIZE * SIZE);
+    }
+
+    public static int getRow(int cell) {
+        return cell / SIZE % SIZE;
+    }
+
+    public static int getColumn(int cell) {
+        return cell % SIZE;
+    }
+
+    private static boolean isInCube(int coordinate) {
+        return coordinate >= 0 && coordinate < SIZE;
+    }
+}
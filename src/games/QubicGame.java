@@ -0,0 +1,465 @@
+package games;
+
+/**
+ * This class provides the logic and design of Qubic, which is tic tac toe in a
+ * 4x4x4 cube. The cube is shown as its 4 layers side by side, and a line of 4 can
+ * go across a layer or through the layers (straight or diagonally).
+ */
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javafx.animation.FadeTransition;
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
+import javafx.scene.input.KeyCode;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.StackPane;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.text.Font;
+import javafx.util.Duration;
+
+public class QubicGame {
+
+    // this stores the state of the game (if it's still going or not)
+    private boolean isGameRunning;
+
+    // scores for each player (how many games they've won)
+    private int player1Score = 0, player2Score = 0;
+
+    // this goes back to the game selector screen
+    private Button btnHome = new Button("Home");
+
+    // switches player 2 between a person and the computer
+    private Button btnOpponent = new Button("Opponent: Player 2");
+
+    // chooses how long the computer thinks
+    private ComboBox<QubicAI.Difficulty> cbDifficulty = new ComboBox<>();
+
+    // the computer opponent plays O. It searches on its own thread so the window
+    // doesn't freeze while it thinks. The thread is shared by every QubicGame, so
+    // opening the game again doesn't start another one.
+    private QubicAI ai = new QubicAI();
+    private QubicAI.Difficulty difficulty = QubicAI.Difficulty.MEDIUM;
+    private boolean isComputerOpponent = false;
+    private static final ExecutorService aiThread = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Qubic AI");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // this is true while the computer is looking for a move, clicks are ignored until it's done
+    private boolean isComputerThinking = false;
+
+    // this goes up every game so a move the computer found for an old game isn't played
+    private int gameNumber = 0;
+
+    // this displays the scores
+    private Label lblScore = new Label();
+
+    // this displays whose turn it is
+    private Label lblInfo1 = new Label();
+
+    // this displays who won or if the game was a tie
+    private Label lblInfo2 = new Label();
+
+    // displays how deep the computer searched and how fast (nodes per second)
+    private Label lblEngine = new Label();
+
+    // contains the options on top, the layers of the cube, and the HUD on the bottom
+    private VBox masterPane = new VBox();
+
+    // this stores Cell data (by cell number, see QubicBoard)
+    private Cell[] cells = new Cell[QubicBoard.CELLS];
+
+    // ...and these display the Cells, one GridPane for each layer
+    private GridPane[] layerBoards = new GridPane[QubicBoard.SIZE];
+    private HBox layersHBox = new HBox();
+
+    // stores which player is in each Cell and checks for a winner
+    // the Cells only display what's stored here.
+    private QubicBoard board = new QubicBoard();
+
+    // the winning Cells flash until the next game
+    private FadeTransition[] winAnimations = new FadeTransition[0];
+
+    private Scene masterScene = new Scene(masterPane, 560, 300);
+
+    /**
+     * Initializes the instance variables
+     *
+     * @param selector the stage to put everything in
+     */
+    public Scene startClass(GameSelector selector) {
+        masterPane.setAlignment(Pos.CENTER);
+        masterPane.setSpacing(7);
+
+        // each layer has a label above it
+        layersHBox.setAlignment(Pos.CENTER);
+        layersHBox.setSpacing(15);
+        // startClass is called again every time the game is opened, so remove the old layers first
+        layersHBox.getChildren().clear();
+        for (int layer = 0; layer < QubicBoard.SIZE; layer++) {
+            layerBoards[layer] = new GridPane();
+            layerBoards[layer].setAlignment(Pos.CENTER);
+            layerBoards[layer].setPadding(new Insets(2, 2, 2, 2));
+            layerBoards[layer].setGridLinesVisible(true);
+
+            VBox layerVBox = new VBox(3, new Label("Layer " + (layer + 1)), layerBoards[layer]);
+            layerVBox.setAlignment(Pos.CENTER);
+            layersHBox.getChildren().add(layerVBox);
+        }
+
+        masterScene.widthProperty().addListener(e -> {
+            draw();
+        });
+        masterScene.heightProperty().addListener(e -> {
+            draw();
+        });
+
+        masterPane.requestFocus();
+
+        // allow the user to reset the game by pressing enter.
+        masterPane.setOnKeyReleased(e -> {
+            if (!(isGameRunning) && e.getCode() == KeyCode.ENTER) {
+                beginGame();
+            }
+        });
+
+        btnHome.setOnAction(e -> selector.draw());
+
+        // changing the opponent starts a new game
+        btnOpponent.setOnAction(e -> {
+            isComputerOpponent = !isComputerOpponent;
+            btnOpponent.setText(isComputerOpponent ? "Opponent: Computer" : "Opponent: Player 2");
+            beginGame();
+        });
+
+        cbDifficulty.getItems().setAll(QubicAI.Difficulty.values());
+        cbDifficulty.setValue(difficulty);
+        cbDifficulty.setOnAction(e -> difficulty = cbDifficulty.getValue());
+
+        // start the game
+        beginGame();
+
+        return masterScene;
+    }
+
+    /**
+     * Initializes the game before it starts and is used to reset the game after
+     * it finishes.
+     */
+    public void beginGame() {
+        board.reset();
+
+        // stop the last game's winning Cells flashing
+        for (FadeTransition animation : winAnimations) {
+            animation.stop();
+        }
+        winAnimations = new FadeTransition[0];
+
+        // make the Cells of every layer
+        for (GridPane layerBoard : layerBoards) {
+            layerBoard.getChildren().clear();
+        }
+        for (int cell = 0; cell < QubicBoard.CELLS; cell++) {
+            cells[cell] = new Cell(cell);
+            cells[cell].setAlignment(Pos.CENTER);
+            layerBoards[QubicBoard.getLayer(cell)].add(cells[cell], QubicBoard.getColumn(cell), QubicBoard.getRow(cell));
+        }
+
+        if (Settings.doSaveDataPermanently) {
+            // read in scores from a file.
+            try {
+                // this is for testing the app in NetBeans.
+                File saveFile = new File("src/games", "qubic save file.txt");
+
+                // read in each player's scores from a file
+                try (FileInputStream inFile = new FileInputStream(saveFile); ObjectInputStream inObj = new ObjectInputStream(inFile)) {
+                    int temp1 = inObj.readInt();
+                    int temp2 = inObj.readInt();
+
+                    // update the scores in the file if the in-game scores are higher
+                    if (player1Score > temp1 || player2Score > temp2) {
+                        saveGame();
+                    }
+                    else {
+                        player1Score = temp1;
+                        player2Score = temp2;
+                    }
+                }
+            }
+            catch (EOFException ex) {
+                System.out.println("End of file reached: There is no data in the save file to be read.");
+            }
+            catch (IOException ex) {
+                System.out.println("An error occurred while reading from the file.");
+                ex.printStackTrace();
+            }
+        }
+        // override saved data
+        else if (Settings.dontSaveData) {
+            deleteSaveData();
+        }
+
+        lblScore.setText("Player 1:   " + player1Score + "\t\t" + getPlayer2Name() + ":   " + player2Score);
+        // make it player 1's turn
+        lblInfo1.setText("X - Player 1's turn");
+        lblInfo2.setText("");
+        lblEngine.setText("");
+        isGameRunning = true;
+        isComputerThinking = false;
+        gameNumber++;
+        ai.stop();
+
+        draw();
+    }
+
+    /**
+     * Draws everything on the window.
+     */
+    private void draw() {
+        // clear the window
+        masterPane.getChildren().clear();
+
+        // the 4 layers are side by side, so the cells have to fit 16 across
+        double cellSize = Math.min(masterPane.getWidth() / 22.0, masterPane.getHeight() / 9.0);
+
+        Font infoFont = Font.font(lblInfo1.getFont().getFamily(), Math.min(Math.max(cellSize / 2.0, 10), 17));
+        lblScore.setFont(infoFont);
+        lblInfo1.setFont(infoFont);
+        lblInfo2.setFont(infoFont);
+
+        // reset the size of the cells
+        for (Cell cell : cells) {
+            cell.setSize(cellSize);
+        }
+
+        // the HBox at the top contains the home button and the opponent options
+        HBox optionsHBox = new HBox();
+        optionsHBox.setAlignment(Pos.CENTER);
+        optionsHBox.setSpacing(5);
+        cbDifficulty.setDisable(!isComputerOpponent);
+        optionsHBox.getChildren().addAll(btnHome, btnOpponent, cbDifficulty);
+
+        masterPane.getChildren().addAll(optionsHBox, lblScore, layersHBox, lblInfo1, lblInfo2);
+        if (isComputerOpponent) {
+            masterPane.getChildren().add(lblEngine);
+        }
+    }
+
+    /**
+     * When a player clicks on a Cell, this method puts their letter in it if it's
+     * empty, and then checks for a win or a tie.
+     *
+     * @param cell the cell the user clicked on (layer * 16 + row * 4 + column)
+     */
+    private void placeLetter(int cell) {
+
+        // clicks are ignored while the computer is thinking or after the game is over
+        if (!isGameRunning || isComputerThinking) {
+            return;
+        }
+
+        // alert the user if they try to go in a Cell that isn't empty
+        if (!board.isEmpty(cell)) {
+            if (!(lblInfo2.getText().contains("Cannot go there"))) {
+                lblInfo2.setText("Cannot go there");
+            }
+            return;
+        }
+        lblInfo2.setText("");
+
+        int player = board.getCurrentPlayer();
+        cells[cell].setLetter(player);
+
+        // if someone won, stop the game
+        if (board.play(cell)) {
+            animateWinningCells(board.getWinningLine());
+            if (player == 1) {
+                player1Score++;
+            }
+            else {
+                player2Score++;
+            }
+
+            lblInfo1.setText((player == 1 ? "X - Player 1" : "O - " + getPlayer2Name()) + " won!");
+            lblInfo2.setText("Press ENTER to play another game");
+            lblScore.setText("Player 1:   " + player1Score + "\t\t" + getPlayer2Name() + ":   " + player2Score);
+            if (Settings.doSaveDataPermanently) {
+                saveGame();
+            }
+            isGameRunning = false;
+        }
+
+        // if every Cell is full, it's a tie
+        else if (board.isFull()) {
+            lblInfo1.setText("It's a tie!");
+            lblInfo2.setText("Press ENTER to play another game");
+            if (Settings.doSaveDataPermanently) {
+                saveGame();
+            }
+            isGameRunning = false;
+        }
+
+        // otherwise, change turns
+        else if (board.getCurrentPlayer() == 1) {
+            lblInfo1.setText("X - Player 1's turn");
+        }
+        else {
+            lblInfo1.setText("O - " + getPlayer2Name() + "'s turn");
+        }
+
+        // if it's the computer's turn now, let it find a move
+        if (isGameRunning && isComputerOpponent && board.getCurrentPlayer() == 2) {
+            startComputerTurn();
+        }
+    }
+
+    /**
+     * Starts searching for the computer's move on the AI thread. When the search
+     * is done, the move is played on the JavaFX Application Thread.
+     */
+    private void startComputerTurn() {
+        isComputerThinking = true;
+        lblInfo2.setText("Computer is thinking...");
+
+        // the search gets its own copy of the board so it doesn't change while it's running
+        QubicBoard position = new QubicBoard(board);
+        QubicAI.Difficulty searchDifficulty = difficulty;
+        int searchGameNumber = gameNumber;
+
+        aiThread.submit(() -> {
+            int cell = ai.findMove(position, searchDifficulty);
+            String stats = String.format("Searched %d moves ahead - %,.0f nodes/sec", ai.getLastDepth(), ai.getNodesPerSecond());
+
+            Platform.runLater(() -> {
+                // ignore the move if a new game was started while the computer was thinking
+                if (searchGameNumber == gameNumber && isGameRunning && cell != -1) {
+                    isComputerThinking = false;
+                    lblEngine.setText(stats);
+                    placeLetter(cell);
+                }
+            });
+        });
+    }
+
+    /**
+     * After someone won, flash the cells that won.
+     *
+     * @param line the winning cells as bits
+     */
+    private void animateWinningCells(long line) {
+        winAnimations = new FadeTransition[Long.bitCount(line)];
+        for (int i = 0; i < winAnimations.length; i++) {
+            int cell = Long.numberOfTrailingZeros(line);
+            line &= line - 1;
+
+            winAnimations[i] = new FadeTransition(Duration.seconds(0.5), cells[cell]);
+            winAnimations[i].setCycleCount(FadeTransition.INDEFINITE);
+            winAnimations[i].setAutoReverse(true);
+            winAnimations[i].setFromValue(1);
+            winAnimations[i].setToValue(0.1);
+            winAnimations[i].play();
+        }
+    }
+
+    /**
+     * Returns the name of player 2 to display in the HUD
+     */
+    private String getPlayer2Name() {
+        return isComputerOpponent ? "Computer" : "Player 2";
+    }
+
+    /**
+     * Saves each player's score to a file
+     */
+    public void saveGame() {
+        try {
+            // this is for testing the app in NetBeans.
+            File saveFile = new File("src/games", "qubic save file.txt");
+
+            // write the player's scores to a file
+            try (FileOutputStream outFile = new FileOutputStream(saveFile); ObjectOutputStream outObj = new ObjectOutputStream(outFile)) {
+                outObj.writeInt(player1Score);
+                outObj.writeInt(player2Score);
+            }
+        }
+        catch (IOException ex) {
+            System.out.println("An error occurred while writing to the file.");
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Removes each player's score from the file
+     */
+    public static void deleteSaveData() {
+        try {
+            // this is for testing the app in NetBeans.
+            File saveFile = new File("src/games", "qubic save file.txt");
+
+            // erase the data in the save file
+            try (FileOutputStream outFile = new FileOutputStream(saveFile); ObjectOutputStream outObj = new ObjectOutputStream(outFile)) {
+                outObj.writeInt(0);
+                outObj.writeInt(0);
+            }
+        }
+        catch (IOException ex) {
+            System.out.println("An error occurred while writing to the file.");
+            ex.printStackTrace();
+        }
+    }
+
+    // this class is for each cell of the cube (it works like the Cells in tic tac toe)
+    class Cell extends StackPane {
+
+        // where the Cell is in the cube (layer * 16 + row * 4 + column)
+        private int cell;
+
+        private Rectangle background = new Rectangle(20, 20);
+
+        private Label label = new Label();
+
+        // no default constructor because the Cell NEEDS to know where it's at.
+        public Cell(int cell) {
+            this.cell = cell;
+            background.setStroke(Color.BLACK);
+            background.setFill(Color.WHITE);
+            super.getChildren().add(background);
+            super.setOnMouseClicked(e -> placeLetter(this.cell));
+        }
+
+        // this is used to put either an X or an O in the Cell
+        public void setLetter(int player) {
+            label.setText(player == 1 ? "X" : "O");
+            label.setFont(Font.font(label.getFont().getFamily(), background.getWidth() / 2.0));
+            super.getChildren().add(label);
+        }
+
+        // sets the size of the Rectangle (width and height are equal, like a square)
+        public void setSize(double size) {
+            if (size > 0) {
+                background.setWidth(size);
+                background.setHeight(size);
+
+                if (super.getChildren().size() > 1) {
+                    label.setFont(Font.font(label.getFont().getFamily(), size / 2.0));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package games;
+
+/**
+ * This class is the computer opponent for tic tac toe.
+ *
+ * Tic tac toe is small enough that every position can be solved ahead of time, so
+ * the first time this class is used it works out the perfect play score and the
+ * best moves of every position and stores them in arrays indexed by the board's
+ * base 3 index (see TicTacToeBoard.getIndex()). After that, finding a move is just
+ * an array lookup.
+ *
+ * Rotating or flipping a board doesn't change who wins, so the 8 versions of a
+ * board share one entry in the table: the one with the smallest index.
+ */
+import java.util.Random;
+
+public class TicTacToeAI {
+
+    /**
+     * How well the computer plays: the chance that it picks a move that isn't one
+     * of the best moves.
+     */
+    public enum Difficulty {
+        EASY("Easy", 0.5),
+        MEDIUM("Medium", 0.2),
+        PERFECT("Perfect", 0);
+
+        private final String name;
+        private final double mistakeChance;
+
+        Difficulty(String name, double mistakeChance) {
+            this.name = name;
+            this.mistakeChance = mistakeChance;
+        }
+
+        public double getMistakeChance() {
+            return mistakeChance;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private static final int SIZE = TicTacToeBoard.SIZE;
+    private static final int CELLS = SIZE * SIZE;
+    private static final int STATES = TicTacToeBoard.STATE_COUNT;
+
+    // the cells (as bits) of every line of 3
+    private static final int[] LINES = {
+        0b000000111, 0b000111000, 0b111000000,
+        0b001001001, 0b010010010, 0b100100100,
+        0b100010001, 0b001010100
+    };
+
+    // where each cell goes for each of the 8 rotations and flips of the board
+    private static final int[][] SYMMETRIES = makeSymmetries();
+
+    // for every board index: the index of the version of the board that's stored
+    // in the table, and which symmetry turns the board into that version
+    private static final int[] canonicalIndexes = new int[STATES];
+    private static final byte[] canonicalSymmetries = new byte[STATES];
+
+    // for every stored board: the score for the player whose turn it is (positive
+    // if they win, higher if they win sooner, negative if they lose, 0 for a draw),
+    // and the best cells as bits (in the stored board's cells)
+    private static final byte[] scores = new byte[STATES];
+    private static final short[] bestCells = new short[STATES];
+    private static final boolean[] isSolved = new boolean[STATES];
+
+    static {
+        findCanonicalIndexes();
+        solve(new int[CELLS], 0, 0);
+    }
+
+    /**
+     * Returns the cells (as bits, cell row * SIZE + column) that are the best moves
+     * for the player whose turn it is.
+     *
+     * @param board a board where the game isn't over
+     */
+    public static int getBestCells(TicTacToeBoard board) {
+        int index = board.getIndex();
+        int[] symmetry = SYMMETRIES[canonicalSymmetries[index]];
+        int canonicalBest = bestCells[canonicalIndexes[index]];
+
+        // turn the stored board's cells back into this board's cells
+        int best = 0;
+        for (int cell = 0; cell < CELLS; cell++) {
+            if ((canonicalBest & (1 << symmetry[cell])) != 0) {
+                best |= 1 << cell;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the perfect play score of a board for the player whose turn it is:
+     * positive if they win, negative if they lose, and 0 for a draw.
+     *
+     * @param board a board where the game isn't over
+     */
+    public static int getScore(TicTacToeBoard board) {
+        return scores[canonicalIndexes[board.getIndex()]];
+    }
+
+    /**
+     * Picks a cell for the player whose turn it is.
+     *
+     * @param board a board where the game isn't over
+     * @param difficulty how often the computer makes a mistake
+     * @param random used to pick between moves
+     * @return the cell as row * SIZE + column
+     */
+    public static int findMove(TicTacToeBoard board, Difficulty difficulty, Random random) {
+        return findMove(board, difficulty.getMistakeChance(), random);
+    }
+
+    /**
+     * Picks a cell for the player whose turn it is.
+     *
+     * @param board a board where the game isn't over
+     * @param mistakeChance the chance (from 0 to 1) of picking a cell that isn't one of the best
+     * @param random used to pick between moves
+     * @return the cell as row * SIZE + column
+     */
+    public static int findMove(TicTacToeBoard board, double mistakeChance, Random random) {
+        int empty = 0;
+        for (int cell = 0; cell < CELLS; cell++) {
+            if (board.isEmpty(cell / SIZE, cell % SIZE)) {
+                empty |= 1 << cell;
+            }
+        }
+
+        int best = getBestCells(board);
+        int worse = empty & ~best;
+        if (worse != 0 && random.nextDouble() < mistakeChance) {
+            return randomBit(worse, random);
+        }
+        return randomBit(best, random);
+    }
+
+    /**
+     * Returns the position of one of the bits in a number, picked at random.
+     */
+    private static int randomBit(int bits, Random random) {
+        for (int skip = random.nextInt(Integer.bitCount(bits)); skip > 0; skip--) {
+            bits &= bits - 1;
+        }
+        return Integer.numberOfTrailingZeros(bits);
+    }
+
+    /**
+     * Makes the 4 rotations of the board, with and without flipping it.
+     */
+    private static int[][] makeSymmetries() {
+        int[][] symmetries = new int[8][CELLS];
+        for (int i = 0; i < 8; i++) {
+            for (int row = 0; row < SIZE; row++) {
+                for (int column = 0; column < SIZE; column++) {
+                    int r = row;
+                    int c = column;
+
+                    // flip, then rotate a quarter turn at a time
+                    if (i >= 4) {
+                        c = SIZE - 1 - c;
+                    }
+                    for (int turn = 0; turn < i % 4; turn++) {
+                        int temp = r;
+                        r = c;
+                        c = SIZE - 1 - temp;
+                    }
+
+                    symmetries[i][row * SIZE + column] = r * SIZE + c;
+                }
+            }
+        }
+        return symmetries;
+    }
+
+    /**
+     * Finds the smallest index of the 8 versions of every board.
+     */
+    private static void findCanonicalIndexes() {
+        // where each cell comes from for each symmetry
+        int[][] inverses = new int[SYMMETRIES.length][CELLS];
+        for (int i = 0; i < SYMMETRIES.length; i++) {
+            for (int cell = 0; cell < CELLS; cell++) {
+                inverses[i][SYMMETRIES[i][cell]] = cell;
+            }
+        }
+
+        int[] digits = new int[CELLS];
+        for (int index = 0; index < STATES; index++) {
+            int remaining = index;
+            for (int cell = 0; cell < CELLS; cell++) {
+                digits[cell] = remaining % 3;
+                remaining /= 3;
+            }
+
+            canonicalIndexes[index] = Integer.MAX_VALUE;
+            for (int i = 0; i < SYMMETRIES.length; i++) {
+                int symmetricIndex = 0;
+                int value = 1;
+                for (int cell = 0; cell < CELLS; cell++) {
+                    symmetricIndex += digits[inverses[i][cell]] * value;
+                    value *= 3;
+                }
+
+                if (symmetricIndex < canonicalIndexes[index]) {
+                    canonicalIndexes[index] = symmetricIndex;
+                    canonicalSymmetries[index] = (byte) i;
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the score and best cells of a board (and every board after it) and
+     * stores them in the table.
+     *
+     * @param digits what's in each cell: 0 if it's empty, 1 for X, 2 for O
+     * @param index the board's index
+     * @param moveCount how many letters are on the board
+     * @return the score for the player whose turn it is
+     */
+    private static int solve(int[] digits, int index, int moveCount) {
+        int canonicalIndex = canonicalIndexes[index];
+        if (isSolved[canonicalIndex]) {
+            return scores[canonicalIndex];
+        }
+
+        int player = (moveCount & 1) + 1;
+        int bestScore = Integer.MIN_VALUE;
+        int best = 0;
+        int value = 1;
+
+        for (int cell = 0; cell < CELLS; cell++, value *= 3) {
+            if (digits[cell] != 0) {
+                continue;
+            }
+
+            digits[cell] = player;
+            int score;
+            if (isWin(digits, player)) {
+                score = CELLS + 1 - moveCount;
+            }
+            else if (moveCount + 1 == CELLS) {
+                score = 0;
+            }
+            else {
+                score = -solve(digits, index + player * value, moveCount + 1);
+            }
+            digits[cell] = 0;
+
+            if (score > bestScore) {
+                bestScore = score;
+                best = 0;
+            }
+            if (score == bestScore) {
+                best |= 1 << cell;
+            }
+        }
+
+        // store the best cells as the stored board's cells
+        int[] symmetry = SYMMETRIES[canonicalSymmetries[index]];
+        int canonicalBest = 0;
+        for (int cell = 0; cell < CELLS; cell++) {
+            if ((best & (1 << cell)) != 0) {
+                canonicalBest |= 1 << symmetry[cell];
+            }
+        }
+
+        scores[canonicalIndex] = (byte) bestScore;
+        bestCells[canonicalIndex] = (short) canonicalBest;
+        isSolved[canonicalIndex] = true;
+        return bestScore;
+    }
+
+    /**
+     * Returns whether a player has 3 in a row.
+     */
+    private static boolean isWin(int[] digits, int player) {
+        int cells = 0;
+        for (int cell = 0; cell < CELLS; cell++) {
+            if (digits[cell] == player) {
+                cells |= 1 << cell;
+            }
+        }
+        for (int line : LINES) {
+            if ((cells & line) == line) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
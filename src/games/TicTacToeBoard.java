@@ -0,0 +1,334 @@
+package games;
+
+/**
+ * This class stores the state of a tic tac toe board without any JavaFX, so games
+ * can be played by the computer on any thread. Player 1 is X and player 2 is O.
+ *
+ * The board can be any size with any number in a row to win, up to 19x19 gomoku.
+ * Every run of winLength cells in a row (across, down, or diagonal) is a "line",
+ * and the board keeps count of how many letters each player has in every line. A
+ * move only changes the counts of the lines going through its cell, so finding a
+ * winner (or a line that's one letter away from winning, for the computer) doesn't
+ * have to look at the rest of the board.
+ */
+public class TicTacToeBoard {
+
+    /**
+     * The number of rows and columns on a normal tic tac toe board.
+     */
+    public static final int SIZE = 3;
+
+    /**
+     * The number of different ways a normal board can be filled in (3 to the power
+     * of the number of cells, since each cell is empty, X, or O).
+     */
+    public static final int STATE_COUNT = 19683;
+
+    // what a letter in each cell of a normal board adds to the board's index (powers of 3)
+    private static final int[] CELL_VALUES = {1, 3, 9, 27, 81, 243, 729, 2187, 6561};
+
+    // the row and column steps for horizontal, vertical, and both diagonal lines
+    private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+
+    private final int size, winLength;
+
+    // which player is in each cell (row * size + column): 1, 2, or -1 if it's empty
+    private final int[] cells;
+
+    // the cells in each line, and the lines going through each cell
+    private final int[][] lineCells;
+    private final int[][] linesThrough;
+
+    // how many letters each player has in each line ([player - 1][line])
+    private final int[][] lineCounts;
+
+    private int moveCount;
+
+    // the player who won and the line they won with, or -1 if nobody has won yet
+    private int winner, winningLine;
+
+    // the board as a base 3 number (see getIndex())
+    private int index;
+
+    /**
+     * Makes a normal 3x3 board.
+     */
+    public TicTacToeBoard() {
+        this(SIZE, SIZE);
+    }
+
+    /**
+     * Makes a board of any size.
+     *
+     * @param size the number of rows and columns
+     * @param winLength how many letters in a row win the game
+     */
+    public TicTacToeBoard(int size, int winLength) {
+        if (size <= 0 || winLength <= 0 || winLength > size) {
+            throw new IllegalArgumentException("Can't make a " + size + "x" + size + " board with " + winLength + " in a row");
+        }
+
+        this.size = size;
+        this.winLength = winLength;
+        cells = new int[size * size];
+
+        // find every line, and count how many go through each cell
+        int[][] lines = new int[4 * size * size][];
+        int lineCount = 0;
+        int[] linesThroughCount = new int[cells.length];
+        for (int[] direction : DIRECTIONS) {
+            for (int row = 0; row < size; row++) {
+                for (int column = 0; column < size; column++) {
+                    int endRow = row + (winLength - 1) * direction[0];
+                    int endColumn = column + (winLength - 1) * direction[1];
+                    if (endRow >= size || endColumn < 0 || endColumn >= size) {
+                        continue;
+                    }
+
+                    int[] line = new int[winLength];
+                    for (int i = 0; i < winLength; i++) {
+                        line[i] = (row + i * direction[0]) * size + column + i * direction[1];
+                        linesThroughCount[line[i]]++;
+                    }
+                    lines[lineCount++] = line;
+                }
+            }
+        }
+
+        lineCells = new int[lineCount][];
+        System.arraycopy(lines, 0, lineCells, 0, lineCount);
+
+        linesThrough = new int[cells.length][];
+        for (int cell = 0; cell < cells.length; cell++) {
+            linesThrough[cell] = new int[linesThroughCount[cell]];
+            linesThroughCount[cell] = 0;
+        }
+        for (int line = 0; line < lineCount; line++) {
+            for (int cell : lineCells[line]) {
+                linesThrough[cell][linesThroughCount[cell]++] = line;
+            }
+        }
+
+        lineCounts = new int[2][lineCount];
+        reset();
+    }
+
+    /**
+     * Makes a copy of another board. The lists of lines are shared, since they
+     * never change.
+     */
+    public TicTacToeBoard(TicTacToeBoard other) {
+        size = other.size;
+        winLength = other.winLength;
+        cells = other.cells.clone();
+        lineCells = other.lineCells;
+        linesThrough = other.linesThrough;
+        lineCounts = new int[][]{other.lineCounts[0].clone(), other.lineCounts[1].clone()};
+        moveCount = other.moveCount;
+        winner = other.winner;
+        winningLine = other.winningLine;
+        index = other.index;
+    }
+
+    /**
+     * Makes this board the same as another board of the same size, without making
+     * new arrays.
+     */
+    public void copyFrom(TicTacToeBoard other) {
+        System.arraycopy(other.cells, 0, cells, 0, cells.length);
+        System.arraycopy(other.lineCounts[0], 0, lineCounts[0], 0, lineCounts[0].length);
+        System.arraycopy(other.lineCounts[1], 0, lineCounts[1], 0, lineCounts[1].length);
+        moveCount = other.moveCount;
+        winner = other.winner;
+        winningLine = other.winningLine;
+        index = other.index;
+    }
+
+    /**
+     * Empties every cell and makes it player 1's turn.
+     */
+    public void reset() {
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = -1;
+        }
+        for (int[] counts : lineCounts) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = 0;
+            }
+        }
+        moveCount = 0;
+        winner = -1;
+        winningLine = -1;
+        index = 0;
+    }
+
+    /**
+     * Puts the current player's letter in a cell and makes it the other player's turn.
+     *
+     * @param row the row of the cell (it must be empty)
+     * @param column the column of the cell
+     * @return true if the move won the game
+     */
+    public boolean play(int row, int column) {
+        int player = getCurrentPlayer();
+        int cell = row * size + column;
+        cells[cell] = player;
+        moveCount++;
+        if (size == SIZE) {
+            index += player * CELL_VALUES[cell];
+        }
+
+        // only the lines going through the new letter change
+        int[] counts = lineCounts[player - 1];
+        for (int line : linesThrough[cell]) {
+            if (++counts[line] == winLength) {
+                winner = player;
+                winningLine = line;
+            }
+        }
+        return winner == player;
+    }
+
+    /**
+     * Empties a cell, undoing the last move (which has to be the move in that cell).
+     *
+     * @param row the row of the cell
+     * @param column the column of the cell
+     */
+    public void undo(int row, int column) {
+        int cell = row * size + column;
+        int[] counts = lineCounts[cells[cell] - 1];
+        for (int line : linesThrough[cell]) {
+            counts[line]--;
+        }
+
+        if (size == SIZE) {
+            index -= cells[cell] * CELL_VALUES[cell];
+        }
+        cells[cell] = -1;
+        moveCount--;
+        winner = -1;
+        winningLine = -1;
+    }
+
+    /**
+     * Returns which player is in a cell: 1, 2, or -1 if it's empty.
+     *
+     * @param row the row of the cell
+     * @param column the column of the cell
+     */
+    public int getPlayer(int row, int column) {
+        return cells[row * size + column];
+    }
+
+    /**
+     * Returns a number from 0 to STATE_COUNT - 1 that's different for every way a
+     * normal 3x3 board can be filled in. Each cell is a digit of a base 3 number: 0
+     * if it's empty, 1 for X, and 2 for O (cell 0 is the lowest digit). It's kept up
+     * to date as moves are made, so getting it doesn't look at the board. Bigger
+     * boards don't have an index.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public boolean isEmpty(int row, int column) {
+        return cells[row * size + column] == -1;
+    }
+
+    /**
+     * Returns whether a cell (row * size + column) is empty.
+     */
+    public boolean isEmpty(int cell) {
+        return cells[cell] == -1;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getWinLength() {
+        return winLength;
+    }
+
+    /**
+     * Returns the number of lines on the board (runs of winLength cells in a row).
+     */
+    public int getLineCount() {
+        return lineCells.length;
+    }
+
+    /**
+     * Returns the cells (row * size + column) in a line. The array must not be changed.
+     */
+    public int[] getLineCells(int line) {
+        return lineCells[line];
+    }
+
+    /**
+     * Returns the lines going through a cell (row * size + column). The array must
+     * not be changed.
+     */
+    public int[] getLinesThrough(int cell) {
+        return linesThrough[cell];
+    }
+
+    /**
+     * Returns how many letters a player has in a line.
+     *
+     * @param player 1 or 2
+     * @param line which line, from 0 to getLineCount() - 1
+     */
+    public int getCount(int player, int line) {
+        return lineCounts[player - 1][line];
+    }
+
+    /**
+     * Returns the player whose turn it is (1 or 2).
+     */
+    public int getCurrentPlayer() {
+        return (moveCount & 1) + 1;
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Returns the player who won, or -1 if nobody has won.
+     */
+    public int getWinner() {
+        return winner;
+    }
+
+    /**
+     * Returns the cells of the winning line as {row, column} pairs, or null if
+     * nobody has won.
+     */
+    public int[][] getWinningCells() {
+        if (winningLine == -1) {
+            return null;
+        }
+
+        int[][] winningCells = new int[winLength][2];
+        for (int i = 0; i < winLength; i++) {
+            winningCells[i][0] = lineCells[winningLine][i] / size;
+            winningCells[i][1] = lineCells[winningLine][i] % size;
+        }
+        return winningCells;
+    }
+
+    /**
+     * Returns whether every cell has a letter in it.
+     */
+    public boolean isFull() {
+        return moveCount == cells.length;
+    }
+
+    /**
+     * Returns whether the game is over because someone won or the board is full.
+     */
+    public boolean isGameOver() {
+        return winner != -1 || isFull();
+    }
+}
@@ -10,14 +10,20 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javafx.animation.FadeTransition;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.input.KeyCode;
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
 import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
@@ -40,6 +46,42 @@ public class TicTacToeGame {
     // this goes back to the game selector screen
     private Button btnHome = new Button("Home");
     
+    // switches player 2 between a person and the computer
+    private Button btnOpponent = new Button("Opponent: Player 2");
+    
+    // chooses how often the computer makes mistakes
+    private ComboBox<TicTacToeAI.Difficulty> cbDifficulty = new ComboBox<>();
+    
+    // highlights the best cells for the current player
+    private Button btnHint = new Button("Hint");
+    
+    // chooses the size of the board and how many letters in a row win
+    private ComboBox<BoardSize> cbBoardSize = new ComboBox<>();
+    
+    // the computer opponent plays O. Its moves are looked up in a table, so it
+    // plays right away.
+    private boolean isComputerOpponent = false;
+    private TicTacToeAI.Difficulty difficulty = TicTacToeAI.Difficulty.PERFECT;
+    private Random random = new Random();
+    
+    // the computer can use Monte Carlo tree search instead. It searches for a set
+    // time on its own thread, so the window doesn't freeze while it thinks.
+    private static final long MONTE_CARLO_MILLIS = 1000;
+    private static final MonteCarloTreeSearch monteCarlo = new MonteCarloTreeSearch();
+    private boolean isMonteCarloOpponent = false;
+    // (there's one thread for every TicTacToeGame, since only one can be played at a time)
+    private static final ExecutorService aiThread = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Tic tac toe AI");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    // this is true while the computer is looking for a move, clicks are ignored until it's done
+    private boolean isComputerThinking = false;
+    
+    // this goes up every game so a move the computer found for an old game isn't played
+    private int gameNumber = 0;
+    
     // this displays the scores
     private Label lblScore = new Label();
     
@@ -60,11 +102,55 @@ public class TicTacToeGame {
     // ...and this displays the Cells
     private GridPane gameBoard = new GridPane();
     
+    // stores which player is in each Cell and checks for a winner
+    // the Cells only display what's stored here.
+    private TicTacToeBoard board = new TicTacToeBoard();
+    
+    // boards bigger than 3x3 are drawn on a Canvas instead of with Cells (there
+    // would be 361 of them on a gomoku board). It's null on a 3x3 board.
+    private ConnectBoardCanvas boardCanvas;
+    
+    // the colors of X and O on the canvas
+    private static final Color X_COLOR = Color.DODGERBLUE, O_COLOR = Color.ORANGERED;
+    
     private Scene masterScene = new Scene(masterPane, 240, 230);
     
     // this is the size of the X's and O's
     private static double letterSize;
     
+    /**
+     * Some board sizes that can be picked in the game. Any other size can be set
+     * with setBoardSize().
+     */
+    public enum BoardSize {
+        TIC_TAC_TOE("Tic Tac Toe", 3, 3),
+        FOUR_IN_A_ROW("4 in a Row", 7, 4),
+        GOMOKU_15("Gomoku", 15, 5),
+        GOMOKU_19("Gomoku", 19, 5);
+        
+        private final String name;
+        private final int size, winLength;
+        
+        BoardSize(String name, int size, int winLength) {
+            this.name = name;
+            this.size = size;
+            this.winLength = winLength;
+        }
+        
+        public int getSize() {
+            return size;
+        }
+        
+        public int getWinLength() {
+            return winLength;
+        }
+        
+        @Override
+        public String toString() {
+            return name + " (" + size + "x" + size + ")";
+        }
+    }
+    
     /**
      * Initializes the instance variables
      * 
@@ -97,7 +183,56 @@ public class TicTacToeGame {
             }
         });
         
-        btnHome.setOnAction(e -> selector.draw());
+        // the computer doesn't need to keep thinking once the game is closed
+        btnHome.setOnAction(e -> {
+            // a big board's canvas would keep drawing every frame
+            if (boardCanvas != null) {
+                boardCanvas.stop();
+            }
+            monteCarlo.stop();
+            selector.draw();
+        });
+        
+        // changing the opponent starts a new game. It goes from player 2 to the
+        // computer to Monte Carlo tree search.
+        btnOpponent.setOnAction(e -> {
+            if (!isComputerOpponent) {
+                isComputerOpponent = true;
+            }
+            else if (!isMonteCarloOpponent) {
+                isMonteCarloOpponent = true;
+            }
+            else {
+                isComputerOpponent = false;
+                isMonteCarloOpponent = false;
+            }
+            
+            if (!isComputerOpponent) {
+                btnOpponent.setText("Opponent: Player 2");
+            }
+            else {
+                btnOpponent.setText(isMonteCarloOpponent ? "Opponent: Monte Carlo" : "Opponent: Computer");
+            }
+            beginGame();
+        });
+        
+        cbDifficulty.getItems().setAll(TicTacToeAI.Difficulty.values());
+        cbDifficulty.setValue(difficulty);
+        cbDifficulty.setOnAction(e -> difficulty = cbDifficulty.getValue());
+        
+        btnHint.setOnAction(e -> showHint());
+        
+        cbBoardSize.getItems().setAll(BoardSize.values());
+        cbBoardSize.setValue(BoardSize.TIC_TAC_TOE);
+        cbBoardSize.setOnAction(e -> {
+            BoardSize size = cbBoardSize.getValue();
+            setBoardSize(size.getSize(), size.getWinLength());
+        });
+        
+        // the canvas was stopped when the game was closed
+        if (boardCanvas != null) {
+            boardCanvas.start();
+        }
         
         // start the game
         beginGame();
@@ -105,23 +240,73 @@ public class TicTacToeGame {
         return masterScene;
     }
     
+    /**
+     * Changes the size of the board and how many letters in a row win, and starts
+     * a new game. The computer plays perfectly on a normal 3x3 board, and looks for
+     * threats on every other board.
+     * 
+     * @param size how many rows and columns the board has
+     * @param winLength how many letters in a row win the game
+     */
+    public void setBoardSize(int size, int winLength) {
+        // check the size before anything is changed
+        board = new TicTacToeBoard(size, winLength);
+        
+        // big boards are drawn on a Canvas, so they don't have any Cells
+        if (boardCanvas != null) {
+            boardCanvas.dispose();
+            boardCanvas = null;
+        }
+        if (size > TicTacToeBoard.SIZE) {
+            gameGrid = new Cell[0][0];
+            boardCanvas = new ConnectBoardCanvas(size, size);
+            
+            // the cell is worked out from where the mouse is
+            boardCanvas.setOnMouseClicked(e -> {
+                int row = boardCanvas.getRowAt(e.getY());
+                int column = boardCanvas.getColumnAt(e.getX());
+                if (row != -1 && column != -1) {
+                    placeDisk(row, column);
+                }
+            });
+        }
+        else {
+            gameGrid = new Cell[size][size];
+        }
+        
+        beginGame();
+    }
+    
+    /**
+     * Returns whether the board is a normal 3x3 board with 3 in a row, which is the
+     * only one the perfect computer player knows.
+     */
+    private boolean isClassicBoard() {
+        return board.getSize() == TicTacToeBoard.SIZE && board.getWinLength() == TicTacToeBoard.SIZE;
+    }
+    
     /**
      * Initializes the game before it starts and is used to reset the game after
      * it finishes.
      */
     public void beginGame() {
         // reset the internal storage of the Cells
-        for (int i = 0; i < 3; i++) {
-            for (int j = 0; j < 3; j++) {
+        for (int i = 0; i < gameGrid.length; i++) {
+            for (int j = 0; j < gameGrid.length; j++) {
                 gameGrid[i][j] = null;
             }
         }
         
         gameBoard.getChildren().clear();
+        board.reset();
+        
+        if (boardCanvas != null) {
+            boardCanvas.reset();
+        }
         
         // make the grid of cells
-        for (int row = 0; row < 3; row++) {
-            for (int column = 0; column < 3; column++) {
+        for (int row = 0; row < gameGrid.length; row++) {
+            for (int column = 0; column < gameGrid.length; column++) {
                 Cell cell = new Cell(row, column);
                 cell.setAlignment(Pos.CENTER);
                 gameGrid[row][column] = cell;
@@ -163,14 +348,17 @@ public class TicTacToeGame {
             deleteSaveData();
         }
         
-        lblScore.setText("Player 1:   " + player1Score + "\t\tPlayer 2:   " + player2Score);
+        lblScore.setText("Player 1:   " + player1Score + "\t\t" + getPlayer2Name() + ":   " + player2Score);
         // make it player 1's turn
-        lblInfo1.setText("X - Player 1's turn");
+        lblInfo1.setText(getLetterName(1) + " - Player 1's turn");
         lblInfo1.setAlignment(Pos.CENTER);
         lblInfo2.setText("");
         lblInfo2.setAlignment(Pos.CENTER);
         currentPlayer = 1;
         isGameRunning = true;
+        isComputerThinking = false;
+        gameNumber++;
+        monteCarlo.stop();
         
         draw();
     }
@@ -201,14 +389,33 @@ public class TicTacToeGame {
         lblInfo2.setFont(newFont2);
         
         // reset the size of the grid cells
-        for (int row = 0; row < 3; row++) {
-            for (int column = 0; column < 3; column++) {
+        for (int row = 0; row < gameGrid.length; row++) {
+            for (int column = 0; column < gameGrid.length; column++) {
                 gameGrid[row][column].setSize(windowSize / 10.0);
             }
         }
         
+        // the canvas only has to change its scale
+        if (boardCanvas != null) {
+            boardCanvas.resize(windowSize * 0.75, windowSize * 0.75);
+        }
+        
         // draw everything again
-        masterPane.getChildren().addAll(btnHome, lblScore, gameBoard, lblInfo1, lblInfo2);
+        // the HBox at the top contains the home button and the opponent options
+        HBox optionsHBox = new HBox();
+        optionsHBox.setAlignment(Pos.CENTER);
+        optionsHBox.setSpacing(5);
+        cbDifficulty.setDisable(!isComputerOpponent || isMonteCarloOpponent);
+        optionsHBox.getChildren().addAll(btnHome, cbBoardSize, btnOpponent, cbDifficulty, btnHint);
+        
+        masterPane.getChildren().addAll(optionsHBox, lblScore);
+        if (boardCanvas != null) {
+            masterPane.getChildren().add(boardCanvas);
+        }
+        else {
+            masterPane.getChildren().add(gameBoard);
+        }
+        masterPane.getChildren().addAll(lblInfo1, lblInfo2);
     }
     
     /** after a player puts a disk in a Cell, make it the other player's turn
@@ -219,53 +426,36 @@ public class TicTacToeGame {
         // switch from player 1 (X) to player 2 (O)
         if (currentPlayer == 1) {
             currentPlayer = 2;
-            lblInfo1.setText("O - Player 2's turn");
+            lblInfo1.setText(getLetterName(2) + " - " + getPlayer2Name() + "'s turn");
         }
         
         // switch from player 2 (O) to player 1 (X)
         else {
             currentPlayer = 1;
-            lblInfo1.setText("X - Player 1's turn");
+            lblInfo1.setText(getLetterName(1) + " - Player 1's turn");
         }
     }
     
     /** after a player's turn is over, check to see if there's a winner
-     * 
      */
     private boolean checkForWin() {
-        // check all possible win positions for the rows
-        for (int row = 0; row < 3; row++) {
-            if (gameGrid[row][0].getPlayer() == currentPlayer && gameGrid[row][1].getPlayer() == currentPlayer
-                    && gameGrid[row][2].getPlayer() == currentPlayer) {
-                animateWinningCells(new Cell[]{gameGrid[row][0], gameGrid[row][1], gameGrid[row][2]});
-                return true;
-            }
+        // the board already checked the lines going through the new letter
+        if (board.getWinner() == -1) {
+            return false;
         }
         
-        // check all possible win positions for the columns
-        for (int column = 0; column < 3; column++) {
-            if (gameGrid[0][column].getPlayer() == currentPlayer && gameGrid[1][column].getPlayer() == currentPlayer
-                    && gameGrid[2][column].getPlayer() == currentPlayer) {
-                animateWinningCells(new Cell[]{gameGrid[0][column], gameGrid[1][column], gameGrid[2][column]});
-                return true;
-            }
-        }
-        
-        // check the diagonal that goes from the top left to the bottom right
-        if (gameGrid[0][0].getPlayer() == currentPlayer && gameGrid[1][1].getPlayer() == currentPlayer
-                && gameGrid[2][2].getPlayer() == currentPlayer) {
-            animateWinningCells(new Cell[]{gameGrid[0][0], gameGrid[1][1], gameGrid[2][2]});
+        int[][] winningCells = board.getWinningCells();
+        if (boardCanvas != null) {
+            boardCanvas.flashCells(winningCells);
             return true;
         }
         
-        // check the diagonal that goes from the bottom left to the top right
-        if (gameGrid[2][0].getPlayer() == currentPlayer && gameGrid[1][1].getPlayer() == currentPlayer
-                && gameGrid[0][2].getPlayer() == currentPlayer) {
-            animateWinningCells(new Cell[]{gameGrid[2][0], gameGrid[1][1], gameGrid[0][2]});
-            return true;
+        Cell[] cells = new Cell[winningCells.length];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = gameGrid[winningCells[i][0]][winningCells[i][1]];
         }
-        // if it made it here, there's not a winner.
-        return false;
+        animateWinningCells(cells);
+        return true;
     }
     
     /** after someone won, flash the cells that won.
@@ -275,7 +465,7 @@ public class TicTacToeGame {
     private void animateWinningCells(Cell[] cells) {
         
         // create the animation, which I'm using a FadeTransition
-        FadeTransition[] animations = new FadeTransition[4];
+        FadeTransition[] animations = new FadeTransition[cells.length];
         
         // start the animation on each of the winning Cells
         for (int i = 0; i < cells.length; i++) {
@@ -295,18 +485,26 @@ public class TicTacToeGame {
     /** when a player clicks on a Cell, this method places one of their
      *  disks in the Cell if it's empty
      * 
-     *  @param c the cell the user clicked on
+     *  @param row the row of the cell the user clicked on
+     *  @param column the column of the cell the user clicked on
      */
-    private void placeDisk(Cell c) {
+    private void placeDisk(int row, int column) {
+        
+        // clicks are ignored while the computer is thinking
+        if (isComputerThinking) {
+            return;
+        }
         
         // if the Cell isn't empty or the game isn't running, the disk can't be put
         // in the Cell
-        if (c.isEmpty() && isGameRunning) {
-            // clear the 2nd label's text
+        if (board.isEmpty(row, column) && isGameRunning) {
+            // clear the 2nd label's text and the hint
             lblInfo2.setText("");
+            clearHint();
             
             // put the current player's disc in the Cell.
-            c.setLetter(currentPlayer);
+            showLetter(row, column, currentPlayer);
+            board.play(row, column);
             
             // if someone won, stop the game
             if (checkForWin()) {
@@ -317,7 +515,7 @@ public class TicTacToeGame {
                     player2Score++;
                 }
                 
-                lblInfo1.setText((currentPlayer == 1 ? "X - Player 1" : "O - Player 2") + " won!");
+                lblInfo1.setText(getLetterName(currentPlayer) + " - " + (currentPlayer == 1 ? "Player 1" : getPlayer2Name()) + " won!");
                 lblInfo2.setText("Press ENTER to play another game");
                 if (Settings.doSaveDataPermanently) {
                     saveGame();
@@ -330,23 +528,10 @@ public class TicTacToeGame {
                 changeTurn();
             }
             
-            // this remains true unless the board isn't full
-            // (in other words, this isn't necessarily true)
-            boolean isBoardFull = true;
-            
             // check for a draw
             if (isGameRunning) {
-                // check if all Cells are full
-                for (int row = 0; row < 3; row++) {
-                    for (int column = 0; column < 3; column++) {
-                        if (gameGrid[row][column].isEmpty()) {
-                            isBoardFull = false;
-                        }
-                    }
-                }
-            
                 // if all Cells are full, alert the user and stop the game
-                if (isBoardFull) {
+                if (board.isFull()) {
                     lblInfo1.setText("It's a tie!");
                     lblInfo2.setText("Press ENTER to play another game");
                     if (Settings.doSaveDataPermanently) {
@@ -355,16 +540,146 @@ public class TicTacToeGame {
                     isGameRunning = false;
                 }
             }
+            
+            // if it's the computer's turn now, it goes right away (Monte Carlo tree
+            // search takes a while, so it searches on another thread)
+            if (isGameRunning && isComputerOpponent && currentPlayer == 2) {
+                if (isMonteCarloOpponent) {
+                    startMonteCarloTurn();
+                }
+                else {
+                    int cell;
+                    if (isClassicBoard()) {
+                        cell = TicTacToeAI.findMove(board, difficulty, random);
+                    }
+                    else {
+                        cell = GomokuAI.findMove(board, difficulty, random);
+                    }
+                    placeDisk(cell / board.getSize(), cell % board.getSize());
+                }
+            }
         }
         
         // alert the user if they try to place a disk in an occupied Cell
-        else if (c.isEmpty() == false && isGameRunning) {
+        else if (board.isEmpty(row, column) == false && isGameRunning) {
             if (!(lblInfo2.getText().contains("Cannot go there"))) {
                 lblInfo2.setText(lblInfo2.getText() + "Cannot go there");
             }
         }
     }
     
+    /**
+     * Starts a Monte Carlo tree search for the computer's move on the AI thread.
+     * When the search is done, the move is played on the JavaFX Application Thread.
+     */
+    private void startMonteCarloTurn() {
+        isComputerThinking = true;
+        lblInfo2.setText("Computer is thinking...");
+        
+        // the search gets its own copy of the board so it doesn't change while it's running
+        MonteCarloTreeSearch.Game game = MonteCarloTreeSearch.forBoard(board);
+        int searchGameNumber = gameNumber;
+        int stopCount = monteCarlo.getStopCount();
+        
+        aiThread.submit(() -> {
+            int cell = monteCarlo.findMove(game, MONTE_CARLO_MILLIS, Long.MAX_VALUE, stopCount);
+            String stats = String.format("%,d playouts - %,.0f playouts/sec", monteCarlo.getLastPlayouts(), monteCarlo.getPlayoutsPerSecond());
+            
+            Platform.runLater(() -> {
+                // ignore the move if a new game was started while the computer was thinking
+                if (searchGameNumber == gameNumber && isGameRunning && cell != -1) {
+                    isComputerThinking = false;
+                    placeDisk(cell / board.getSize(), cell % board.getSize());
+                    if (isGameRunning) {
+                        lblInfo2.setText(stats);
+                    }
+                }
+            });
+        });
+    }
+    
+    /**
+     * Highlights the best cells for the current player (there can be more than one
+     * on a 3x3 board).
+     */
+    private void showHint() {
+        if (!isGameRunning) {
+            return;
+        }
+        
+        // bigger boards can't be solved, so the hint is the computer's move
+        if (!isClassicBoard()) {
+            int cell = GomokuAI.findMove(board, 0, random);
+            highlightCell(cell / board.getSize(), cell % board.getSize(), true);
+            lblInfo2.setText(GomokuAI.canForceWin(board) ? "You can win!" : "");
+            return;
+        }
+        
+        int bestCells = TicTacToeAI.getBestCells(board);
+        for (int row = 0; row < 3; row++) {
+            for (int column = 0; column < 3; column++) {
+                highlightCell(row, column, (bestCells & (1 << (row * TicTacToeBoard.SIZE + column))) != 0);
+            }
+        }
+        
+        int score = TicTacToeAI.getScore(board);
+        lblInfo2.setText(score > 0 ? "You can win!" : score == 0 ? "The best you can do is a tie" : "You can't stop a loss");
+    }
+    
+    /**
+     * Removes the highlights from the hint.
+     */
+    private void clearHint() {
+        for (int row = 0; row < board.getSize(); row++) {
+            for (int column = 0; column < board.getSize(); column++) {
+                highlightCell(row, column, false);
+            }
+        }
+    }
+    
+    /**
+     * Shows a cell with a green background (for hints), on the Cells or the canvas.
+     */
+    private void highlightCell(int row, int column, boolean isHighlighted) {
+        if (boardCanvas == null) {
+            gameGrid[row][column].setHighlighted(isHighlighted);
+        }
+        // only empty cells are highlighted on the canvas, since the disk is the whole cell
+        else if (board.isEmpty(row, column)) {
+            boardCanvas.setCellColor(row, column, isHighlighted ? Color.LIGHTGREEN : Color.WHITE);
+        }
+    }
+    
+    /**
+     * Puts a player's letter in a cell, on the Cells or the canvas.
+     */
+    private void showLetter(int row, int column, int player) {
+        if (boardCanvas == null) {
+            gameGrid[row][column].setLetter(player);
+        }
+        else {
+            boardCanvas.setCellColor(row, column, player == 1 ? X_COLOR : O_COLOR);
+        }
+    }
+    
+    /**
+     * Returns what a player's letter is called in the HUD (the canvas shows colors
+     * instead of letters).
+     */
+    private String getLetterName(int player) {
+        if (boardCanvas == null) {
+            return player == 1 ? "X" : "O";
+        }
+        return player == 1 ? "Blue" : "Red";
+    }
+    
+    /**
+     * Returns the name of player 2 to display in the HUD
+     */
+    private String getPlayer2Name() {
+        return isComputerOpponent ? "Computer" : "Player 2";
+    }
+    
     /**
      * Saves each player's score to a file
      */
@@ -422,19 +737,12 @@ public class TicTacToeGame {
             background.setStroke(Color.BLACK);
             background.setFill(Color.WHITE);
             super.getChildren().add(background);
-            super.setOnMouseClicked(e -> placeDisk(this));
+            super.setOnMouseClicked(e -> placeDisk(row, column));
         }
         
         // this method returns which player's disk is in the Cell, if any
         public int getPlayer() {
-            switch (getLetter()) {
-                case 'X':
-                    return 1;
-                case 'O':
-                    return 2;
-                default:
-                    return -1;
-            }
+            return board.getPlayer(row, column);
         }
         
         // getters for the x and y coordinates
@@ -461,6 +769,11 @@ public class TicTacToeGame {
             super.getChildren().add(label);
         }
         
+        // shows the Cell with a green background (for hints)
+        public void setHighlighted(boolean isHighlighted) {
+            background.setFill(isHighlighted ? Color.LIGHTGREEN : Color.WHITE);
+        }
+        
         // retrieves the letter in this Cell
         public char getLetter() {
             if (!label.getText().equals("")) {
@@ -0,0 +1,262 @@
+package games;
+
+/**
+ * This class plays lots of computer vs computer games of connect 4 and tic tac toe
+ * without opening a window, to test how fast the computer players are and how well
+ * they play against each other.
+ *
+ * Every bot plays every other bot of the same game, once as player 1 and once as
+ * player 2, a number of times. The games are spread across every core. Each game
+ * is written to a CSV file as soon as it's finished, and at the end the games per
+ * second, the average game length, and each bot's wins, draws, and losses are printed.
+ *
+ * It can be run from the command line:
+ *   java -cp MiniGames.jar games.TournamentRunner [games per pairing] [CSV file] [threads]
+ * (the "tournament" target in build.xml does this).
+ */
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class TournamentRunner {
+
+    /**
+     * A computer player for connect 4.
+     */
+    public interface ConnectFourBot {
+        /**
+         * Returns the column to play in. The board can be changed as long as it's
+         * put back the way it was.
+         */
+        int chooseColumn(ConnectFourBoard board, Random random);
+    }
+
+    /**
+     * A computer player for tic tac toe.
+     */
+    public interface TicTacToeBot {
+        /**
+         * Returns the cell to play in as row * board.getSize() + column. The board
+         * can be changed as long as it's put back the way it was.
+         */
+        int chooseCell(TicTacToeBoard board, Random random);
+    }
+
+    // how many moves at the start of each game are random, so the same two bots don't
+    // play the same game every time
+    private static final int RANDOM_OPENING_MOVES = 2;
+
+    // a day, so the connect 4 searches only stop at their depth and the results
+    // don't depend on how busy the computer is
+    private static final long NO_TIME_LIMIT = 24 * 60 * 60 * 1000L;
+
+    // the bots for each game, by name
+    private static final Map<String, ConnectFourBot> CONNECT_FOUR_BOTS = new LinkedHashMap<>();
+    private static final Map<String, TicTacToeBot> TIC_TAC_TOE_BOTS = new LinkedHashMap<>();
+
+    static {
+        CONNECT_FOUR_BOTS.put("Random", (board, random) -> randomColumn(board, random));
+        CONNECT_FOUR_BOTS.put("Depth 2", (board, random) -> new ConnectFourAI().findMove(board, 2, NO_TIME_LIMIT, false));
+        CONNECT_FOUR_BOTS.put("Depth 4", (board, random) -> new ConnectFourAI().findMove(board, 4, NO_TIME_LIMIT, false));
+        CONNECT_FOUR_BOTS.put("Depth 6", (board, random) -> new ConnectFourAI().findMove(board, 6, NO_TIME_LIMIT, false));
+
+        TIC_TAC_TOE_BOTS.put("Random", (board, random) -> randomCell(board, random));
+        for (TicTacToeAI.Difficulty difficulty : TicTacToeAI.Difficulty.values()) {
+            TIC_TAC_TOE_BOTS.put(difficulty.toString(), (board, random) -> TicTacToeAI.findMove(board, difficulty, random));
+        }
+    }
+
+    // the result of one game
+    private static class GameResult {
+        String game, player1, player2;
+
+        // 1, 2, or 0 for a draw
+        int winner;
+        int moves;
+        long nanos;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        int gamesPerPairing = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        File csvFile = new File(args.length > 1 ? args[1] : "tournament results.csv");
+        int threadCount = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        ExecutorService threads = Executors.newFixedThreadPool(threadCount);
+        CompletionService<GameResult> results = new ExecutorCompletionService<>(threads);
+        int gameCount = 0;
+        long startTime = System.nanoTime();
+
+        // every bot plays every other bot as both player 1 and player 2
+        for (String player1 : CONNECT_FOUR_BOTS.keySet()) {
+            for (String player2 : CONNECT_FOUR_BOTS.keySet()) {
+                if (!player1.equals(player2)) {
+                    for (int i = 0; i < gamesPerPairing; i++) {
+                        results.submit(() -> playConnectFour(player1, player2));
+                        gameCount++;
+                    }
+                }
+            }
+        }
+        for (String player1 : TIC_TAC_TOE_BOTS.keySet()) {
+            for (String player2 : TIC_TAC_TOE_BOTS.keySet()) {
+                if (!player1.equals(player2)) {
+                    for (int i = 0; i < gamesPerPairing; i++) {
+                        results.submit(() -> playTicTacToe(player1, player2));
+                        gameCount++;
+                    }
+                }
+            }
+        }
+
+        System.out.println("Playing " + gameCount + " games on " + threadCount + " threads");
+
+        // wins, draws, and losses for each bot, and the number of games and moves for each game
+        Map<String, long[]> botRecords = new LinkedHashMap<>();
+        Map<String, long[]> gameLengths = new LinkedHashMap<>();
+
+        // the games are written in the order they finish, so nothing has to be kept in memory
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(csvFile)))) {
+            out.println("game,player 1,player 2,winner,moves,milliseconds");
+
+            for (int i = 0; i < gameCount; i++) {
+                GameResult result = results.take().get();
+                out.printf("%s,%s,%s,%d,%d,%.3f%n", result.game, result.player1, result.player2,
+                        result.winner, result.moves, result.nanos / 1e6);
+
+                long[] record1 = botRecords.computeIfAbsent(result.game + " - " + result.player1, k -> new long[3]);
+                long[] record2 = botRecords.computeIfAbsent(result.game + " - " + result.player2, k -> new long[3]);
+                if (result.winner == 1) {
+                    record1[0]++;
+                    record2[2]++;
+                }
+                else if (result.winner == 2) {
+                    record1[2]++;
+                    record2[0]++;
+                }
+                else {
+                    record1[1]++;
+                    record2[1]++;
+                }
+
+                long[] length = gameLengths.computeIfAbsent(result.game, k -> new long[2]);
+                length[0]++;
+                length[1] += result.moves;
+            }
+        }
+        finally {
+            threads.shutdown();
+        }
+
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+        System.out.printf("Played %d games in %.2f s (%,.1f games/sec)%n", gameCount, seconds, gameCount / seconds);
+        for (Map.Entry<String, long[]> entry : gameLengths.entrySet()) {
+            System.out.printf("%s: %d games, %.1f moves per game on average%n", entry.getKey(),
+                    entry.getValue()[0], (double) entry.getValue()[1] / entry.getValue()[0]);
+        }
+
+        System.out.println("bot\twins\tdraws\tlosses");
+        for (Map.Entry<String, long[]> entry : botRecords.entrySet()) {
+            long[] record = entry.getValue();
+            System.out.println(entry.getKey() + "\t" + record[0] + "\t" + record[1] + "\t" + record[2]);
+        }
+        System.out.println("Wrote every game to " + csvFile);
+    }
+
+    /**
+     * Plays one game of connect 4 between two bots.
+     */
+    private static GameResult playConnectFour(String player1, String player2) {
+        Random random = ThreadLocalRandom.current();
+        ConnectFourBot[] bots = {CONNECT_FOUR_BOTS.get(player1), CONNECT_FOUR_BOTS.get(player2)};
+        ConnectFourBoard board = new ConnectFourBoard();
+
+        GameResult result = new GameResult();
+        result.game = "Connect 4";
+        result.player1 = player1;
+        result.player2 = player2;
+
+        long startTime = System.nanoTime();
+        while (!board.isFull()) {
+            int column;
+            if (board.getMoveCount() < RANDOM_OPENING_MOVES) {
+                column = randomColumn(board, random);
+            }
+            else {
+                column = bots[board.getCurrentPlayer() - 1].chooseColumn(board, random);
+            }
+
+            if (board.isWinningMove(column)) {
+                result.winner = board.getCurrentPlayer();
+                board.play(column);
+                break;
+            }
+            board.play(column);
+        }
+        result.nanos = System.nanoTime() - startTime;
+        result.moves = board.getMoveCount();
+        return result;
+    }
+
+    /**
+     * Plays one game of tic tac toe between two bots.
+     */
+    private static GameResult playTicTacToe(String player1, String player2) {
+        Random random = ThreadLocalRandom.current();
+        TicTacToeBot[] bots = {TIC_TAC_TOE_BOTS.get(player1), TIC_TAC_TOE_BOTS.get(player2)};
+        TicTacToeBoard board = new TicTacToeBoard();
+
+        GameResult result = new GameResult();
+        result.game = "Tic Tac Toe";
+        result.player1 = player1;
+        result.player2 = player2;
+
+        long startTime = System.nanoTime();
+        while (!board.isGameOver()) {
+            int cell;
+            if (board.getMoveCount() < RANDOM_OPENING_MOVES) {
+                cell = randomCell(board, random);
+            }
+            else {
+                cell = bots[board.getCurrentPlayer() - 1].chooseCell(board, random);
+            }
+            board.play(cell / board.getSize(), cell % board.getSize());
+        }
+        result.nanos = System.nanoTime() - startTime;
+        result.moves = board.getMoveCount();
+        result.winner = Math.max(board.getWinner(), 0);
+        return result;
+    }
+
+    /**
+     * Returns a random column that isn't full.
+     */
+    private static int randomColumn(ConnectFourBoard board, Random random) {
+        int column;
+        do {
+            column = random.nextInt(ConnectFourBoard.COLUMNS);
+        } while (!board.canPlay(column));
+        return column;
+    }
+
+    /**
+     * Returns a random empty cell.
+     */
+    private static int randomCell(TicTacToeBoard board, Random random) {
+        int cell;
+        do {
+            cell = random.nextInt(board.getSize() * board.getSize());
+        } while (!board.isEmpty(cell));
+        return cell;
+    }
+}
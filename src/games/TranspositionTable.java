@@ -0,0 +1,148 @@
+package games;
+
+/**
+ * This class remembers the results of positions the connect 4 solver has already
+ * searched, so it doesn't have to search them again.
+ *
+ * The table is stored off the Java heap in direct ByteBuffers, so a table of several
+ * gigabytes doesn't slow down the garbage collector. Each entry is one long holding
+ * the position's key, the stored value, and how many empty cells the position had
+ * (its depth). The entries are grouped in pairs: the first entry of a pair is only
+ * replaced by a position at least as deep, so the results that took the longest to
+ * find are kept, and the second entry is always replaced.
+ *
+ * Several threads can use the same table without locks. Every entry is read and
+ * written as a single long, so a thread never sees half of another thread's entry,
+ * and since the key is part of the entry, a thread can always tell whether the
+ * entry it read is for its position.
+ */
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public class TranspositionTable {
+
+    // how many bits of an entry are used by the key, value, and depth
+    private static final int KEY_BITS = 49, VALUE_BITS = 8;
+    private static final long KEY_MASK = (1L << KEY_BITS) - 1;
+    private static final long VALUE_MASK = (1L << VALUE_BITS) - 1;
+    private static final int DEPTH_SHIFT = KEY_BITS + VALUE_BITS;
+
+    // how many bytes an entry and a pair of entries take up
+    private static final int ENTRY_BYTES = Long.BYTES, BUCKET_BYTES = 2 * ENTRY_BYTES;
+
+    // each ByteBuffer can only hold about 2 GB, so big tables are split into 1 GB segments
+    private static final int SEGMENT_BITS = 30;
+    private static final long SEGMENT_BYTES = 1L << SEGMENT_BITS;
+
+    // reads and writes a long in a ByteBuffer all at once (the normal getLong and
+    // putLong don't promise that another thread can't see half of the long)
+    private static final VarHandle LONG_ACCESS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    // the smallest and largest table sizes that can be made
+    public static final int MIN_SIZE_MB = 1, MAX_SIZE_MB = 4096;
+
+    private final ByteBuffer[] segments;
+
+    // how many pairs of entries are in the table
+    private final long bucketCount;
+
+    /**
+     * Makes an empty table.
+     *
+     * @param sizeMB how many megabytes the table uses (between MIN_SIZE_MB and MAX_SIZE_MB)
+     */
+    public TranspositionTable(int sizeMB) {
+        if (sizeMB < MIN_SIZE_MB || sizeMB > MAX_SIZE_MB) {
+            throw new IllegalArgumentException("The table size must be between " + MIN_SIZE_MB + " and "
+                    + MAX_SIZE_MB + " MB, not " + sizeMB);
+        }
+
+        long totalBytes = (long) sizeMB << 20;
+        bucketCount = totalBytes / BUCKET_BYTES;
+
+        segments = new ByteBuffer[(int) ((totalBytes + SEGMENT_BYTES - 1) / SEGMENT_BYTES)];
+        for (int i = 0; i < segments.length; i++) {
+            long segmentSize = Math.min(SEGMENT_BYTES, totalBytes - i * SEGMENT_BYTES);
+            segments[i] = ByteBuffer.allocateDirect((int) segmentSize).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    /**
+     * Removes every entry from the table.
+     */
+    public void clear() {
+        for (ByteBuffer segment : segments) {
+            for (int i = 0; i < segment.capacity(); i += ENTRY_BYTES) {
+                LONG_ACCESS.setOpaque(segment, i, 0L);
+            }
+        }
+    }
+
+    /**
+     * Stores a value for a position.
+     *
+     * @param key the position's key (it has to fit in 49 bits and can't be 0)
+     * @param value the value to store (between 1 and 255)
+     * @param depth how many empty cells the position has
+     */
+    public void put(long key, int value, int depth) {
+        long bucket = getBucket(key);
+        long entry = key | ((long) value << KEY_BITS) | ((long) depth << DEPTH_SHIFT);
+
+        // keep the deeper entry in the first slot, unless it's the same position
+        long first = read(bucket);
+        if ((first & KEY_MASK) == key || (int) (first >>> DEPTH_SHIFT) <= depth) {
+            write(bucket, entry);
+        }
+        else {
+            write(bucket + ENTRY_BYTES, entry);
+        }
+    }
+
+    /**
+     * Returns the value stored for a position, or 0 if it isn't in the table.
+     *
+     * @param key the position's key
+     */
+    public int get(long key) {
+        long bucket = getBucket(key);
+
+        long entry = read(bucket);
+        if ((entry & KEY_MASK) == key) {
+            return (int) ((entry >>> KEY_BITS) & VALUE_MASK);
+        }
+
+        entry = read(bucket + ENTRY_BYTES);
+        if ((entry & KEY_MASK) == key) {
+            return (int) ((entry >>> KEY_BITS) & VALUE_MASK);
+        }
+
+        return 0;
+    }
+
+    /**
+     * Returns the byte offset of the pair of entries a key is stored in.
+     */
+    private long getBucket(long key) {
+        // mix the bits of the key so similar positions are spread across the table
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return Long.remainderUnsigned(hash ^ (hash >>> 32), bucketCount) * BUCKET_BYTES;
+    }
+
+    private long read(long offset) {
+        return (long) LONG_ACCESS.getOpaque(segments[(int) (offset >>> SEGMENT_BITS)], (int) (offset & (SEGMENT_BYTES - 1)));
+    }
+
+    private void write(long offset, long entry) {
+        LONG_ACCESS.setOpaque(segments[(int) (offset >>> SEGMENT_BITS)], (int) (offset & (SEGMENT_BYTES - 1)), entry);
+    }
+
+    /**
+     * Returns how many megabytes the table uses.
+     */
+    public long getSizeMB() {
+        return bucketCount * BUCKET_BYTES >> 20;
+    }
+}
@@ -0,0 +1,306 @@
+package games;
+
+/**
+ * This class stores the state of a game of ultimate tic tac toe without any
+ * JavaFX, so the computer can search it on any thread. The board is a 3x3 grid of
+ * small tic tac toe boards, and winning 3 small boards in a row wins the game.
+ * Wherever a player goes in a small board sends the other player to the small
+ * board in the same spot, unless that board is already won or full, in which case
+ * they can go in any open board.
+ *
+ * Each small board is stored as a 9-bit mask for each player (bit row * 3 + column),
+ * and the small boards each player has won are another 9-bit mask, so checking a
+ * board for a win is one lookup in a 512-entry table. Cells are numbered
+ * board * 9 + square, where the board and square both go across and then down.
+ */
+import java.util.Arrays;
+import java.util.Random;
+
+public class UltimateBoard {
+
+    /**
+     * The number of small boards, and the number of squares in each of them.
+     */
+    public static final int SIZE = 9;
+
+    /**
+     * The number of cells in the whole board.
+     */
+    public static final int CELLS = SIZE * SIZE;
+
+    // a 9-bit mask with every square set
+    private static final int FULL = (1 << SIZE) - 1;
+
+    // the 8 ways to get 3 in a row on a 3x3 board
+    private static final int[] LINES = {
+        0b000000111, 0b000111000, 0b111000000, // rows
+        0b001001001, 0b010010010, 0b100100100, // columns
+        0b100010001, 0b001010100 // diagonals
+    };
+
+    // for every 9-bit mask, a line it has all 3 squares of, or 0 if it doesn't have one
+    private static final int[] WINNING_LINE = new int[1 << SIZE];
+
+    static {
+        for (int mask = 0; mask <= FULL; mask++) {
+            for (int line : LINES) {
+                if ((mask & line) == line) {
+                    WINNING_LINE[mask] = line;
+                    break;
+                }
+            }
+        }
+    }
+
+    // the squares each player has in each small board ([(player - 1) * 9 + board])
+    private final int[] squares = new int[2 * SIZE];
+
+    // the small boards each player has won ([player - 1]), and the small boards that
+    // can't be played in anymore because they're won or full
+    private final int[] wonBoards = new int[2];
+    private int closedBoards;
+
+    // the small board the current player has to go in, or -1 if they can go in any open board
+    private int forcedBoard;
+
+    private int moveCount;
+
+    // the player who won, or -1 if nobody has won yet
+    private int winner;
+
+    private int lastMove;
+
+    public UltimateBoard() {
+        reset();
+    }
+
+    /**
+     * Makes a copy of another board.
+     */
+    public UltimateBoard(UltimateBoard other) {
+        copyFrom(other);
+    }
+
+    /**
+     * Makes this board the same as another one without making any new objects.
+     */
+    public void copyFrom(UltimateBoard other) {
+        System.arraycopy(other.squares, 0, squares, 0, squares.length);
+        wonBoards[0] = other.wonBoards[0];
+        wonBoards[1] = other.wonBoards[1];
+        closedBoards = other.closedBoards;
+        forcedBoard = other.forcedBoard;
+        moveCount = other.moveCount;
+        winner = other.winner;
+        lastMove = other.lastMove;
+    }
+
+    /**
+     * Empties every board and makes it player 1's turn.
+     */
+    public void reset() {
+        Arrays.fill(squares, 0);
+        wonBoards[0] = 0;
+        wonBoards[1] = 0;
+        closedBoards = 0;
+        forcedBoard = -1;
+        moveCount = 0;
+        winner = -1;
+        lastMove = -1;
+    }
+
+    /**
+     * Returns whether the current player can go in a cell.
+     *
+     * @param cell the cell (board * 9 + square)
+     */
+    public boolean isLegal(int cell) {
+        int board = cell / SIZE;
+        return winner == -1 && (getOpenSquares(board) & 1 << cell % SIZE) != 0 && (forcedBoard == -1 || forcedBoard == board);
+    }
+
+    /**
+     * Puts the current player's letter in a cell and makes it the other player's
+     * turn. The cell has to be legal (see isLegal).
+     *
+     * @param cell the cell (board * 9 + square)
+     * @return true if the move won the game
+     */
+    public boolean play(int cell) {
+        int player = getCurrentPlayer();
+        int board = cell / SIZE;
+        int square = cell % SIZE;
+        int boardSquares = squares[(player - 1) * SIZE + board] |= 1 << square;
+        moveCount++;
+        lastMove = cell;
+
+        // the small board is closed if the move won it or filled it
+        if (WINNING_LINE[boardSquares] != 0) {
+            wonBoards[player - 1] |= 1 << board;
+            closedBoards |= 1 << board;
+            if (WINNING_LINE[wonBoards[player - 1]] != 0) {
+                winner = player;
+            }
+        }
+        else if ((boardSquares | squares[(2 - player) * SIZE + board]) == FULL) {
+            closedBoards |= 1 << board;
+        }
+
+        // the next player has to go in the board in the same spot as this square, if it's open
+        forcedBoard = (closedBoards & 1 << square) == 0 ? square : -1;
+        return winner == player;
+    }
+
+    /**
+     * Puts the moves the current player can make into an array and returns how
+     * many there are (0 if the game is over).
+     *
+     * @param moves an array with room for at least CELLS moves
+     */
+    public int getMoves(int[] moves) {
+        if (isGameOver()) {
+            return 0;
+        }
+
+        int count = 0;
+        int firstBoard = forcedBoard == -1 ? 0 : forcedBoard;
+        int lastBoard = forcedBoard == -1 ? SIZE - 1 : forcedBoard;
+        for (int board = firstBoard; board <= lastBoard; board++) {
+            for (int open = getOpenSquares(board); open != 0; open &= open - 1) {
+                moves[count++] = board * SIZE + Integer.numberOfTrailingZeros(open);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Picks a random legal move without making any new objects, which is what
+     * playouts need. The game can't be over.
+     */
+    public int getRandomMove(Random random) {
+        if (forcedBoard != -1) {
+            int open = getOpenSquares(forcedBoard);
+            return forcedBoard * SIZE + nthSquare(open, random.nextInt(Integer.bitCount(open)));
+        }
+
+        // count the open squares in every open board, then find which board the random one is in
+        int count = 0;
+        for (int board = 0; board < SIZE; board++) {
+            count += Integer.bitCount(getOpenSquares(board));
+        }
+        int n = random.nextInt(count);
+        for (int board = 0;; board++) {
+            int open = getOpenSquares(board);
+            int boardCount = Integer.bitCount(open);
+            if (n < boardCount) {
+                return board * SIZE + nthSquare(open, n);
+            }
+            n -= boardCount;
+        }
+    }
+
+    // returns the square of the nth bit that's set in a mask
+    private static int nthSquare(int mask, int n) {
+        for (int i = 0; i < n; i++) {
+            mask &= mask - 1;
+        }
+        return Integer.numberOfTrailingZeros(mask);
+    }
+
+    /**
+     * Returns the empty squares of a small board as bits, or 0 if the board is won
+     * or full.
+     */
+    public int getOpenSquares(int board) {
+        if ((closedBoards & 1 << board) != 0) {
+            return 0;
+        }
+        return FULL & ~(squares[board] | squares[SIZE + board]);
+    }
+
+    /**
+     * Returns which player is in a cell: 1, 2, or -1 if it's empty.
+     *
+     * @param cell the cell (board * 9 + square)
+     */
+    public int getPlayer(int cell) {
+        int bit = 1 << cell % SIZE;
+        if ((squares[cell / SIZE] & bit) != 0) {
+            return 1;
+        }
+        if ((squares[SIZE + cell / SIZE] & bit) != 0) {
+            return 2;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns who won a small board: 1, 2, 0 if it's full and nobody won it, or -1
+     * if it can still be played in.
+     */
+    public int getBoardWinner(int board) {
+        if ((wonBoards[0] & 1 << board) != 0) {
+            return 1;
+        }
+        if ((wonBoards[1] & 1 << board) != 0) {
+            return 2;
+        }
+        return (closedBoards & 1 << board) != 0 ? 0 : -1;
+    }
+
+    /**
+     * Returns the 3 squares a small board was won with as bits, or 0 if it wasn't won.
+     */
+    public int getWinningSquares(int board) {
+        int winner = getBoardWinner(board);
+        return winner > 0 ? WINNING_LINE[squares[(winner - 1) * SIZE + board]] : 0;
+    }
+
+    /**
+     * Returns the 3 small boards the game was won with as bits, or 0 if nobody has won.
+     */
+    public int getWinningBoards() {
+        return winner != -1 ? WINNING_LINE[wonBoards[winner - 1]] : 0;
+    }
+
+    /**
+     * Returns the small board the current player has to go in, or -1 if they can
+     * go in any open board.
+     */
+    public int getForcedBoard() {
+        return forcedBoard;
+    }
+
+    /**
+     * Returns the player whose turn it is (1 or 2).
+     */
+    public int getCurrentPlayer() {
+        return (moveCount & 1) + 1;
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Returns the last cell that was played, or -1 if no moves have been made.
+     */
+    public int getLastMove() {
+        return lastMove;
+    }
+
+    /**
+     * Returns the player who won, or -1 if nobody has won.
+     */
+    public int getWinner() {
+        return winner;
+    }
+
+    /**
+     * Returns whether the game is over because someone won or every small board is
+     * won or full.
+     */
+    public boolean isGameOver() {
+        return winner != -1 || closedBoards == FULL;
+    }
+}
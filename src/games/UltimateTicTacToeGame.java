@@ -0,0 +1,531 @@
+package games;
+
+/**
+ * This class provides the logic and design of ultimate tic tac toe, which is a 3x3
+ * grid of tic tac toe boards. Winning a small board claims that spot on the big
+ * board, and the spot a player goes in decides which small board the other player
+ * has to go in next (the boards that can be played in are highlighted).
+ */
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javafx.animation.FadeTransition;
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
+import javafx.scene.input.KeyCode;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.StackPane;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.text.Font;
+import javafx.util.Duration;
+
+public class UltimateTicTacToeGame {
+
+    /**
+     * How long the computer thinks before it moves.
+     */
+    public enum Difficulty {
+        EASY("Easy", 200),
+        MEDIUM("Medium", 1000),
+        HARD("Hard", 3000);
+
+        private final String name;
+        private final long timeLimitMillis;
+
+        Difficulty(String name, long timeLimitMillis) {
+            this.name = name;
+            this.timeLimitMillis = timeLimitMillis;
+        }
+
+        public long getTimeLimitMillis() {
+            return timeLimitMillis;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    // the colors of the small boards, depending on who won them or if they can be played in
+    private static final Color X_BOARD_COLOR = Color.LIGHTBLUE;
+    private static final Color O_BOARD_COLOR = Color.MISTYROSE;
+    private static final Color PLAYABLE_COLOR = Color.LIGHTYELLOW;
+
+    // this stores the state of the game (if it's still going or not)
+    private boolean isGameRunning;
+
+    // scores for each player (how many games they've won)
+    private int player1Score = 0, player2Score = 0;
+
+    // this goes back to the game selector screen
+    private Button btnHome = new Button("Home");
+
+    // switches player 2 between a person and the computer
+    private Button btnOpponent = new Button("Opponent: Player 2");
+
+    // chooses how long the computer thinks
+    private ComboBox<Difficulty> cbDifficulty = new ComboBox<>();
+
+    // the computer opponent plays O with Monte Carlo tree search. It searches on its
+    // own thread (one for the whole app) so the window doesn't freeze while it thinks.
+    private static final MonteCarloTreeSearch monteCarlo = new MonteCarloTreeSearch();
+    private Difficulty difficulty = Difficulty.MEDIUM;
+    private boolean isComputerOpponent = false;
+    private static final ExecutorService aiThread = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Ultimate Tic Tac Toe AI");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // this is true while the computer is looking for a move, clicks are ignored until it's done
+    private boolean isComputerThinking = false;
+
+    // this goes up every game so a move the computer found for an old game isn't played
+    private int gameNumber = 0;
+
+    // this displays the scores
+    private Label lblScore = new Label();
+
+    // this displays whose turn it is
+    private Label lblInfo1 = new Label();
+
+    // this displays who won or if the game was a tie
+    private Label lblInfo2 = new Label();
+
+    // displays how many playouts the computer played and how fast
+    private Label lblEngine = new Label();
+
+    // contains the options on top, the board, and the HUD on the bottom
+    private VBox masterPane = new VBox();
+
+    // this stores Cell data (by cell number, see UltimateBoard)
+    private Cell[] cells = new Cell[UltimateBoard.CELLS];
+
+    // ...and these display the Cells, one GridPane for each small board
+    private GridPane[] smallBoards = new GridPane[UltimateBoard.SIZE];
+    private GridPane bigBoard = new GridPane();
+
+    // stores which player is in each Cell, which boards can be played in, and checks
+    // for a winner. The Cells only display what's stored here.
+    private UltimateBoard board = new UltimateBoard();
+
+    // the winning small boards flash until the next game
+    private FadeTransition[] winAnimations = new FadeTransition[0];
+
+    private Scene masterScene = new Scene(masterPane, 450, 520);
+
+    /**
+     * Initializes the instance variables
+     *
+     * @param selector the stage to put everything in
+     */
+    public Scene startClass(GameSelector selector) {
+        masterPane.setAlignment(Pos.CENTER);
+        masterPane.setSpacing(7);
+
+        // the small boards have a gap between them so it's easy to tell them apart
+        bigBoard.setAlignment(Pos.CENTER);
+        bigBoard.setHgap(6);
+        bigBoard.setVgap(6);
+        // startClass is called again every time the game is opened, so remove the old small boards first
+        bigBoard.getChildren().clear();
+        for (int i = 0; i < UltimateBoard.SIZE; i++) {
+            smallBoards[i] = new GridPane();
+            smallBoards[i].setPadding(new Insets(1, 1, 1, 1));
+            smallBoards[i].setGridLinesVisible(true);
+            bigBoard.add(smallBoards[i], i % 3, i / 3);
+        }
+
+        masterScene.widthProperty().addListener(e -> {
+            draw();
+        });
+        masterScene.heightProperty().addListener(e -> {
+            draw();
+        });
+
+        masterPane.requestFocus();
+
+        // allow the user to reset the game by pressing enter.
+        masterPane.setOnKeyReleased(e -> {
+            if (!(isGameRunning) && e.getCode() == KeyCode.ENTER) {
+                beginGame();
+            }
+        });
+
+        btnHome.setOnAction(e -> {
+            monteCarlo.stop();
+            selector.draw();
+        });
+
+        // changing the opponent starts a new game
+        btnOpponent.setOnAction(e -> {
+            isComputerOpponent = !isComputerOpponent;
+            btnOpponent.setText(isComputerOpponent ? "Opponent: Computer" : "Opponent: Player 2");
+            beginGame();
+        });
+
+        cbDifficulty.getItems().setAll(Difficulty.values());
+        cbDifficulty.setValue(difficulty);
+        cbDifficulty.setOnAction(e -> difficulty = cbDifficulty.getValue());
+
+        // start the game
+        beginGame();
+
+        return masterScene;
+    }
+
+    /**
+     * Initializes the game before it starts and is used to reset the game after
+     * it finishes.
+     */
+    public void beginGame() {
+        board.reset();
+
+        // stop the last game's winning boards flashing
+        for (FadeTransition animation : winAnimations) {
+            animation.stop();
+        }
+        winAnimations = new FadeTransition[0];
+
+        // make the Cells of every small board
+        for (GridPane smallBoard : smallBoards) {
+            smallBoard.getChildren().clear();
+            smallBoard.setOpacity(1);
+        }
+        for (int cell = 0; cell < UltimateBoard.CELLS; cell++) {
+            int square = cell % UltimateBoard.SIZE;
+            cells[cell] = new Cell(cell);
+            cells[cell].setAlignment(Pos.CENTER);
+            smallBoards[cell / UltimateBoard.SIZE].add(cells[cell], square % 3, square / 3);
+        }
+
+        if (Settings.doSaveDataPermanently) {
+            // read in scores from a file.
+            try {
+                // this is for testing the app in NetBeans.
+                File saveFile = new File("src/games", "ultimate tictactoe save file.txt");
+
+                // read in each player's scores from a file
+                try (FileInputStream inFile = new FileInputStream(saveFile); ObjectInputStream inObj = new ObjectInputStream(inFile)) {
+                    int temp1 = inObj.readInt();
+                    int temp2 = inObj.readInt();
+
+                    // update the scores in the file if the in-game scores are higher
+                    if (player1Score > temp1 || player2Score > temp2) {
+                        saveGame();
+                    }
+                    else {
+                        player1Score = temp1;
+                        player2Score = temp2;
+                    }
+                }
+            }
+            catch (EOFException ex) {
+                System.out.println("End of file reached: There is no data in the save file to be read.");
+            }
+            catch (IOException ex) {
+                System.out.println("An error occurred while reading from the file.");
+                ex.printStackTrace();
+            }
+        }
+        // override saved data
+        else if (Settings.dontSaveData) {
+            deleteSaveData();
+        }
+
+        lblScore.setText("Player 1:   " + player1Score + "\t\t" + getPlayer2Name() + ":   " + player2Score);
+        // make it player 1's turn
+        lblInfo1.setText("X - Player 1's turn");
+        lblInfo2.setText("");
+        lblEngine.setText("");
+        isGameRunning = true;
+        isComputerThinking = false;
+        gameNumber++;
+        monteCarlo.stop();
+
+        colorBoards();
+        draw();
+    }
+
+    /**
+     * Draws everything on the window.
+     */
+    private void draw() {
+        // clear the window
+        masterPane.getChildren().clear();
+
+        // there are 9 cells across and down, plus the gaps and the HUD
+        double cellSize = Math.min(masterPane.getWidth() / 10.5, masterPane.getHeight() / 13.0);
+
+        Font infoFont = Font.font(lblInfo1.getFont().getFamily(), Math.min(Math.max(cellSize / 2.5, 10), 17));
+        lblScore.setFont(infoFont);
+        lblInfo1.setFont(infoFont);
+        lblInfo2.setFont(infoFont);
+
+        // reset the size of the cells
+        for (Cell cell : cells) {
+            cell.setSize(cellSize);
+        }
+
+        // the HBox at the top contains the home button and the opponent options
+        HBox optionsHBox = new HBox();
+        optionsHBox.setAlignment(Pos.CENTER);
+        optionsHBox.setSpacing(5);
+        cbDifficulty.setDisable(!isComputerOpponent);
+        optionsHBox.getChildren().addAll(btnHome, btnOpponent, cbDifficulty);
+
+        masterPane.getChildren().addAll(optionsHBox, lblScore, bigBoard, lblInfo1, lblInfo2);
+        if (isComputerOpponent) {
+            masterPane.getChildren().add(lblEngine);
+        }
+    }
+
+    /**
+     * Colors each small board by who won it, and highlights the boards the current
+     * player can go in.
+     */
+    private void colorBoards() {
+        for (int cell = 0; cell < UltimateBoard.CELLS; cell++) {
+            int smallBoard = cell / UltimateBoard.SIZE;
+            int boardWinner = board.getBoardWinner(smallBoard);
+
+            if (boardWinner == 1) {
+                cells[cell].setColor(X_BOARD_COLOR);
+            }
+            else if (boardWinner == 2) {
+                cells[cell].setColor(O_BOARD_COLOR);
+            }
+            else if (isGameRunning && (board.getForcedBoard() == -1 || board.getForcedBoard() == smallBoard)) {
+                cells[cell].setColor(PLAYABLE_COLOR);
+            }
+            else {
+                cells[cell].setColor(Color.WHITE);
+            }
+        }
+    }
+
+    /**
+     * When a player clicks on a Cell, this method puts their letter in it if they
+     * can go there, and then checks for a win or a tie.
+     *
+     * @param cell the cell the user clicked on (board * 9 + square)
+     */
+    private void placeLetter(int cell) {
+
+        // clicks are ignored while the computer is thinking or after the game is over
+        if (!isGameRunning || isComputerThinking) {
+            return;
+        }
+
+        // alert the user if they try to go in a Cell that isn't empty or isn't in a highlighted board
+        if (!board.isLegal(cell)) {
+            if (!(lblInfo2.getText().contains("Cannot go there"))) {
+                lblInfo2.setText("Cannot go there");
+            }
+            return;
+        }
+        lblInfo2.setText("");
+
+        int player = board.getCurrentPlayer();
+        cells[cell].setLetter(player);
+
+        // if someone won, stop the game
+        if (board.play(cell)) {
+            isGameRunning = false;
+            animateWinningBoards(board.getWinningBoards());
+            if (player == 1) {
+                player1Score++;
+            }
+            else {
+                player2Score++;
+            }
+
+            lblInfo1.setText((player == 1 ? "X - Player 1" : "O - " + getPlayer2Name()) + " won!");
+            lblInfo2.setText("Press ENTER to play another game");
+            lblScore.setText("Player 1:   " + player1Score + "\t\t" + getPlayer2Name() + ":   " + player2Score);
+            if (Settings.doSaveDataPermanently) {
+                saveGame();
+            }
+        }
+
+        // if every small board is won or full, it's a tie
+        else if (board.isGameOver()) {
+            isGameRunning = false;
+            lblInfo1.setText("It's a tie!");
+            lblInfo2.setText("Press ENTER to play another game");
+            if (Settings.doSaveDataPermanently) {
+                saveGame();
+            }
+        }
+
+        // otherwise, change turns
+        else if (board.getCurrentPlayer() == 1) {
+            lblInfo1.setText("X - Player 1's turn");
+        }
+        else {
+            lblInfo1.setText("O - " + getPlayer2Name() + "'s turn");
+        }
+        colorBoards();
+
+        // if it's the computer's turn now, let it find a move
+        if (isGameRunning && isComputerOpponent && board.getCurrentPlayer() == 2) {
+            startComputerTurn();
+        }
+    }
+
+    /**
+     * Starts searching for the computer's move on the AI thread. When the search
+     * is done, the move is played on the JavaFX Application Thread.
+     */
+    private void startComputerTurn() {
+        isComputerThinking = true;
+        lblInfo2.setText("Computer is thinking...");
+
+        // the search gets its own copy of the board so it doesn't change while it's running
+        MonteCarloTreeSearch.Game game = MonteCarloTreeSearch.forBoard(board);
+        long timeLimitMillis = difficulty.getTimeLimitMillis();
+        int searchGameNumber = gameNumber;
+        // a search that's stopped while it's waiting for the AI thread won't run
+        int stopCount = monteCarlo.getStopCount();
+
+        aiThread.submit(() -> {
+            int cell = monteCarlo.findMove(game, timeLimitMillis, Long.MAX_VALUE, stopCount);
+            String stats = String.format("Monte Carlo: %,d playouts on %d threads - %,.0f playouts/sec",
+                    monteCarlo.getLastPlayouts(), monteCarlo.getThreadCount(), monteCarlo.getPlayoutsPerSecond());
+
+            Platform.runLater(() -> {
+                // ignore the move if a new game was started while the computer was thinking
+                if (searchGameNumber == gameNumber && isGameRunning && cell != -1) {
+                    isComputerThinking = false;
+                    lblEngine.setText(stats);
+                    placeLetter(cell);
+                }
+            });
+        });
+    }
+
+    /**
+     * After someone won, flash the small boards that won.
+     *
+     * @param boards the winning small boards as bits
+     */
+    private void animateWinningBoards(int boards) {
+        winAnimations = new FadeTransition[Integer.bitCount(boards)];
+        for (int i = 0; i < winAnimations.length; i++) {
+            int smallBoard = Integer.numberOfTrailingZeros(boards);
+            boards &= boards - 1;
+
+            winAnimations[i] = new FadeTransition(Duration.seconds(0.5), smallBoards[smallBoard]);
+            winAnimations[i].setCycleCount(FadeTransition.INDEFINITE);
+            winAnimations[i].setAutoReverse(true);
+            winAnimations[i].setFromValue(1);
+            winAnimations[i].setToValue(0.1);
+            winAnimations[i].play();
+        }
+    }
+
+    /**
+     * Returns the name of player 2 to display in the HUD
+     */
+    private String getPlayer2Name() {
+        return isComputerOpponent ? "Computer" : "Player 2";
+    }
+
+    /**
+     * Saves each player's score to a file
+     */
+    public void saveGame() {
+        try {
+            // this is for testing the app in NetBeans.
+            File saveFile = new File("src/games", "ultimate tictactoe save file.txt");
+
+            // write the player's scores to a file
+            try (FileOutputStream outFile = new FileOutputStream(saveFile); ObjectOutputStream outObj = new ObjectOutputStream(outFile)) {
+                outObj.writeInt(player1Score);
+                outObj.writeInt(player2Score);
+            }
+        }
+        catch (IOException ex) {
+            System.out.println("An error occurred while writing to the file.");
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Removes each player's score from the file
+     */
+    public static void deleteSaveData() {
+        try {
+            // this is for testing the app in NetBeans.
+            File saveFile = new File("src/games", "ultimate tictactoe save file.txt");
+
+            // erase the data in the save file
+            try (FileOutputStream outFile = new FileOutputStream(saveFile); ObjectOutputStream outObj = new ObjectOutputStream(outFile)) {
+                outObj.writeInt(0);
+                outObj.writeInt(0);
+            }
+        }
+        catch (IOException ex) {
+            System.out.println("An error occurred while writing to the file.");
+            ex.printStackTrace();
+        }
+    }
+
+    // this class is for each square of the small boards (it works like the Cells in tic tac toe)
+    class Cell extends StackPane {
+
+        // where the Cell is (board * 9 + square)
+        private int cell;
+
+        private Rectangle background = new Rectangle(20, 20);
+
+        private Label label = new Label();
+
+        // no default constructor because the Cell NEEDS to know where it's at.
+        public Cell(int cell) {
+            this.cell = cell;
+            background.setStroke(Color.BLACK);
+            background.setFill(Color.WHITE);
+            super.getChildren().add(background);
+            super.setOnMouseClicked(e -> placeLetter(this.cell));
+        }
+
+        // this is used to put either an X or an O in the Cell
+        public void setLetter(int player) {
+            label.setText(player == 1 ? "X" : "O");
+            label.setFont(Font.font(label.getFont().getFamily(), background.getWidth() / 2.0));
+            super.getChildren().add(label);
+        }
+
+        public void setColor(Color color) {
+            background.setFill(color);
+        }
+
+        // sets the size of the Rectangle (width and height are equal, like a square)
+        public void setSize(double size) {
+            if (size > 0) {
+                background.setWidth(size);
+                background.setHeight(size);
+
+                if (super.getChildren().size() > 1) {
+                    label.setFont(Font.font(label.getFont().getFamily(), size / 2.0));
+                }
+            }
+        }
+    }
+}
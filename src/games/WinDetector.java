@@ -0,0 +1,100 @@
+package games;
+
+/**
+ * This class checks for a winner in games where a player needs a number of their
+ * pieces in a row (like connect 4 and tic tac toe).
+ *
+ * Instead of checking every line on the board, it only checks the lines that go
+ * through the cell that was just played.
+ */
+public class WinDetector {
+
+    /**
+     * Tells the WinDetector which player is in each cell of a board.
+     */
+    public interface Grid {
+        /**
+         * Returns which player is in a cell: 1, 2, or -1 if it's empty.
+         */
+        int getPlayer(int row, int column);
+    }
+
+    // the row and column steps for horizontal, vertical, and both diagonal lines
+    private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+
+    // the size of the board and how many pieces in a row win the game
+    private int rows, columns, winLength;
+
+    // the cells in the winning line, or null if nobody has won
+    private int[][] winningCells;
+
+    public WinDetector(int rows, int columns, int winLength) {
+        this.rows = rows;
+        this.columns = columns;
+        this.winLength = winLength;
+    }
+
+    /**
+     * Forgets the last winning line so a new game can be checked.
+     */
+    public void reset() {
+        winningCells = null;
+    }
+
+    /**
+     * Checks if a move won the game for the player who made it.
+     *
+     * @param grid the board the move was made on (with the move already on it)
+     * @param row the row of the cell that was played
+     * @param column the column of the cell that was played
+     * @return true if the move made a line of winLength or more
+     */
+    public boolean checkMove(Grid grid, int row, int column) {
+        int player = grid.getPlayer(row, column);
+
+        for (int[] direction : DIRECTIONS) {
+            // count the player's pieces on both sides of the cell
+            int before = countInDirection(grid, player, row, column, -direction[0], -direction[1]);
+            int after = countInDirection(grid, player, row, column, direction[0], direction[1]);
+
+            if (before + 1 + after >= winLength) {
+                winningCells = new int[before + 1 + after][2];
+                for (int i = 0; i < winningCells.length; i++) {
+                    winningCells[i][0] = row + (i - before) * direction[0];
+                    winningCells[i][1] = column + (i - before) * direction[1];
+                }
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Counts how many of a player's pieces are next to a cell in one direction
+     * (not counting the cell itself). It stops after winLength - 1 pieces since
+     * more than that can't change the result.
+     */
+    private int countInDirection(Grid grid, int player, int row, int column, int rowStep, int columnStep) {
+        int count = 0;
+        int r = row + rowStep;
+        int c = column + columnStep;
+
+        while (count < winLength - 1 && r >= 0 && r < rows && c >= 0 && c < columns
+                && grid.getPlayer(r, c) == player) {
+            count++;
+            r += rowStep;
+            c += columnStep;
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns the cells of the winning line as {row, column} pairs, or null if
+     * the last move didn't win.
+     */
+    public int[][] getWinningCells() {
+        return winningCells;
+    }
+}
@@ -0,0 +1,126 @@
+package games;
+
+/**
+ * This class tests that WinDetector finds lines in every direction, at the edges
+ * of the board, and doesn't find lines that aren't there.
+ */
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WinDetectorTest {
+
+    private static final int ROWS = 6;
+    private static final int COLUMNS = 7;
+
+    // which player is in each cell, -1 for empty
+    private int[][] cells;
+
+    private WinDetector detector;
+
+    @Before
+    public void setUp() {
+        cells = new int[ROWS][COLUMNS];
+        for (int[] row : cells) {
+            Arrays.fill(row, -1);
+        }
+        detector = new WinDetector(ROWS, COLUMNS, 4);
+    }
+
+    // puts a piece in a cell and checks the move, like the games do
+    private boolean play(int player, int row, int column) {
+        cells[row][column] = player;
+        return detector.checkMove((r, c) -> cells[r][c], row, column);
+    }
+
+    @Test
+    public void testHorizontal() {
+        assertFalse(play(1, 5, 1));
+        assertFalse(play(1, 5, 2));
+        assertFalse(play(1, 5, 4));
+        // the last piece goes in the middle of the line
+        assertTrue(play(1, 5, 3));
+        assertArrayEquals(new int[][] {{5, 1}, {5, 2}, {5, 3}, {5, 4}}, detector.getWinningCells());
+    }
+
+    @Test
+    public void testVertical() {
+        assertFalse(play(2, 5, 3));
+        assertFalse(play(2, 4, 3));
+        assertFalse(play(2, 3, 3));
+        assertTrue(play(2, 2, 3));
+        assertArrayEquals(new int[][] {{2, 3}, {3, 3}, {4, 3}, {5, 3}}, detector.getWinningCells());
+    }
+
+    @Test
+    public void testDiagonalDown() {
+        assertFalse(play(1, 1, 1));
+        assertFalse(play(1, 2, 2));
+        assertFalse(play(1, 4, 4));
+        assertTrue(play(1, 3, 3));
+        assertArrayEquals(new int[][] {{1, 1}, {2, 2}, {3, 3}, {4, 4}}, detector.getWinningCells());
+    }
+
+    @Test
+    public void testDiagonalUp() {
+        assertFalse(play(2, 5, 0));
+        assertFalse(play(2, 4, 1));
+        assertFalse(play(2, 3, 2));
+        assertTrue(play(2, 2, 3));
+        assertArrayEquals(new int[][] {{2, 3}, {3, 2}, {4, 1}, {5, 0}}, detector.getWinningCells());
+    }
+
+    @Test
+    public void testEdgeColumns() {
+        // a line that ends at the last column
+        assertFalse(play(1, 0, 3));
+        assertFalse(play(1, 0, 4));
+        assertFalse(play(1, 0, 5));
+        assertTrue(play(1, 0, 6));
+        assertArrayEquals(new int[][] {{0, 3}, {0, 4}, {0, 5}, {0, 6}}, detector.getWinningCells());
+
+        // a line in the first column
+        detector.reset();
+        assertNull(detector.getWinningCells());
+        assertFalse(play(2, 0, 0));
+        assertFalse(play(2, 1, 0));
+        assertFalse(play(2, 2, 0));
+        assertTrue(play(2, 3, 0));
+    }
+
+    @Test
+    public void testNoWin() {
+        // three in a row, a line broken by the other player, and a line that wraps around the edge
+        assertFalse(play(1, 5, 0));
+        assertFalse(play(1, 5, 1));
+        assertFalse(play(1, 5, 2));
+        assertFalse(play(2, 5, 3));
+        assertFalse(play(1, 5, 4));
+        assertFalse(play(1, 4, 5));
+        assertFalse(play(1, 4, 6));
+        assertFalse(play(1, 3, 0));
+        assertFalse(play(1, 3, 1));
+        assertNull(detector.getWinningCells());
+    }
+
+    @Test
+    public void testFullBoardWithoutWin() {
+        // each column has pairs of the same player, and the next column is the opposite, so there's never 4 in a row
+        WinDetector noWinDetector = new WinDetector(ROWS, COLUMNS, 4);
+        for (int column = 0; column < COLUMNS; column++) {
+            for (int row = ROWS - 1; row >= 0; row--) {
+                cells[row][column] = (row / 2 + column) % 2 == 0 ? 1 : 2;
+            }
+        }
+        for (int row = 0; row < ROWS; row++) {
+            for (int column = 0; column < COLUMNS; column++) {
+                assertFalse(noWinDetector.checkMove((r, c) -> cells[r][c], row, column));
+            }
+        }
+    }
+}